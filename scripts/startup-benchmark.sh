@@ -0,0 +1,89 @@
+#!/usr/bin/env bash
+# Cold-start benchmark: time from launching the JVM (or native binary) until
+# /actuator/health first answers 200, and the resident set size at that point.
+#
+#   ./mvnw -Pstartup -DskipTests package      # jar with Spring AOT initializers
+#   ./mvnw -Pnative -DskipTests native:compile # optional, needs GraalVM
+#   scripts/startup-benchmark.sh [runs]
+#
+# Modes measured:
+#   jar      java -jar on the fat jar, as deployed today
+#   aot-cds  extracted jar, -Dspring.aot.enabled=true, class data sharing archive
+#            from a training run (-Dspring.context.exit=onRefresh)
+#   native   target/StockAggregator, when it was built
+#
+# Each mode gets one untimed run first so every timed run sees a warm page cache.
+# JAVA_OPTS is passed to every JVM mode; PORT (default 18080) must be free.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+RUNS=${1:-5}
+PORT=${PORT:-18080}
+JAVA_OPTS=${JAVA_OPTS:-}
+OUT=target/startup
+
+JAR=$(ls target/StockAggregator-*.jar 2>/dev/null | grep -v '\.original$' | head -n 1 || true)
+if [[ -z "$JAR" ]]; then
+    echo "No jar in target/; run ./mvnw -Pstartup -DskipTests package first" >&2
+    exit 1
+fi
+
+now_ms() {
+    echo $(( $(date +%s%N) / 1000000 ))
+}
+
+# Runs one start: prints "<ms to first 200> <rss kB>", then stops the process
+measure() {
+    local start pid ms rss
+    start=$(now_ms)
+    "$@" --server.port="$PORT" --spring.main.banner-mode=off --logging.level.root=WARN >"$OUT/last.log" 2>&1 &
+    pid=$!
+    until curl -fs -o /dev/null "http://localhost:$PORT/actuator/health"; do
+        if ! kill -0 "$pid" 2>/dev/null; then
+            echo "Process exited before answering; see $OUT/last.log" >&2
+            exit 1
+        fi
+        sleep 0.01
+    done
+    ms=$(( $(now_ms) - start ))
+    rss=$(ps -o rss= -p "$pid" | tr -d ' ')
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+    echo "$ms $rss"
+}
+
+median() {
+    sort -n | awk '{ v[NR] = $1 } END { print (NR % 2) ? v[(NR + 1) / 2] : int((v[NR / 2] + v[NR / 2 + 1]) / 2) }'
+}
+
+bench() {
+    local mode=$1
+    shift
+    local times=() rss=() line
+    measure "$@" >/dev/null
+    for ((i = 0; i < RUNS; i++)); do
+        line=$(measure "$@")
+        times+=("${line% *}")
+        rss+=("${line#* }")
+    done
+    printf '%-8s  first response %6s ms   rss %7s kB   (median of %d; runs: %s ms)\n' "$mode" \
+        "$(printf '%s\n' "${times[@]}" | median)" "$(printf '%s\n' "${rss[@]}" | median)" "$RUNS" "${times[*]}"
+}
+
+rm -rf "$OUT"
+mkdir -p "$OUT"
+
+# CDS needs the exploded layout: the archive is only valid for the same class path
+java -Djarmode=tools -jar "$JAR" extract --destination "$OUT/app" >/dev/null
+APP="$OUT/app/$(basename "$JAR")"
+# shellcheck disable=SC2086
+java $JAVA_OPTS -XX:ArchiveClassesAtExit="$OUT/app.jsa" -Dspring.aot.enabled=true \
+    -Dspring.context.exit=onRefresh -jar "$APP" >"$OUT/training.log" 2>&1
+
+# shellcheck disable=SC2086
+bench jar java $JAVA_OPTS -jar "$JAR"
+# shellcheck disable=SC2086
+bench aot-cds java $JAVA_OPTS -XX:SharedArchiveFile="$OUT/app.jsa" -Dspring.aot.enabled=true -jar "$APP"
+if [[ -x target/StockAggregator ]]; then
+    bench native target/StockAggregator
+fi
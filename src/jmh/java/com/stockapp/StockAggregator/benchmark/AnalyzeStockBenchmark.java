@@ -0,0 +1,90 @@
+package com.stockapp.StockAggregator.benchmark;
+
+import com.stockapp.StockAggregator.StockAggregatorApplication;
+import com.stockapp.StockAggregator.dto.AIAnalysisResponse;
+import com.stockapp.StockAggregator.dto.StockAnalysisDTO;
+import com.stockapp.StockAggregator.service.OpenRouterService;
+import com.stockapp.StockAggregator.service.StockAnalysisService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * End-to-end analyzeStock (and the AI call on top of it) through the real
+ * Spring context, with StockDetails and OpenRouter served by StubUpstreamServer.
+ * Symbols rotate over a fixed set so cached runs see a realistic hit pattern.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms512m", "-Xmx512m"})
+public class AnalyzeStockBenchmark {
+
+    private static final int SYMBOLS = 64;
+
+    @Param({"0", "20"})
+    public long latencyMs;
+
+    @Param({"256"})
+    public int paddingBytes;
+
+    @Param({"2048", "65536"})
+    public int fundamentalsBytes;
+
+    @Param({"false", "true"})
+    public boolean cache;
+
+    @Param({"remote"})
+    public String indicators;
+
+    private StubUpstreamServer stub;
+    private ConfigurableApplicationContext context;
+    private StockAnalysisService analysisService;
+    private OpenRouterService openRouterService;
+    private final AtomicInteger cursor = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void start() throws Exception {
+        stub = new StubUpstreamServer(latencyMs, paddingBytes, fundamentalsBytes);
+        // command-line arguments take precedence over application.properties
+        context = new SpringApplicationBuilder(StockAggregatorApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .run("--stockdetailsapi.url=" + stub.baseUrl(),
+                        "--openrouter.api.url=" + stub.baseUrl() + "/api/v1/chat/completions",
+                        "--OPENROUTER_API_KEY=benchmark",
+                        "--stockdetailsapi.cache.enabled=" + cache,
+                        "--openrouter.cache.enabled=false",
+                        "--stockdetailsapi.indicators.source=" + indicators,
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN");
+        analysisService = context.getBean(StockAnalysisService.class);
+        openRouterService = context.getBean(OpenRouterService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        if (context != null) context.close();
+        if (stub != null) stub.close();
+    }
+
+    @Benchmark
+    public StockAnalysisDTO analyzeStock() {
+        return analysisService.analyzeStock(nextSymbol());
+    }
+
+    @Benchmark
+    public AIAnalysisResponse analyzeWithAI() throws Exception {
+        return openRouterService.askAIForDecision(analysisService.analyzeStock(nextSymbol()));
+    }
+
+    private String nextSymbol() {
+        return "SYM" + Math.floorMod(cursor.getAndIncrement(), SYMBOLS);
+    }
+}
@@ -0,0 +1,111 @@
+package com.stockapp.StockAggregator.benchmark;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * In-process stand-in for the StockDetails API and OpenRouter, so benchmarks run
+ * offline and repeatably. Every response is delayed by latencyMs; price and
+ * indicator bodies are padded with an ignored field of paddingBytes, and
+ * fundamentals are generated at about fundamentalsBytes.
+ */
+public final class StubUpstreamServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newFixedThreadPool(64);
+    private final long latencyMs;
+    private final String padding;
+    private final byte[] fundamentals;
+    private final byte[] history;
+    private final byte[] completion;
+
+    public StubUpstreamServer(long latencyMs, int paddingBytes, int fundamentalsBytes) throws IOException {
+        this.latencyMs = latencyMs;
+        this.padding = "x".repeat(paddingBytes);
+        this.fundamentals = fundamentals(fundamentalsBytes);
+        this.history = history(300);
+        this.completion = ("{\"choices\":[{\"message\":{\"role\":\"assistant\",\"content\":"
+                + "\"```json\\n{\\\"symbol\\\":\\\"STUB\\\",\\\"decision\\\":\\\"HOLD\\\","
+                + "\\\"reasoning\\\":\\\"Mixed signals from the stub.\\\"}\\n```\"}}]}")
+                .getBytes(StandardCharsets.UTF_8);
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 256);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (latencyMs > 0) Thread.sleep(latencyMs);
+            byte[] body = route(exchange.getRequestURI().getPath());
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            if (body == null) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private byte[] route(String path) {
+        if (path.startsWith("/api/fundamentals/")) return fundamentals;
+        if (path.endsWith("/chat/completions")) return completion;
+        if (path.endsWith("/ohlcv")) return history;
+        String body;
+        if (path.endsWith("/live")) body = "{\"price\":101.25,\"timestamp\":1700000000000";
+        else if (path.endsWith("/today")) body = "{\"high\":102.5,\"low\":99.75";
+        else if (path.endsWith("/52week")) body = "{\"week52High\":130.0,\"week52Low\":80.0";
+        else if (!path.startsWith("/api/indicators/")) return null;
+        else if (path.contains("/macd")) body = "{\"macd\":0.42,\"signal\":0.31,\"histogram\":0.11";
+        else if (path.endsWith("/rsi")) body = "{\"value\":47.3";
+        else body = "{\"value\":100.4";
+        return (body + ",\"padding\":\"" + padding + "\"}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] fundamentals(int targetBytes) {
+        StringBuilder sb = new StringBuilder("{\"name\":\"Stub Corp\",\"sector\":\"Technology\"");
+        for (int i = 0; sb.length() < targetBytes; i++) {
+            sb.append(",\"metric").append(i).append("\":{\"value\":")
+                    .append(String.format(Locale.ROOT, "%.4f", i * 1.37))
+                    .append(",\"period\":\"FY").append(2000 + i % 25).append("\"}");
+        }
+        return sb.append('}').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] history(int bars) {
+        StringBuilder sb = new StringBuilder("[");
+        double close = 100;
+        for (int i = 0; i < bars; i++) {
+            close += Math.sin(i / 7.0);
+            if (i > 0) sb.append(',');
+            sb.append("{\"date\":\"").append(LocalDate.of(2024, 1, 1).plusDays(i))
+                    .append("\",\"close\":").append(String.format(Locale.ROOT, "%.2f", close)).append('}');
+        }
+        return sb.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,76 @@
+package com.stockapp.StockAggregator.service;
+
+import com.stockapp.StockAggregator.dto.AIAnalysisResponse;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of OpenRouter chat completion responses: pulling the answer out of
+ * the envelope, trimming code fences and reading the decision object, whole
+ * or incrementally from streamed content deltas.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OpenRouterParsingBenchmark {
+
+    private static final String DECISION = "{\"symbol\":\"AAPL\",\"decision\":\"BUY\",\"reasoning\":"
+            + "\"Price above SMA and EMA with a positive MACD histogram; RSI is neutral and fundamentals are solid.\"}";
+
+    private final OpenRouterService service = new OpenRouterService(null, null, null, null);
+
+    @Param({"fenced", "plain"})
+    public String format;
+
+    private String responseBody;
+    private String answer;
+    private String[] deltas;
+
+    @Setup
+    public void setUp() {
+        answer = format.equals("fenced") ? "```json\n" + DECISION + "\n```" : DECISION;
+        String escaped = answer.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+        responseBody = "{\"id\":\"gen-1\",\"model\":\"openai/gpt-4o-mini\",\"choices\":[{\"index\":0,"
+                + "\"message\":{\"role\":\"assistant\",\"content\":\"" + escaped + "\"},\"finish_reason\":\"stop\"}],"
+                + "\"usage\":{\"prompt_tokens\":812,\"completion_tokens\":61,\"total_tokens\":873}}";
+        // Streamed content arrives a token (about four characters) at a time
+        deltas = new String[(answer.length() + 3) / 4];
+        for (int i = 0; i < deltas.length; i++) {
+            deltas[i] = answer.substring(i * 4, Math.min(answer.length(), i * 4 + 4));
+        }
+    }
+
+    @Benchmark
+    public String extractContent() throws Exception {
+        return service.extractContent(responseBody);
+    }
+
+    @Benchmark
+    public String trimCodeFences() {
+        return service.trimCodeFences(answer);
+    }
+
+    @Benchmark
+    public AIAnalysisResponse extractAndParse() throws Exception {
+        return service.parseDecision(service.extractContent(responseBody));
+    }
+
+    @Benchmark
+    public AIAnalysisResponse streamParse() {
+        DecisionStreamParser parser = new DecisionStreamParser(new DecisionStreamParser.Listener() {
+            @Override
+            public void onDecision(String decision) {
+            }
+
+            @Override
+            public void onReasoning(String delta) {
+            }
+        });
+        for (String delta : deltas) parser.feed(delta);
+        return parser.result();
+    }
+}
@@ -0,0 +1,79 @@
+package com.stockapp.StockAggregator.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.stockapp.StockAggregator.dto.StockAnalysisDTO;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The interpret* methods and combineStrategy, with and without building the
+ * meaning texts that serialization asks for. Inputs cycle through a fixed,
+ * seeded set so every recommendation branch is exercised.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SignalBenchmark {
+
+    private static final int INPUTS = 1024;
+
+    private final StockAnalysisService service = new StockAnalysisService(null, null, null, null, null,
+            new IndicatorRegistry(false, new String[0], List.of()));
+    private final double[] rsi = new double[INPUTS];
+    private final double[] average = new double[INPUTS];
+    private final double[] price = new double[INPUTS];
+    private final JsonNode[] macd = new JsonNode[INPUTS];
+    private int i;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(7);
+        for (int k = 0; k < INPUTS; k++) {
+            rsi[k] = random.nextDouble() * 100;
+            average[k] = 100 + random.nextGaussian();
+            price[k] = 100 + random.nextGaussian();
+            macd[k] = JsonNodeFactory.instance.objectNode()
+                    .put("macd", random.nextGaussian())
+                    .put("signal", random.nextGaussian())
+                    .put("histogram", random.nextGaussian());
+        }
+    }
+
+    @Benchmark
+    public String interpretAndCombine() {
+        return service.combineStrategy(interpretAll(next()));
+    }
+
+    @Benchmark
+    public void interpretCombineAndDescribe(Blackhole bh) {
+        Map<String, StockAnalysisDTO.IndicatorDetail> indicators = interpretAll(next());
+        bh.consume(service.combineStrategy(indicators));
+        for (StockAnalysisDTO.IndicatorDetail detail : indicators.values()) {
+            bh.consume(detail.getMeaning());
+        }
+    }
+
+    private int next() {
+        i = (i + 1) & (INPUTS - 1);
+        return i;
+    }
+
+    private Map<String, StockAnalysisDTO.IndicatorDetail> interpretAll(int k) {
+        Map<String, StockAnalysisDTO.IndicatorDetail> indicators = new HashMap<>();
+        indicators.put("rsi", StockAnalysisService.interpretRSI(rsi[k]));
+        indicators.put("sma_20", StockAnalysisService.interpretSMA(average[k], price[k]));
+        indicators.put("ema_14", StockAnalysisService.interpretEMA(average[(k + 1) & (INPUTS - 1)], price[k]));
+        indicators.put("macd", StockAnalysisService.interpretMACD(macd[k]));
+        return indicators;
+    }
+}
@@ -0,0 +1,172 @@
+package com.stockapp.StockAggregator.backtest;
+
+import com.stockapp.StockAggregator.service.StrategyParameters;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Replays signal series through the combined strategy for many parameter sets
+ * at once. The sweep is split fork/join style over parameter sets, and over
+ * symbols once a task holds a single set, until a task has about {@link #GRAIN}
+ * bar replays; leaves run allocation-free loops over primitive arrays.
+ * <p>
+ * The replay decides at each bar's close, as the live analysis would:
+ * <ul>
+ *   <li>hit rate: BUY/SELL decisions whose close horizon bars later moved their way</li>
+ *   <li>return: long-only, in after a BUY, out after a SELL, HOLD keeps the position</li>
+ *   <li>drawdown: largest peak-to-trough fall of that equity curve</li>
+ * </ul>
+ */
+public final class BacktestEngine {
+
+    static final long GRAIN = 1 << 16;
+
+    private final ForkJoinPool pool;
+
+    public BacktestEngine(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /** One result per parameter set, in the same order. */
+    public Stats[] run(List<SignalSeries> series, List<StrategyParameters> params, int horizon) {
+        SignalSeries[] all = series.toArray(new SignalSeries[0]);
+        long[] barsBefore = new long[all.length + 1]; // prefix sums: bars of symbols [a, b) in O(1)
+        for (int i = 0; i < all.length; i++) barsBefore[i + 1] = barsBefore[i] + all[i].size();
+        StrategyParameters[] sets = params.toArray(new StrategyParameters[0]);
+        return pool.invoke(new Sweep(all, barsBefore, sets, Math.max(1, horizon), 0, sets.length, 0, all.length));
+    }
+
+    /** Replays one series with one parameter set and adds the outcome to out. */
+    static void replay(SignalSeries s, StrategyParameters p, int horizon, Stats out) {
+        double[] close = s.close;
+        byte[] rsi = s.rsi;
+        byte[] sma = s.sma;
+        byte[] ema = s.ema;
+        byte[] macd = s.macd;
+        double wRsi = p.rsiWeight();
+        double wSma = p.smaWeight();
+        double wEma = p.emaWeight();
+        double wMacd = p.macdWeight();
+        double buy = p.buyThreshold();
+        double sell = p.sellThreshold();
+
+        int n = close.length;
+        long signals = 0;
+        long hits = 0;
+        long trades = 0;
+        boolean holding = false;
+        double equity = 1.0;
+        double peak = 1.0;
+        double maxDrawdown = 0.0;
+        for (int t = 0; t < n; t++) {
+            double score = rsi[t] * wRsi + sma[t] * wSma + ema[t] * wEma + macd[t] * wMacd;
+            int decision = score >= buy ? 1 : score <= sell ? -1 : 0; // as StrategyParameters.decide
+            if (decision != 0 && t + horizon < n) {
+                signals++;
+                double move = close[t + horizon] - close[t];
+                if (decision > 0 ? move > 0 : move < 0) hits++;
+            }
+            boolean next = decision > 0 || (decision == 0 && holding);
+            if (next != holding) trades++;
+            holding = next;
+            if (holding && t + 1 < n && close[t] > 0) {
+                equity *= close[t + 1] / close[t];
+                if (equity > peak) peak = equity;
+                double drawdown = 1.0 - equity / peak;
+                if (drawdown > maxDrawdown) maxDrawdown = drawdown;
+            }
+        }
+        out.signals += signals;
+        out.hits += hits;
+        out.trades += trades;
+        out.symbols++;
+        out.sumReturn += equity - 1.0;
+        out.sumDrawdown += maxDrawdown;
+        if (maxDrawdown > out.worstDrawdown) out.worstDrawdown = maxDrawdown;
+    }
+
+    /** Outcome of one parameter set summed over symbols. */
+    public static final class Stats {
+        long signals;
+        long hits;
+        long trades;
+        int symbols;
+        double sumReturn;
+        double sumDrawdown;
+        double worstDrawdown;
+
+        void add(Stats o) {
+            signals += o.signals;
+            hits += o.hits;
+            trades += o.trades;
+            symbols += o.symbols;
+            sumReturn += o.sumReturn;
+            sumDrawdown += o.sumDrawdown;
+            worstDrawdown = Math.max(worstDrawdown, o.worstDrawdown);
+        }
+
+        public long getSignals() { return signals; }
+        public long getTrades() { return trades; }
+        public int getSymbols() { return symbols; }
+        public double getHitRate() { return signals == 0 ? 0.0 : (double) hits / signals; }
+        public double getAverageReturn() { return symbols == 0 ? 0.0 : sumReturn / symbols; }
+        public double getAverageMaxDrawdown() { return symbols == 0 ? 0.0 : sumDrawdown / symbols; }
+        public double getWorstDrawdown() { return worstDrawdown; }
+    }
+
+    private static final class Sweep extends RecursiveTask<Stats[]> {
+        private final SignalSeries[] series;
+        private final long[] barsBefore;
+        private final StrategyParameters[] sets;
+        private final int horizon;
+        private final int pLo, pHi, sLo, sHi;
+
+        Sweep(SignalSeries[] series, long[] barsBefore, StrategyParameters[] sets, int horizon,
+              int pLo, int pHi, int sLo, int sHi) {
+            this.series = series;
+            this.barsBefore = barsBefore;
+            this.sets = sets;
+            this.horizon = horizon;
+            this.pLo = pLo;
+            this.pHi = pHi;
+            this.sLo = sLo;
+            this.sHi = sHi;
+        }
+
+        @Override
+        protected Stats[] compute() {
+            int params = pHi - pLo;
+            long work = params * (barsBefore[sHi] - barsBefore[sLo]);
+            if (work > GRAIN && params > 1) {
+                int mid = (pLo + pHi) >>> 1;
+                Sweep right = new Sweep(series, barsBefore, sets, horizon, mid, pHi, sLo, sHi);
+                right.fork();
+                Stats[] left = new Sweep(series, barsBefore, sets, horizon, pLo, mid, sLo, sHi).compute();
+                Stats[] tail = right.join();
+                Stats[] all = new Stats[params];
+                System.arraycopy(left, 0, all, 0, left.length);
+                System.arraycopy(tail, 0, all, left.length, tail.length);
+                return all;
+            }
+            if (work > GRAIN && sHi - sLo > 1) {
+                int mid = (sLo + sHi) >>> 1;
+                Sweep right = new Sweep(series, barsBefore, sets, horizon, pLo, pHi, mid, sHi);
+                right.fork();
+                Stats[] left = new Sweep(series, barsBefore, sets, horizon, pLo, pHi, sLo, mid).compute();
+                Stats[] other = right.join();
+                for (int i = 0; i < params; i++) left[i].add(other[i]);
+                return left;
+            }
+            Stats[] out = new Stats[params];
+            for (int i = 0; i < params; i++) {
+                Stats stats = new Stats();
+                StrategyParameters p = sets[pLo + i];
+                for (int s = sLo; s < sHi; s++) replay(series[s], p, horizon, stats);
+                out[i] = stats;
+            }
+            return out;
+        }
+    }
+}
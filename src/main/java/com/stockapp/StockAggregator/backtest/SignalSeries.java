@@ -0,0 +1,99 @@
+package com.stockapp.StockAggregator.backtest;
+
+import com.stockapp.StockAggregator.dto.Recommendation;
+import com.stockapp.StockAggregator.indicator.IncrementalIndicator;
+import com.stockapp.StockAggregator.indicator.IndicatorSpec;
+import com.stockapp.StockAggregator.service.StockAnalysisService;
+import com.stockapp.StockAggregator.store.Snapshot;
+import com.stockapp.StockAggregator.store.SnapshotRange;
+
+/**
+ * One symbol's bars with the per-indicator recommendation at each bar already
+ * decided by the live interpretation rules, as 1 (buy), 0 (hold) or -1 (sell).
+ * Those do not depend on weights or thresholds, so they are computed once and
+ * every parameter set of a sweep only re-weights them.
+ */
+public final class SignalSeries {
+
+    private static final IndicatorSpec RSI = IndicatorSpec.parse("rsi:14");
+    private static final IndicatorSpec SMA = IndicatorSpec.parse("sma:20");
+    private static final IndicatorSpec EMA = IndicatorSpec.parse("ema:14");
+    private static final IndicatorSpec MACD = IndicatorSpec.parse("macd:12:26:9");
+
+    private final String symbol;
+    final double[] close;
+    final byte[] rsi;
+    final byte[] sma;
+    final byte[] ema;
+    final byte[] macd;
+
+    private SignalSeries(String symbol, int n) {
+        this.symbol = symbol;
+        this.close = new double[n];
+        this.rsi = new byte[n];
+        this.sma = new byte[n];
+        this.ema = new byte[n];
+        this.macd = new byte[n];
+    }
+
+    public String getSymbol() { return symbol; }
+
+    public int size() { return close.length; }
+
+    /**
+     * Daily closes, oldest first; the indicators (the live defaults rsi:14,
+     * sma:20, ema:14, macd:12:26:9) are computed incrementally bar by bar, so a
+     * bar never sees a later close. Bars before an indicator is ready hold on it.
+     */
+    public static SignalSeries fromCloses(String symbol, double[] closes) {
+        SignalSeries s = new SignalSeries(symbol, closes.length);
+        IncrementalIndicator rsi = RSI.newIndicator();
+        IncrementalIndicator sma = SMA.newIndicator();
+        IncrementalIndicator ema = EMA.newIndicator();
+        IncrementalIndicator macd = MACD.newIndicator();
+        double[] one = new double[1];
+        double[] three = new double[3];
+        for (int t = 0; t < closes.length; t++) {
+            double price = closes[t];
+            s.close[t] = price;
+            rsi.update(price);
+            sma.update(price);
+            ema.update(price);
+            macd.update(price);
+            if (rsi.current(one)) s.rsi[t] = sign(StockAnalysisService.rsiRule(one[0]));
+            if (sma.current(one)) s.sma[t] = sign(StockAnalysisService.crossover(one[0], price));
+            if (ema.current(one)) s.ema[t] = sign(StockAnalysisService.crossover(one[0], price));
+            if (macd.current(three)) s.macd[t] = sign(StockAnalysisService.macdRule(three[0], three[1], three[2]));
+        }
+        return s;
+    }
+
+    /** Stored snapshots, one bar per row: the indicator values are the ones the live analysis saw. */
+    public static SignalSeries fromSnapshots(String symbol, SnapshotRange range) {
+        double[] price = range.column(Snapshot.Field.LIVE_PRICE);
+        double[] rsi = range.column(Snapshot.Field.RSI);
+        double[] sma = range.column(Snapshot.Field.SMA);
+        double[] ema = range.column(Snapshot.Field.EMA);
+        double[] macd = range.column(Snapshot.Field.MACD);
+        double[] signal = range.column(Snapshot.Field.MACD_SIGNAL);
+        double[] hist = range.column(Snapshot.Field.MACD_HISTOGRAM);
+
+        int n = 0;
+        for (double p : price) if (!Double.isNaN(p)) n++;
+        SignalSeries s = new SignalSeries(symbol, n);
+        for (int i = 0, t = 0; i < price.length; i++) {
+            if (Double.isNaN(price[i])) continue; // a row without a price is not a bar
+            s.close[t] = price[i];
+            s.rsi[t] = sign(StockAnalysisService.rsiRule(rsi[i]));
+            s.sma[t] = sign(StockAnalysisService.crossover(sma[i], price[i]));
+            s.ema[t] = sign(StockAnalysisService.crossover(ema[i], price[i]));
+            s.macd[t] = sign(StockAnalysisService.macdRule(macd[i], signal[i], hist[i]));
+            t++;
+        }
+        return s;
+    }
+
+    private static byte sign(Recommendation rec) {
+        return (byte) rec.weight();
+    }
+}
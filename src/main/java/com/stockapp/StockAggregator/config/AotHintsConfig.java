@@ -0,0 +1,62 @@
+package com.stockapp.StockAggregator.config;
+
+import com.stockapp.StockAggregator.dto.AIAnalysisResponse;
+import com.stockapp.StockAggregator.dto.BacktestReportDTO;
+import com.stockapp.StockAggregator.dto.BacktestRequestDTO;
+import com.stockapp.StockAggregator.dto.BatchErrorDTO;
+import com.stockapp.StockAggregator.dto.CacheStatsDTO;
+import com.stockapp.StockAggregator.dto.RawJson;
+import com.stockapp.StockAggregator.dto.Recommendation;
+import com.stockapp.StockAggregator.dto.ScreenerRequestDTO;
+import com.stockapp.StockAggregator.dto.ScreenerScanDTO;
+import com.stockapp.StockAggregator.dto.SignalDeltaDTO;
+import com.stockapp.StockAggregator.dto.SnapshotSeriesDTO;
+import com.stockapp.StockAggregator.dto.StockAnalysisDTO;
+import com.stockapp.StockAggregator.dto.TransportStatsDTO;
+import com.stockapp.StockAggregator.dto.UpstreamHealthDTO;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Reflection hints for a native image (-Pnative) built from the AOT-processed
+ * context. Controllers' own request and response types are covered by Spring;
+ * these are the types Jackson reaches outside of them: DTOs written by hand to
+ * NDJSON and SSE streams, the AI response parsed from completions, and the AI
+ * decision cache snapshot file.
+ */
+@Configuration
+@ImportRuntimeHints(AotHintsConfig.JacksonHints.class)
+public class AotHintsConfig {
+
+    private static final Class<?>[] DTOS = {
+            AIAnalysisResponse.class, BacktestReportDTO.class, BacktestRequestDTO.class, BatchErrorDTO.class,
+            CacheStatsDTO.class, Recommendation.class, ScreenerRequestDTO.class, ScreenerScanDTO.class,
+            SignalDeltaDTO.class, SnapshotSeriesDTO.class, StockAnalysisDTO.class, TransportStatsDTO.class,
+            UpstreamHealthDTO.class
+    };
+
+    // Package-private, public fields only
+    private static final String[] CACHE_SNAPSHOT = {
+            "com.stockapp.StockAggregator.service.AIDecisionCache$Snapshot",
+            "com.stockapp.StockAggregator.service.AIDecisionCache$SnapshotEntry"
+    };
+
+    static class JacksonHints implements RuntimeHintsRegistrar {
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            // Walks properties, so nested classes (IndicatorDetail, rows, ...) are included
+            new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(), DTOS);
+            hints.reflection().registerType(RawJson.Serializer.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+            for (String name : CACHE_SNAPSHOT) {
+                hints.reflection().registerType(ClassUtils.resolveClassName(name, classLoader),
+                        MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.PUBLIC_FIELDS);
+            }
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.stockapp.StockAggregator.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class ExecutorConfig {
+
+    /**
+     * Bounded pool used to fan out the StockDetails API calls of one analysis.
+     * When the queue is full a call is rejected and its section reported missing,
+     * like a timed-out call; running it on the request thread would have no deadline.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService upstreamExecutor(
+            @Value("${stockdetailsapi.aggregation.pool-size:32}") int poolSize,
+            @Value("${stockdetailsapi.aggregation.queue-size:256}") int queueSize) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                poolSize, poolSize,
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                new CustomizableThreadFactory("upstream-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Background refreshes of stale cache entries, kept off upstreamExecutor so
+     * they never take a slot from a request's fan-out. A refresh that does not
+     * fit is dropped: TtlCache catches the rejection and keeps serving the stale
+     * value until a later hit retries. (A silent DiscardPolicy would leave the
+     * key marked as refreshing for good.)
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService refreshExecutor(
+            @Value("${stockdetailsapi.cache.refresh.pool-size:4}") int poolSize,
+            @Value("${stockdetailsapi.cache.refresh.queue-size:64}") int queueSize) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                poolSize, poolSize,
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                new CustomizableThreadFactory("cache-refresh-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Runs the per-symbol work of batch requests. Kept apart from upstreamExecutor
+     * so batch tasks waiting on their own fan-out can never deadlock that pool.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService batchExecutor(@Value("${analysis.batch.pool-size:16}") int poolSize) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                poolSize, poolSize,
+                60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                new CustomizableThreadFactory("batch-"));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Drives the watchlist refresh and heartbeat ticks. The ticks only hand work
+     * to watchlistExecutor and the subscribers' outboxes, so a single thread is enough.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ScheduledExecutorService watchlistScheduler() {
+        ScheduledThreadPoolExecutor scheduler =
+                new ScheduledThreadPoolExecutor(1, new CustomizableThreadFactory("watchlist-"));
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
+    /**
+     * Watchlist symbol refreshes. At most one is pending per watched symbol, so
+     * the queue is bounded by the number of symbols; kept off batchExecutor so a
+     * large batch never delays the ticks.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService watchlistExecutor(@Value("${watchlist.refresh-threads:8}") int threads) {
+        return Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("watchlist-refresh-"));
+    }
+
+    /**
+     * Drains watchlist subscribers' outboxes onto their SSE streams. A slow
+     * client holds one of these threads until its write completes or fails, never
+     * a refresh; at most one drain is pending per subscriber.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService watchlistSendExecutor(@Value("${watchlist.send-threads:8}") int threads) {
+        return Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("watchlist-send-"));
+    }
+
+    /**
+     * Runs the non-blocking HTTP client and the continuations of async-mode
+     * analyses. Nothing on it blocks, so a handful of threads serve any number
+     * of requests in flight.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService asyncHttpExecutor(@Value("${pipeline.async.threads:4}") int threads) {
+        return Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("async-http-"));
+    }
+
+    /**
+     * Screener workers: each runs for the life of the app, taking symbols off the
+     * screener queue, so the pool size is the screener's concurrency bound.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService screenerExecutor(@Value("${screener.concurrency:4}") int concurrency) {
+        return Executors.newFixedThreadPool(concurrency, new CustomizableThreadFactory("screener-"));
+    }
+
+    /**
+     * Starts the next pass of repeating screener scans. The task only queues the
+     * scan's symbols for the workers, so one thread is enough.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ScheduledExecutorService screenerScheduler() {
+        ScheduledThreadPoolExecutor scheduler =
+                new ScheduledThreadPoolExecutor(1, new CustomizableThreadFactory("screener-scheduler-"));
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
+    /**
+     * Loads backtest histories (up to backtest.max-symbols per job), so a large
+     * backtest queues behind its own loads instead of ahead of batch requests.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService backtestLoadExecutor(@Value("${backtest.load-threads:4}") int threads) {
+        return Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("backtest-load-"));
+    }
+
+    /**
+     * Fork/join pool of backtest sweeps. Sweeps are pure CPU over arrays, so one
+     * worker per core (backtest.parallelism 0) keeps every core busy.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ForkJoinPool backtestPool(@Value("${backtest.parallelism:0}") int parallelism) {
+        return new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+}
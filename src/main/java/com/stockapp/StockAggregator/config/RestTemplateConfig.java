@@ -1,13 +1,85 @@
 package com.stockapp.StockAggregator.config;
 
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * One transport (and connection pool) per upstream host, so a slow OpenRouter
+ * call can never starve the StockDetails fan-out of connections.
+ */
 @Configuration
 public class RestTemplateConfig {
+
+    private HttpClient asyncHttpClient;
+
+    @Bean(destroyMethod = "close")
+    public UpstreamTransport stockDetailsTransport(
+            @Value("${upstream.stockdetails.http2:false}") boolean http2,
+            @Value("${upstream.stockdetails.max-connections:64}") int maxConnections,
+            @Value("${upstream.stockdetails.connect-timeout-ms:2000}") long connectTimeoutMs,
+            @Value("${upstream.stockdetails.read-timeout-ms:4000}") long readTimeoutMs,
+            @Value("${upstream.stockdetails.idle-evict-ms:30000}") long idleEvictMs,
+            @Value("${upstream.stockdetails.connection-ttl-ms:300000}") long connectionTtlMs,
+            @Value("${stockdetailsapi.aggregation.call-timeout-ms:3000}") long callTimeoutMs) {
+        // A fan-out call that misses its deadline can't be interrupted, so its socket gives up at the same time
+        readTimeoutMs = Math.min(readTimeoutMs, callTimeoutMs);
+        return http2
+                ? UpstreamTransport.http2("stockdetails", connectTimeoutMs, readTimeoutMs)
+                : UpstreamTransport.pooled("stockdetails", maxConnections, connectTimeoutMs, readTimeoutMs, idleEvictMs, connectionTtlMs);
+    }
+
+    @Bean(destroyMethod = "close")
+    public UpstreamTransport openRouterTransport(
+            @Value("${upstream.openrouter.http2:false}") boolean http2,
+            @Value("${upstream.openrouter.max-connections:32}") int maxConnections,
+            @Value("${upstream.openrouter.connect-timeout-ms:3000}") long connectTimeoutMs,
+            @Value("${upstream.openrouter.read-timeout-ms:30000}") long readTimeoutMs,
+            @Value("${upstream.openrouter.idle-evict-ms:60000}") long idleEvictMs,
+            @Value("${upstream.openrouter.connection-ttl-ms:300000}") long connectionTtlMs) {
+        return http2
+                ? UpstreamTransport.http2("openrouter", connectTimeoutMs, readTimeoutMs)
+                : UpstreamTransport.pooled("openrouter", maxConnections, connectTimeoutMs, readTimeoutMs, idleEvictMs, connectionTtlMs);
+    }
+
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate stockDetailsRestTemplate(@Qualifier("stockDetailsTransport") UpstreamTransport transport) {
+        return transport.getRestTemplate();
+    }
+
+    @Bean
+    public RestTemplate openRouterRestTemplate(@Qualifier("openRouterTransport") UpstreamTransport transport) {
+        return transport.getRestTemplate();
+    }
+
+    /**
+     * Non-blocking client for pipeline.mode=async, shared by both hosts; read
+     * timeouts are set per request from the upstream.* settings. Its executor is
+     * the asyncHttpExecutor bean, shut down with the context.
+     */
+    @Bean
+    public HttpClient asyncHttpClient(@Qualifier("asyncHttpExecutor") ExecutorService executor,
+                                      @Value("${pipeline.async.http2:false}") boolean http2,
+                                      @Value("${upstream.stockdetails.connect-timeout-ms:2000}") long connectTimeoutMs) {
+        asyncHttpClient = HttpClient.newBuilder()
+                .executor(executor)
+                .version(http2 ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .build();
+        return asyncHttpClient;
+    }
+
+    // HttpClient only has close() from Java 21, so it can't be a destroyMethod on 17
+    @PreDestroy
+    void closeAsyncHttpClient() throws IOException {
+        if (asyncHttpClient != null) UpstreamTransport.close(asyncHttpClient);
     }
 }
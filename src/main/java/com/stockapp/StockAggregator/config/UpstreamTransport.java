@@ -0,0 +1,148 @@
+package com.stockapp.StockAggregator.config;
+
+import com.stockapp.StockAggregator.dto.TransportStatsDTO;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * HTTP transport dedicated to one upstream host.
+ * HTTP/1.1 mode keeps a pooled keep-alive connection manager with idle eviction;
+ * HTTP/2 mode multiplexes requests over the JDK client's shared connections.
+ */
+public class UpstreamTransport implements AutoCloseable {
+
+    private final String name;
+    private final boolean http2;
+    private final RestTemplate restTemplate;
+    private final PoolingHttpClientConnectionManager connectionManager; // null in HTTP/2 mode
+    private final CloseableHttpClient pooledClient;                    // null in HTTP/2 mode
+    private final HttpClient jdkClient;                                // null in HTTP/1.1 mode
+    private final ExecutorService jdkExecutor;                         // null in HTTP/1.1 mode
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private UpstreamTransport(String name, boolean http2, RestTemplate restTemplate,
+                              PoolingHttpClientConnectionManager connectionManager, CloseableHttpClient pooledClient,
+                              HttpClient jdkClient, ExecutorService jdkExecutor) {
+        this.name = name;
+        this.http2 = http2;
+        this.restTemplate = restTemplate;
+        this.connectionManager = connectionManager;
+        this.pooledClient = pooledClient;
+        this.jdkClient = jdkClient;
+        this.jdkExecutor = jdkExecutor;
+        this.restTemplate.getInterceptors().add((request, body, execution) -> {
+            inFlight.incrementAndGet();
+            try {
+                return execution.execute(request, body);
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        });
+    }
+
+    public static UpstreamTransport pooled(String name, int maxConnections, long connectTimeoutMs,
+                                           long readTimeoutMs, long idleEvictMs, long connectionTtlMs) {
+        ConnectionConfig connectionConfig = ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                .setTimeToLive(TimeValue.ofMilliseconds(connectionTtlMs))
+                .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                .build();
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnections)
+                .setDefaultConnectionConfig(connectionConfig)
+                .build();
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                .setResponseTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                .build();
+        CloseableHttpClient client = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .evictIdleConnections(TimeValue.ofMilliseconds(idleEvictMs))
+                .evictExpiredConnections()
+                .build();
+
+        RestTemplate restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(client));
+        return new UpstreamTransport(name, false, restTemplate, connectionManager, client, null, null);
+    }
+
+    public static UpstreamTransport http2(String name, long connectTimeoutMs, long readTimeoutMs) {
+        // Our own executor, so close() can stop the client's worker threads
+        ExecutorService executor = Executors.newCachedThreadPool(new CustomizableThreadFactory(name + "-h2-"));
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .executor(executor)
+                .build();
+        JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(client);
+        factory.setReadTimeout(Duration.ofMillis(readTimeoutMs));
+        return new UpstreamTransport(name, true, new RestTemplate(factory), null, null, client, executor);
+    }
+
+    public String getName() { return name; }
+
+    public RestTemplate getRestTemplate() { return restTemplate; }
+
+    /**
+     * Live pool statistics. The pool counters are left out in HTTP/2 mode, where
+     * the JDK client does not expose its connections; inFlight is tracked in both modes.
+     */
+    public TransportStatsDTO stats() {
+        TransportStatsDTO stats = new TransportStatsDTO();
+        stats.setName(name);
+        stats.setProtocol(http2 ? "HTTP/2" : "HTTP/1.1");
+        stats.setInFlight(inFlight.get());
+        if (connectionManager != null) {
+            PoolStats pool = connectionManager.getTotalStats();
+            stats.setLeased(pool.getLeased());
+            stats.setPending(pool.getPending());
+            stats.setAvailable(pool.getAvailable());
+            stats.setMax(pool.getMax());
+        }
+        return stats;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (pooledClient != null) pooledClient.close();
+        if (jdkClient != null) close(jdkClient);
+        if (jdkExecutor != null) jdkExecutor.shutdownNow();
+    }
+
+    /**
+     * Closes a JDK HttpClient where the runtime supports it (Java 21+). On 17 the
+     * client has no close: its connections and selector thread go once it is
+     * unreachable, and its executor has to be shut down by whoever owns it.
+     */
+    public static void close(HttpClient client) throws IOException {
+        if (client instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (IOException | RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException(e);
+            }
+        }
+    }
+}
@@ -1,37 +1,99 @@
 package com.stockapp.StockAggregator.controller;
 
-import com.stockapp.StockAggregator.dto.AIAnalysisResponse;
 import com.stockapp.StockAggregator.dto.StockAnalysisDTO;
+import com.stockapp.StockAggregator.service.BatchAnalysisService;
+import com.stockapp.StockAggregator.service.DecisionStreamParser;
 import com.stockapp.StockAggregator.service.OpenRouterService;
 import com.stockapp.StockAggregator.service.StockAnalysisService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Batch and streaming AI endpoints; GET /ai-analysis/{symbol} and POST /ai-analysis
+ * are served by BlockingAnalysisController or AsyncAnalysisController, depending
+ * on pipeline.mode.
+ */
 @RestController
 @RequestMapping("/ai-analysis")
 public class AIAnalysisController {
 
     private final StockAnalysisService aggregator;
     private final OpenRouterService openRouterService;
+    private final BatchAnalysisService batchService;
+
+    // Lifetime of a /stream response: the analysis plus the whole streamed completion
+    @Value("${openrouter.stream.emitter-timeout-ms:60000}")
+    private long streamTimeoutMs;
 
-    public AIAnalysisController(StockAnalysisService aggregator, OpenRouterService openRouterService) {
+    public AIAnalysisController(StockAnalysisService aggregator, OpenRouterService openRouterService,
+                                BatchAnalysisService batchService) {
         this.aggregator = aggregator;
         this.openRouterService = openRouterService;
+        this.batchService = batchService;
     }
 
     /**
-     * 1) GET /ai-analysis/{symbol} -> aggregator fetches data and calls OpenRouter to get final decision
+     * POST /ai-analysis/batch -> list of symbols, streams one AIAnalysisResponse
+     *    (or a per-symbol error) per NDJSON line as soon as each one is ready.
+     *    With openrouter.batch.enabled, aggregated symbols share batched completions.
      */
-    @GetMapping("/{symbol}")
-    public AIAnalysisResponse analyzeWithAI(@PathVariable String symbol) throws Exception {
-        StockAnalysisDTO dto = aggregator.analyzeStock(symbol);
-        return openRouterService.askAIForDecision(dto);
+    @PostMapping(value = "/batch", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> analyzeBatchWithAI(@RequestBody List<String> symbols) {
+        List<String> batch = batchService.normalize(symbols);
+        StreamingResponseBody body = openRouterService.isBatchEnabled()
+                ? out -> batchService.streamGrouped(batch, aggregator::analyzeStock, openRouterService::askAIForDecisions,
+                        StockAnalysisDTO::getSymbol, openRouterService.getBatchMaxSize(), out)
+                : out -> batchService.stream(batch,
+                        symbol -> openRouterService.askAIForDecision(aggregator.analyzeStock(symbol)), out);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
     /**
-     * 2) POST /ai-analysis -> user can send pre-built StockAnalysisDTO (e.g. for testing)
+     * GET /ai-analysis/{symbol}/stream -> server-sent events: "decision" as soon as the model
+     *    has written it, "reasoning" deltas while it explains, then "done" with the whole
+     *    AIAnalysisResponse (or "error"). The analysis always takes the async path here,
+     *    since the response is asynchronous anyway.
      */
-    @PostMapping
-    public AIAnalysisResponse analyzeWithAI(@RequestBody StockAnalysisDTO dto) throws Exception {
-        return openRouterService.askAIForDecision(dto);
+    @GetMapping(value = "/{symbol}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamWithAI(@PathVariable String symbol) {
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        aggregator.analyzeStockAsync(symbol)
+                .thenCompose(dto -> openRouterService.streamDecision(dto, new DecisionStreamParser.Listener() {
+                    @Override
+                    public void onDecision(String decision) {
+                        send(emitter, "decision", Map.of("symbol", dto.getSymbol(), "decision", decision));
+                    }
+
+                    @Override
+                    public void onReasoning(String delta) {
+                        send(emitter, "reasoning", Map.of("delta", delta));
+                    }
+                }))
+                .whenComplete((result, error) -> {
+                    if (error == null) {
+                        send(emitter, "done", result);
+                    } else {
+                        Throwable cause = error.getCause() != null ? error.getCause() : error;
+                        send(emitter, "error", Map.of("error", String.valueOf(cause.getMessage())));
+                    }
+                    emitter.complete();
+                });
+        return emitter;
+    }
+
+    // A client that went away only loses its own events
+    private static void send(SseEmitter emitter, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+        } catch (Exception ignored) {
+            // completed, timed out or disconnected
+        }
     }
-}
+}
\ No newline at end of file
@@ -0,0 +1,69 @@
+package com.stockapp.StockAggregator.controller;
+
+import com.stockapp.StockAggregator.dto.AIAnalysisResponse;
+import com.stockapp.StockAggregator.dto.StockAnalysisDTO;
+import com.stockapp.StockAggregator.service.OpenRouterService;
+import com.stockapp.StockAggregator.service.StockAnalysisService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Single-symbol endpoints for pipeline.mode=async: the request thread is
+ * released while upstream and OpenRouter calls are in flight. Each request has
+ * its own deadline (pipeline.async.request-timeout-ms, answered with 503); the
+ * global spring.mvc.async.request-timeout is left to the long batch streams.
+ */
+@RestController
+@ConditionalOnProperty(name = "pipeline.mode", havingValue = "async")
+public class AsyncAnalysisController {
+
+    private final StockAnalysisService aggregator;
+    private final OpenRouterService openRouterService;
+
+    @Value("${pipeline.async.request-timeout-ms:45000}")
+    private long requestTimeoutMs;
+
+    public AsyncAnalysisController(StockAnalysisService aggregator, OpenRouterService openRouterService) {
+        this.aggregator = aggregator;
+        this.openRouterService = openRouterService;
+    }
+
+    /** Same as the blocking GET /analysis/{symbol}. */
+    @GetMapping("/analysis/{symbol}")
+    public DeferredResult<StockAnalysisDTO> analyze(@PathVariable String symbol,
+                                                    @RequestParam(required = false) List<String> indicators,
+                                                    @RequestParam(required = false) List<String> fields) {
+        return deferred(aggregator.analyzeStockAsync(symbol, fields, indicators));
+    }
+
+    /** Same as the blocking GET /ai-analysis/{symbol}. */
+    @GetMapping("/ai-analysis/{symbol}")
+    public DeferredResult<AIAnalysisResponse> analyzeWithAI(@PathVariable String symbol) {
+        return deferred(aggregator.analyzeStockAsync(symbol).thenCompose(openRouterService::askAIForDecisionAsync));
+    }
+
+    /** Same as the blocking POST /ai-analysis. */
+    @PostMapping("/ai-analysis")
+    public DeferredResult<AIAnalysisResponse> analyzeWithAI(@RequestBody StockAnalysisDTO dto) {
+        return deferred(openRouterService.askAIForDecisionAsync(dto));
+    }
+
+    // Without a result by the deadline Spring answers 503 (AsyncRequestTimeoutException)
+    private <T> DeferredResult<T> deferred(CompletableFuture<T> future) {
+        DeferredResult<T> result = new DeferredResult<>(requestTimeoutMs);
+        future.whenComplete((value, error) -> {
+            if (error == null) {
+                result.setResult(value);
+            } else {
+                result.setErrorResult(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+            }
+        });
+        return result;
+    }
+}
@@ -0,0 +1,46 @@
+package com.stockapp.StockAggregator.controller;
+
+import com.stockapp.StockAggregator.dto.BacktestReportDTO;
+import com.stockapp.StockAggregator.dto.BacktestRequestDTO;
+import com.stockapp.StockAggregator.service.BacktestService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/backtests")
+public class BacktestController {
+
+    private final BacktestService backtestService;
+
+    public BacktestController(BacktestService backtestService) {
+        this.backtestService = backtestService;
+    }
+
+    /**
+     * Starts a parameter sweep of the combined strategy, e.g.
+     * {"symbols":[...], "smaWeight":[1.0,1.5,2.0], "buyThreshold":[1.5,2.0,2.5]}.
+     * Returns at once; poll the backtest for its report.
+     */
+    @PostMapping
+    public ResponseEntity<BacktestReportDTO> start(@RequestBody BacktestRequestDTO request) {
+        return ResponseEntity.accepted().body(backtestService.start(request));
+    }
+
+    /**
+     * Status of every backtest, newest first (without results)
+     */
+    @GetMapping
+    public List<BacktestReportDTO> list() {
+        return backtestService.list();
+    }
+
+    /**
+     * Status and, once done, the best parameter sets
+     */
+    @GetMapping("/{id}")
+    public BacktestReportDTO get(@PathVariable String id) {
+        return backtestService.get(id);
+    }
+}
@@ -0,0 +1,55 @@
+package com.stockapp.StockAggregator.controller;
+
+import com.stockapp.StockAggregator.dto.AIAnalysisResponse;
+import com.stockapp.StockAggregator.dto.StockAnalysisDTO;
+import com.stockapp.StockAggregator.service.OpenRouterService;
+import com.stockapp.StockAggregator.service.StockAnalysisService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Single-symbol endpoints for pipeline.mode=blocking (any mode but async): one
+ * thread per request, and plain return values, so these never go through async
+ * dispatch or its request timeout.
+ */
+@RestController
+@ConditionalOnExpression("!'${pipeline.mode:blocking}'.equalsIgnoreCase('async')")
+public class BlockingAnalysisController {
+
+    private final StockAnalysisService aggregator;
+    private final OpenRouterService openRouterService;
+
+    public BlockingAnalysisController(StockAnalysisService aggregator, OpenRouterService openRouterService) {
+        this.aggregator = aggregator;
+        this.openRouterService = openRouterService;
+    }
+
+    /**
+     * Rule-based aggregation (no AI) — returns the merged DTO, or only the
+     * selected parts of it, e.g. ?indicators=rsi,macd&fields=price
+     */
+    @GetMapping("/analysis/{symbol}")
+    public StockAnalysisDTO analyze(@PathVariable String symbol,
+                                    @RequestParam(required = false) List<String> indicators,
+                                    @RequestParam(required = false) List<String> fields) {
+        return aggregator.analyzeStock(symbol, fields, indicators);
+    }
+
+    /**
+     * GET /ai-analysis/{symbol} -> aggregator fetches data and calls OpenRouter to get final decision
+     */
+    @GetMapping("/ai-analysis/{symbol}")
+    public AIAnalysisResponse analyzeWithAI(@PathVariable String symbol) throws Exception {
+        return openRouterService.askAIForDecision(aggregator.analyzeStock(symbol));
+    }
+
+    /**
+     * POST /ai-analysis -> user can send pre-built StockAnalysisDTO (e.g. for testing)
+     */
+    @PostMapping("/ai-analysis")
+    public AIAnalysisResponse analyzeWithAI(@RequestBody StockAnalysisDTO dto) throws Exception {
+        return openRouterService.askAIForDecision(dto);
+    }
+}
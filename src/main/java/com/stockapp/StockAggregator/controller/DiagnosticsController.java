@@ -0,0 +1,59 @@
+package com.stockapp.StockAggregator.controller;
+
+import com.stockapp.StockAggregator.config.UpstreamTransport;
+import com.stockapp.StockAggregator.dto.CacheStatsDTO;
+import com.stockapp.StockAggregator.dto.TransportStatsDTO;
+import com.stockapp.StockAggregator.dto.UpstreamHealthDTO;
+import com.stockapp.StockAggregator.service.AIDecisionCache;
+import com.stockapp.StockAggregator.service.StockDetailsClient;
+import com.stockapp.StockAggregator.service.UpstreamGuard;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RestController
+@RequestMapping("/diagnostics")
+public class DiagnosticsController {
+
+    private final List<UpstreamTransport> transports;
+    private final StockDetailsClient stockDetailsClient;
+    private final AIDecisionCache decisionCache;
+    private final UpstreamGuard upstreamGuard;
+
+    public DiagnosticsController(List<UpstreamTransport> transports, StockDetailsClient stockDetailsClient,
+                                 AIDecisionCache decisionCache, UpstreamGuard upstreamGuard) {
+        this.transports = transports;
+        this.stockDetailsClient = stockDetailsClient;
+        this.decisionCache = decisionCache;
+        this.upstreamGuard = upstreamGuard;
+    }
+
+    /**
+     * Live connection pool statistics, one entry per upstream host
+     */
+    @GetMapping("/transport")
+    public List<TransportStatsDTO> transport() {
+        return transports.stream().map(UpstreamTransport::stats).toList();
+    }
+
+    /**
+     * Hit/miss counters of the StockDetails response caches (one entry per endpoint)
+     * followed by the AI decision cache
+     */
+    @GetMapping("/cache")
+    public List<CacheStatsDTO> cache() {
+        List<CacheStatsDTO> stats = new ArrayList<>(stockDetailsClient.cacheStats());
+        stats.add(decisionCache.stats());
+        return stats;
+    }
+
+    /**
+     * Circuit breaker state (and hedge delay) per StockDetails endpoint,
+     * then the adaptive concurrency limit per host
+     */
+    @GetMapping("/upstream")
+    public List<UpstreamHealthDTO> upstream() {
+        return upstreamGuard.health();
+    }
+}
@@ -0,0 +1,40 @@
+package com.stockapp.StockAggregator.controller;
+
+import com.stockapp.StockAggregator.dto.SnapshotSeriesDTO;
+import com.stockapp.StockAggregator.dto.StockAnalysisDTO;
+import com.stockapp.StockAggregator.service.SnapshotService;
+import com.stockapp.StockAggregator.service.StockAnalysisService;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/history")
+public class HistoryController {
+
+    private final SnapshotService snapshotService;
+    private final StockAnalysisService analysisService;
+
+    public HistoryController(SnapshotService snapshotService, StockAnalysisService analysisService) {
+        this.snapshotService = snapshotService;
+        this.analysisService = analysisService;
+    }
+
+    /**
+     * Stored snapshots of a symbol between two epoch-millisecond timestamps (inclusive),
+     * as columns; the most recent limit rows when the range holds more
+     */
+    @GetMapping("/{symbol}")
+    public SnapshotSeriesDTO history(@PathVariable String symbol,
+                                     @RequestParam(defaultValue = "0") long from,
+                                     @RequestParam(defaultValue = "" + Long.MAX_VALUE) long to,
+                                     @RequestParam(defaultValue = "1000") int limit) {
+        return snapshotService.history(symbol, from, to, limit);
+    }
+
+    /**
+     * Signals recomputed from the latest stored snapshot — no upstream calls
+     */
+    @GetMapping("/{symbol}/latest")
+    public StockAnalysisDTO latest(@PathVariable String symbol) {
+        return analysisService.fromSnapshot(symbol, snapshotService.latest(symbol));
+    }
+}
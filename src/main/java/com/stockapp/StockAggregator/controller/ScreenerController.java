@@ -0,0 +1,56 @@
+package com.stockapp.StockAggregator.controller;
+
+import com.stockapp.StockAggregator.dto.ScreenerRequestDTO;
+import com.stockapp.StockAggregator.dto.ScreenerScanDTO;
+import com.stockapp.StockAggregator.service.ScreenerService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/screener")
+public class ScreenerController {
+
+    private final ScreenerService screenerService;
+
+    public ScreenerController(ScreenerService screenerService) {
+        this.screenerService = screenerService;
+    }
+
+    /**
+     * Starts a scan of a symbol universe with optional filter criteria, e.g.
+     * {"symbols":[...], "filter":{"decision":"BUY","rsiMax":70,"priceVsSma":"above"}}.
+     * Returns at once; poll the scan for progress and results.
+     */
+    @PostMapping("/scans")
+    public ResponseEntity<ScreenerScanDTO> start(@RequestBody ScreenerRequestDTO request) {
+        return ResponseEntity.accepted().body(screenerService.start(request));
+    }
+
+    /**
+     * Progress of every scan, newest first
+     */
+    @GetMapping("/scans")
+    public List<ScreenerScanDTO> list() {
+        return screenerService.list();
+    }
+
+    /**
+     * Progress and ranked matches of one scan; readable while it is still running
+     */
+    @GetMapping("/scans/{id}")
+    public ScreenerScanDTO get(@PathVariable String id,
+                               @RequestParam(defaultValue = "0") int offset,
+                               @RequestParam(defaultValue = "100") int limit) {
+        return screenerService.get(id, offset, limit);
+    }
+
+    /**
+     * Stops a scan; its result table stays readable
+     */
+    @DeleteMapping("/scans/{id}")
+    public ScreenerScanDTO cancel(@PathVariable String id) {
+        return screenerService.cancel(id);
+    }
+}
@@ -1,25 +1,39 @@
 package com.stockapp.StockAggregator.controller;
 
 
-import com.stockapp.StockAggregator.dto.StockAnalysisDTO;
+import com.stockapp.StockAggregator.service.BatchAnalysisService;
 import com.stockapp.StockAggregator.service.StockAnalysisService;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.util.List;
+
+/**
+ * Batch endpoints; GET /analysis/{symbol} is served by BlockingAnalysisController
+ * or AsyncAnalysisController, depending on pipeline.mode.
+ */
 @RestController
 @RequestMapping("/analysis")
 public class StockAnalysisController {
 
     private final StockAnalysisService service;
+    private final BatchAnalysisService batchService;
 
-    public StockAnalysisController(StockAnalysisService service) {
+    public StockAnalysisController(StockAnalysisService service, BatchAnalysisService batchService) {
         this.service = service;
+        this.batchService = batchService;
     }
 
     /**
-     * Rule-based aggregation (no AI) — returns the merged DTO
+     * Rule-based aggregation for a list of symbols — streams one StockAnalysisDTO
+     * (or a per-symbol error) per NDJSON line as soon as each one is ready
      */
-    @GetMapping("/{symbol}")
-    public StockAnalysisDTO analyze(@PathVariable String symbol) {
-        return service.analyzeStock(symbol);
+    @PostMapping(value = "/batch", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> analyzeBatch(@RequestBody List<String> symbols) {
+        List<String> batch = batchService.normalize(symbols);
+        StreamingResponseBody body = out -> batchService.stream(batch, service::analyzeStock, out);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 }
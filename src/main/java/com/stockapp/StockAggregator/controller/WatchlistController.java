@@ -0,0 +1,29 @@
+package com.stockapp.StockAggregator.controller;
+
+import com.stockapp.StockAggregator.service.WatchlistService;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/watchlist")
+public class WatchlistController {
+
+    private final WatchlistService watchlistService;
+
+    public WatchlistController(WatchlistService watchlistService) {
+        this.watchlistService = watchlistService;
+    }
+
+    /**
+     * Subscribes to a set of symbols, e.g. GET /watchlist/stream?symbols=AAPL,MSFT.
+     * Sends a "snapshot" event per symbol, then "signal" events only when the
+     * overall decision or an indicator recommendation changes.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestParam List<String> symbols) {
+        return watchlistService.subscribe(symbols);
+    }
+}
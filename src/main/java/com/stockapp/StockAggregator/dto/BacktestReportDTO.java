@@ -0,0 +1,93 @@
+package com.stockapp.StockAggregator.dto;
+
+import java.util.List;
+
+public class BacktestReportDTO {
+    private String id;
+    private String status;              // LOADING, RUNNING, DONE or FAILED
+    private String error;               // FAILED only
+    private int symbols;                // symbols replayed
+    private List<String> failedSymbols; // no usable history
+    private long bars;                  // bars per parameter set
+    private int parameterSets;
+    private long elapsedMs;
+    private List<Result> results;       // best first by sortBy, at most top
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+
+    public int getSymbols() { return symbols; }
+    public void setSymbols(int symbols) { this.symbols = symbols; }
+
+    public List<String> getFailedSymbols() { return failedSymbols; }
+    public void setFailedSymbols(List<String> failedSymbols) { this.failedSymbols = failedSymbols; }
+
+    public long getBars() { return bars; }
+    public void setBars(long bars) { this.bars = bars; }
+
+    public int getParameterSets() { return parameterSets; }
+    public void setParameterSets(int parameterSets) { this.parameterSets = parameterSets; }
+
+    public long getElapsedMs() { return elapsedMs; }
+    public void setElapsedMs(long elapsedMs) { this.elapsedMs = elapsedMs; }
+
+    public List<Result> getResults() { return results; }
+    public void setResults(List<Result> results) { this.results = results; }
+
+    public static class Result {
+        private double rsiWeight;
+        private double smaWeight;
+        private double emaWeight;
+        private double macdWeight;
+        private double buyThreshold;
+        private double sellThreshold;
+        private double hitRate;             // share of BUY/SELL decisions that moved their way
+        private double averageReturn;       // long-only return per symbol, e.g. 0.12 = +12%
+        private double averageMaxDrawdown;  // per symbol, e.g. 0.2 = -20% from peak
+        private double worstDrawdown;
+        private long signals;               // scored BUY/SELL decisions
+        private long trades;                // position changes
+
+        public double getRsiWeight() { return rsiWeight; }
+        public void setRsiWeight(double rsiWeight) { this.rsiWeight = rsiWeight; }
+
+        public double getSmaWeight() { return smaWeight; }
+        public void setSmaWeight(double smaWeight) { this.smaWeight = smaWeight; }
+
+        public double getEmaWeight() { return emaWeight; }
+        public void setEmaWeight(double emaWeight) { this.emaWeight = emaWeight; }
+
+        public double getMacdWeight() { return macdWeight; }
+        public void setMacdWeight(double macdWeight) { this.macdWeight = macdWeight; }
+
+        public double getBuyThreshold() { return buyThreshold; }
+        public void setBuyThreshold(double buyThreshold) { this.buyThreshold = buyThreshold; }
+
+        public double getSellThreshold() { return sellThreshold; }
+        public void setSellThreshold(double sellThreshold) { this.sellThreshold = sellThreshold; }
+
+        public double getHitRate() { return hitRate; }
+        public void setHitRate(double hitRate) { this.hitRate = hitRate; }
+
+        public double getAverageReturn() { return averageReturn; }
+        public void setAverageReturn(double averageReturn) { this.averageReturn = averageReturn; }
+
+        public double getAverageMaxDrawdown() { return averageMaxDrawdown; }
+        public void setAverageMaxDrawdown(double averageMaxDrawdown) { this.averageMaxDrawdown = averageMaxDrawdown; }
+
+        public double getWorstDrawdown() { return worstDrawdown; }
+        public void setWorstDrawdown(double worstDrawdown) { this.worstDrawdown = worstDrawdown; }
+
+        public long getSignals() { return signals; }
+        public void setSignals(long signals) { this.signals = signals; }
+
+        public long getTrades() { return trades; }
+        public void setTrades(long trades) { this.trades = trades; }
+    }
+}
@@ -0,0 +1,69 @@
+package com.stockapp.StockAggregator.dto;
+
+import java.util.List;
+
+/**
+ * Backtest over a symbol universe. Each parameter list holds the values to try;
+ * an unset list keeps the live value. In grid mode every combination runs; in
+ * random mode {@code samples} sets are drawn uniformly between each list's min
+ * and max.
+ */
+public class BacktestRequestDTO {
+    private List<String> symbols;
+    private String source = "ohlcv"; // ohlcv (daily history) or snapshots (stored analyses)
+    private String mode = "grid";    // grid or random
+    private int samples = 1000;      // random mode only
+    private Long seed;               // random mode; null draws a fresh sequence
+    private int horizon = 5;         // bars after a decision at which it is scored as a hit or miss
+    private String sortBy = "return"; // return, hitRate or drawdown
+    private int top = 20;            // results returned
+
+    private List<Double> rsiWeight;
+    private List<Double> smaWeight;
+    private List<Double> emaWeight;
+    private List<Double> macdWeight;
+    private List<Double> buyThreshold;
+    private List<Double> sellThreshold;
+
+    public List<String> getSymbols() { return symbols; }
+    public void setSymbols(List<String> symbols) { this.symbols = symbols; }
+
+    public String getSource() { return source; }
+    public void setSource(String source) { this.source = source; }
+
+    public String getMode() { return mode; }
+    public void setMode(String mode) { this.mode = mode; }
+
+    public int getSamples() { return samples; }
+    public void setSamples(int samples) { this.samples = samples; }
+
+    public Long getSeed() { return seed; }
+    public void setSeed(Long seed) { this.seed = seed; }
+
+    public int getHorizon() { return horizon; }
+    public void setHorizon(int horizon) { this.horizon = horizon; }
+
+    public String getSortBy() { return sortBy; }
+    public void setSortBy(String sortBy) { this.sortBy = sortBy; }
+
+    public int getTop() { return top; }
+    public void setTop(int top) { this.top = top; }
+
+    public List<Double> getRsiWeight() { return rsiWeight; }
+    public void setRsiWeight(List<Double> rsiWeight) { this.rsiWeight = rsiWeight; }
+
+    public List<Double> getSmaWeight() { return smaWeight; }
+    public void setSmaWeight(List<Double> smaWeight) { this.smaWeight = smaWeight; }
+
+    public List<Double> getEmaWeight() { return emaWeight; }
+    public void setEmaWeight(List<Double> emaWeight) { this.emaWeight = emaWeight; }
+
+    public List<Double> getMacdWeight() { return macdWeight; }
+    public void setMacdWeight(List<Double> macdWeight) { this.macdWeight = macdWeight; }
+
+    public List<Double> getBuyThreshold() { return buyThreshold; }
+    public void setBuyThreshold(List<Double> buyThreshold) { this.buyThreshold = buyThreshold; }
+
+    public List<Double> getSellThreshold() { return sellThreshold; }
+    public void setSellThreshold(List<Double> sellThreshold) { this.sellThreshold = sellThreshold; }
+}
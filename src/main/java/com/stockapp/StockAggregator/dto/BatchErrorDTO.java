@@ -0,0 +1,20 @@
+package com.stockapp.StockAggregator.dto;
+
+public class BatchErrorDTO {
+    private String symbol;
+    private String error; // why this symbol failed; the rest of the batch is unaffected
+
+    public BatchErrorDTO() {
+    }
+
+    public BatchErrorDTO(String symbol, String error) {
+        this.symbol = symbol;
+        this.error = error;
+    }
+
+    public String getSymbol() { return symbol; }
+    public void setSymbol(String symbol) { this.symbol = symbol; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+}
@@ -0,0 +1,33 @@
+package com.stockapp.StockAggregator.dto;
+
+public class CacheStatsDTO {
+    private String name;
+    private int size;
+    private long hits;       // served fresh from memory
+    private long staleHits;  // served stale while a background refresh ran
+    private long misses;     // loaded synchronously from upstream
+    private long evictions;  // dropped by the size bound
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public int getSize() { return size; }
+    public void setSize(int size) { this.size = size; }
+
+    public long getHits() { return hits; }
+    public void setHits(long hits) { this.hits = hits; }
+
+    public long getStaleHits() { return staleHits; }
+    public void setStaleHits(long staleHits) { this.staleHits = staleHits; }
+
+    public long getMisses() { return misses; }
+    public void setMisses(long misses) { this.misses = misses; }
+
+    public long getEvictions() { return evictions; }
+    public void setEvictions(long evictions) { this.evictions = evictions; }
+
+    public double getHitRate() {
+        long total = hits + staleHits + misses;
+        return total == 0 ? 0.0 : (double) (hits + staleHits) / total;
+    }
+}
@@ -0,0 +1,122 @@
+package com.stockapp.StockAggregator.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * An upstream JSON document kept as the UTF-8 bytes it arrived in. It is written
+ * verbatim wherever it is serialized (API responses, LLM prompts), so the
+ * document is never parsed into a tree or re-encoded.
+ * <p>
+ * The bytes must be one well-formed JSON value; StockDetailsClient checks that
+ * when the body arrives, before it is cached.
+ */
+@JsonSerialize(using = RawJson.Serializer.class)
+public final class RawJson implements SerializableString {
+
+    private final byte[] utf8;
+    private volatile String text; // decoded on demand, for character-based generators
+
+    public RawJson(byte[] utf8) {
+        this.utf8 = utf8;
+    }
+
+    public int byteLength() { return utf8.length; }
+
+    @Override
+    public String getValue() {
+        String s = text;
+        if (s == null) text = s = new String(utf8, StandardCharsets.UTF_8);
+        return s;
+    }
+
+    @Override
+    public int charLength() { return getValue().length(); }
+
+    @Override
+    public char[] asQuotedChars() { return JsonStringEncoder.getInstance().quoteAsString(getValue()); }
+
+    @Override
+    public byte[] asUnquotedUTF8() { return utf8; }
+
+    @Override
+    public byte[] asQuotedUTF8() { return JsonStringEncoder.getInstance().quoteAsUTF8(getValue()); }
+
+    @Override
+    public int appendQuotedUTF8(byte[] buffer, int offset) { return append(asQuotedUTF8(), buffer, offset); }
+
+    @Override
+    public int appendQuoted(char[] buffer, int offset) { return append(asQuotedChars(), buffer, offset); }
+
+    @Override
+    public int appendUnquotedUTF8(byte[] buffer, int offset) { return append(utf8, buffer, offset); }
+
+    @Override
+    public int appendUnquoted(char[] buffer, int offset) {
+        String s = getValue();
+        if (offset + s.length() > buffer.length) return -1;
+        s.getChars(0, s.length(), buffer, offset);
+        return s.length();
+    }
+
+    @Override
+    public int writeQuotedUTF8(OutputStream out) throws IOException {
+        byte[] quoted = asQuotedUTF8();
+        out.write(quoted);
+        return quoted.length;
+    }
+
+    @Override
+    public int writeUnquotedUTF8(OutputStream out) throws IOException {
+        out.write(utf8);
+        return utf8.length;
+    }
+
+    @Override
+    public int putQuotedUTF8(ByteBuffer buffer) { return put(asQuotedUTF8(), buffer); }
+
+    @Override
+    public int putUnquotedUTF8(ByteBuffer buffer) { return put(utf8, buffer); }
+
+    @Override
+    public String toString() { return getValue(); }
+
+    // -1 when the value does not fit, as SerializableString expects
+    private static int append(byte[] src, byte[] buffer, int offset) {
+        if (offset + src.length > buffer.length) return -1;
+        System.arraycopy(src, 0, buffer, offset, src.length);
+        return src.length;
+    }
+
+    private static int append(char[] src, char[] buffer, int offset) {
+        if (offset + src.length > buffer.length) return -1;
+        System.arraycopy(src, 0, buffer, offset, src.length);
+        return src.length;
+    }
+
+    private static int put(byte[] src, ByteBuffer buffer) {
+        if (src.length > buffer.remaining()) return -1;
+        buffer.put(src);
+        return src.length;
+    }
+
+    public static final class Serializer extends StdSerializer<RawJson> {
+        public Serializer() {
+            super(RawJson.class);
+        }
+
+        @Override
+        public void serialize(RawJson value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeRawValue(value);
+        }
+    }
+}
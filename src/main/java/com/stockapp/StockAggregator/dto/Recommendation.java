@@ -0,0 +1,30 @@
+package com.stockapp.StockAggregator.dto;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+
+import java.util.Locale;
+
+public enum Recommendation {
+    BUY(1.0),
+    SELL(-1.0),
+    HOLD(0.0);
+
+    private final double weight; // contribution to the combined score
+
+    Recommendation(double weight) {
+        this.weight = weight;
+    }
+
+    public double weight() { return weight; }
+
+    // Case-insensitive; anything else (e.g. NEUTRAL in a posted DTO) counts as HOLD
+    @JsonCreator
+    public static Recommendation from(String value) {
+        if (value == null) return null;
+        return switch (value.trim().toUpperCase(Locale.ROOT)) {
+            case "BUY" -> BUY;
+            case "SELL" -> SELL;
+            default -> HOLD;
+        };
+    }
+}
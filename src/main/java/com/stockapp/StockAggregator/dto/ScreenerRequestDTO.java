@@ -0,0 +1,46 @@
+package com.stockapp.StockAggregator.dto;
+
+import java.util.List;
+
+public class ScreenerRequestDTO {
+    private List<String> symbols;      // universe to scan
+    private Filter filter;             // null matches every symbol
+    private List<String> highInterest; // scanned first (watchlist symbols always are)
+    private long repeatIntervalMs;     // > 0 rescans the universe this long after each pass ends
+
+    public List<String> getSymbols() { return symbols; }
+    public void setSymbols(List<String> symbols) { this.symbols = symbols; }
+
+    public Filter getFilter() { return filter; }
+    public void setFilter(Filter filter) { this.filter = filter; }
+
+    public List<String> getHighInterest() { return highInterest; }
+    public void setHighInterest(List<String> highInterest) { this.highInterest = highInterest; }
+
+    public long getRepeatIntervalMs() { return repeatIntervalMs; }
+    public void setRepeatIntervalMs(long repeatIntervalMs) { this.repeatIntervalMs = repeatIntervalMs; }
+
+    /** All set criteria must hold; unset ones are ignored. */
+    public static class Filter {
+        private String decision;    // BUY, SELL or HOLD
+        private Double rsiMin;
+        private Double rsiMax;
+        private String priceVsSma;  // above or below
+        private String sma = "sma_20"; // indicator key the price is compared with, e.g. sma_50
+
+        public String getDecision() { return decision; }
+        public void setDecision(String decision) { this.decision = decision; }
+
+        public Double getRsiMin() { return rsiMin; }
+        public void setRsiMin(Double rsiMin) { this.rsiMin = rsiMin; }
+
+        public Double getRsiMax() { return rsiMax; }
+        public void setRsiMax(Double rsiMax) { this.rsiMax = rsiMax; }
+
+        public String getPriceVsSma() { return priceVsSma; }
+        public void setPriceVsSma(String priceVsSma) { this.priceVsSma = priceVsSma; }
+
+        public String getSma() { return sma; }
+        public void setSma(String sma) { this.sma = sma; }
+    }
+}
@@ -0,0 +1,69 @@
+package com.stockapp.StockAggregator.dto;
+
+import java.util.List;
+
+public class ScreenerScanDTO {
+    private String id;
+    private String status;     // RUNNING, WAITING (between passes), DONE or CANCELLED
+    private int pass;          // 1 for the first pass over the universe
+    private int total;         // symbols in the universe
+    private int screened;      // screened in the current pass
+    private int failed;        // failed in the current pass
+    private int matched;       // rows in the result table
+    private long startedAt;
+    private List<Row> results; // ranked, best first; only on the detail endpoint
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public int getPass() { return pass; }
+    public void setPass(int pass) { this.pass = pass; }
+
+    public int getTotal() { return total; }
+    public void setTotal(int total) { this.total = total; }
+
+    public int getScreened() { return screened; }
+    public void setScreened(int screened) { this.screened = screened; }
+
+    public int getFailed() { return failed; }
+    public void setFailed(int failed) { this.failed = failed; }
+
+    public int getMatched() { return matched; }
+    public void setMatched(int matched) { this.matched = matched; }
+
+    public long getStartedAt() { return startedAt; }
+    public void setStartedAt(long startedAt) { this.startedAt = startedAt; }
+
+    public List<Row> getResults() { return results; }
+    public void setResults(List<Row> results) { this.results = results; }
+
+    public static class Row {
+        private String symbol;
+        private Double livePrice;
+        private String overallDecision;
+        private double score;  // weighted indicator score behind overallDecision
+        private Double rsi;
+        private long screenedAt;
+
+        public String getSymbol() { return symbol; }
+        public void setSymbol(String symbol) { this.symbol = symbol; }
+
+        public Double getLivePrice() { return livePrice; }
+        public void setLivePrice(Double livePrice) { this.livePrice = livePrice; }
+
+        public String getOverallDecision() { return overallDecision; }
+        public void setOverallDecision(String overallDecision) { this.overallDecision = overallDecision; }
+
+        public double getScore() { return score; }
+        public void setScore(double score) { this.score = score; }
+
+        public Double getRsi() { return rsi; }
+        public void setRsi(Double rsi) { this.rsi = rsi; }
+
+        public long getScreenedAt() { return screenedAt; }
+        public void setScreenedAt(long screenedAt) { this.screenedAt = screenedAt; }
+    }
+}
@@ -0,0 +1,30 @@
+package com.stockapp.StockAggregator.dto;
+
+import java.util.Map;
+
+public class SignalDeltaDTO {
+    private String symbol;
+    private Double livePrice;
+    private String overallDecision;
+    private String previousDecision; // null on the first event for a symbol
+    private Map<String, Recommendation> recommendations; // indicator key -> BUY/SELL/HOLD, only the ones that changed
+    private long timestamp;
+
+    public String getSymbol() { return symbol; }
+    public void setSymbol(String symbol) { this.symbol = symbol; }
+
+    public Double getLivePrice() { return livePrice; }
+    public void setLivePrice(Double livePrice) { this.livePrice = livePrice; }
+
+    public String getOverallDecision() { return overallDecision; }
+    public void setOverallDecision(String overallDecision) { this.overallDecision = overallDecision; }
+
+    public String getPreviousDecision() { return previousDecision; }
+    public void setPreviousDecision(String previousDecision) { this.previousDecision = previousDecision; }
+
+    public Map<String, Recommendation> getRecommendations() { return recommendations; }
+    public void setRecommendations(Map<String, Recommendation> recommendations) { this.recommendations = recommendations; }
+
+    public long getTimestamp() { return timestamp; }
+    public void setTimestamp(long timestamp) { this.timestamp = timestamp; }
+}
@@ -0,0 +1,63 @@
+package com.stockapp.StockAggregator.dto;
+
+import java.util.List;
+
+/** Stored snapshots of one symbol, column by column (index i of every array is one row). NaN = not available. */
+public class SnapshotSeriesDTO {
+    private String symbol;
+    private long[] timestamps;
+    private double[] livePrice;
+    private double[] dayHigh;
+    private double[] dayLow;
+    private double[] week52High;
+    private double[] week52Low;
+    private double[] rsi;
+    private double[] sma;
+    private double[] ema;
+    private double[] macd;
+    private double[] macdSignal;
+    private double[] macdHistogram;
+    private List<Recommendation> decisions; // null where the row has none
+
+    public String getSymbol() { return symbol; }
+    public void setSymbol(String symbol) { this.symbol = symbol; }
+
+    public long[] getTimestamps() { return timestamps; }
+    public void setTimestamps(long[] timestamps) { this.timestamps = timestamps; }
+
+    public double[] getLivePrice() { return livePrice; }
+    public void setLivePrice(double[] livePrice) { this.livePrice = livePrice; }
+
+    public double[] getDayHigh() { return dayHigh; }
+    public void setDayHigh(double[] dayHigh) { this.dayHigh = dayHigh; }
+
+    public double[] getDayLow() { return dayLow; }
+    public void setDayLow(double[] dayLow) { this.dayLow = dayLow; }
+
+    public double[] getWeek52High() { return week52High; }
+    public void setWeek52High(double[] week52High) { this.week52High = week52High; }
+
+    public double[] getWeek52Low() { return week52Low; }
+    public void setWeek52Low(double[] week52Low) { this.week52Low = week52Low; }
+
+    public double[] getRsi() { return rsi; }
+    public void setRsi(double[] rsi) { this.rsi = rsi; }
+
+    public double[] getSma() { return sma; }
+    public void setSma(double[] sma) { this.sma = sma; }
+
+    public double[] getEma() { return ema; }
+    public void setEma(double[] ema) { this.ema = ema; }
+
+    public double[] getMacd() { return macd; }
+    public void setMacd(double[] macd) { this.macd = macd; }
+
+    public double[] getMacdSignal() { return macdSignal; }
+    public void setMacdSignal(double[] macdSignal) { this.macdSignal = macdSignal; }
+
+    public double[] getMacdHistogram() { return macdHistogram; }
+    public void setMacdHistogram(double[] macdHistogram) { this.macdHistogram = macdHistogram; }
+
+    public List<Recommendation> getDecisions() { return decisions; }
+    public void setDecisions(List<Recommendation> decisions) { this.decisions = decisions; }
+}
@@ -1,5 +1,9 @@
 package com.stockapp.StockAggregator.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 public class StockAnalysisDTO {
@@ -9,7 +13,7 @@ public class StockAnalysisDTO {
     private Double dayLow;
     private Double week52High;
     private Double week52Low;
-    private Object fundamentals; // raw fundamentals JSON from StockDetails API
+    private Object fundamentals; // raw fundamentals JSON from StockDetails API (RawJson bytes; a parsed structure when posted by clients)
     private Map<String, IndicatorDetail> indicators; // keys: rsi, sma, ema, macd, ...
     private String overallDecision; // rule-based decision
 
@@ -42,18 +46,128 @@ public class StockAnalysisDTO {
     public String getOverallDecision() { return overallDecision; }
     public void setOverallDecision(String overallDecision) { this.overallDecision = overallDecision; }
 
+    /**
+     * One indicator reading. Values are kept as primitives (NaN = not available) and
+     * the recommendation as an enum; the meaning text is only built when the detail
+     * is serialized. Details posted by clients keep their value and meaning as sent.
+     */
+    @JsonPropertyOrder({"value", "meaning", "recommendation"})
     public static class IndicatorDetail {
-        private Object value;        // might be Number or Map for MACD
-        private String meaning;      // human explanation
-        private String recommendation; // BUY/SELL/HOLD
-
-        public Object getValue() { return value; }
-        public void setValue(Object value) { this.value = value; }
 
-        public String getMeaning() { return meaning; }
+        public enum Kind { RSI, SMA, EMA, MACD }
+
+        private Kind kind;             // null for details deserialized from a request
+        private double value = Double.NaN;     // RSI/SMA/EMA value, or the MACD line
+        private double price = Double.NaN;     // live price compared against SMA/EMA
+        private double signal = Double.NaN;    // MACD only
+        private double histogram = Double.NaN; // MACD only
+        private Recommendation recommendation; // BUY/SELL/HOLD
+        private String meaning;        // explicit text; derived from the values when null
+        private Object rawValue;       // posted value that is neither a number nor a MACD object
+
+        public IndicatorDetail() {
+        }
+
+        public IndicatorDetail(Kind kind, double value, double price, Recommendation recommendation) {
+            this.kind = kind;
+            this.value = value;
+            this.price = price;
+            this.recommendation = recommendation;
+        }
+
+        public static IndicatorDetail macd(double macd, double signal, double histogram, Recommendation recommendation) {
+            IndicatorDetail detail = new IndicatorDetail(Kind.MACD, macd, Double.NaN, recommendation);
+            detail.signal = signal;
+            detail.histogram = histogram;
+            return detail;
+        }
+
+        @JsonIgnore
+        public Kind getKind() { return kind; }
+
+        @JsonIgnore
+        public double getNumericValue() { return value; }
+
+        @JsonIgnore
+        public double getSignal() { return signal; }
+
+        @JsonIgnore
+        public double getHistogram() { return histogram; }
+
+        /** Contribution to the combined score: +1 BUY, -1 SELL, 0 otherwise. */
+        @JsonIgnore
+        public double getScore() { return recommendation == null ? 0.0 : recommendation.weight(); }
+
+        // Number, or {macd, signal, histogram} for MACD
+        public Object getValue() {
+            if (rawValue != null) return rawValue;
+            if (Double.isNaN(value)) return null;
+            if (kind == Kind.MACD || !Double.isNaN(signal)) {
+                Map<String, Double> macd = new LinkedHashMap<>();
+                macd.put("macd", value);
+                macd.put("signal", signal);
+                macd.put("histogram", histogram);
+                return macd;
+            }
+            return value;
+        }
+
+        public void setValue(Object value) {
+            this.rawValue = null;
+            if (value instanceof Number n) {
+                this.value = n.doubleValue();
+            } else if (value instanceof Map<?, ?> m && m.get("macd") instanceof Number macd) {
+                this.value = macd.doubleValue();
+                this.signal = m.get("signal") instanceof Number s ? s.doubleValue() : 0.0;
+                this.histogram = m.get("histogram") instanceof Number h ? h.doubleValue() : this.value - this.signal;
+            } else {
+                this.value = Double.NaN;
+                this.rawValue = value;
+            }
+        }
+
+        public String getMeaning() {
+            if (meaning == null && kind != null) meaning = describe();
+            return meaning;
+        }
         public void setMeaning(String meaning) { this.meaning = meaning; }
 
-        public String getRecommendation() { return recommendation; }
-        public void setRecommendation(String recommendation) { this.recommendation = recommendation; }
+        public Recommendation getRecommendation() { return recommendation; }
+        public void setRecommendation(Recommendation recommendation) { this.recommendation = recommendation; }
+
+        // Market-aware meaning strings
+        private String describe() {
+            return switch (kind) {
+                case RSI -> {
+                    if (Double.isNaN(value)) yield "RSI not available";
+                    if (value < 30) yield String.format("RSI %.2f: Deep/strong oversold conditions often indicate a potential bullish reversal. Contrarian traders may see buying opportunity.", value);
+                    if (value < 40) yield String.format("RSI %.2f: Mildly oversold; watch for reversal signals and confirm with volume and other indicators.", value);
+                    if (value <= 60) yield String.format("RSI %.2f: Neutral zone — the market is balanced between buyers and sellers.", value);
+                    if (value <= 70) yield String.format("RSI %.2f: Mildly overbought; monitor for weakening momentum.", value);
+                    yield String.format("RSI %.2f: Overbought conditions suggest possible pullback or correction; risk of near-term selling.", value);
+                }
+                case SMA -> {
+                    if (Double.isNaN(value) || Double.isNaN(price)) yield "SMA or price not available";
+                    if (price > value) yield String.format("Price (%.2f) above SMA (%.2f): short-to-mid-term momentum is bullish.", price, value);
+                    if (price < value) yield String.format("Price (%.2f) below SMA (%.2f): short-to-mid-term momentum is bearish.", price, value);
+                    yield "Price equals SMA: neutral trend.";
+                }
+                case EMA -> {
+                    if (Double.isNaN(value) || Double.isNaN(price)) yield "EMA or price not available";
+                    if (price > value) yield String.format("Price (%.2f) above EMA (%.2f): recent momentum bullish.", price, value);
+                    if (price < value) yield String.format("Price (%.2f) below EMA (%.2f): recent momentum bearish.", price, value);
+                    yield "Price equals EMA: neutral short-term momentum.";
+                }
+                case MACD -> {
+                    if (Double.isNaN(value)) yield "MACD not available";
+                    String text = String.format("MACD = %.4f, Signal = %.4f, Histogram = %.4f. ", value, signal, histogram);
+                    yield switch (recommendation == null ? Recommendation.HOLD : recommendation) {
+                        case BUY -> text + "MACD above signal and positive histogram indicates bullish momentum and potential continuation.";
+                        case SELL -> text + "MACD below signal and negative histogram indicates bearish momentum and potential continuation.";
+                        case HOLD -> text + "Mixed MACD signals; treat with caution and confirm with other indicators.";
+                    };
+                }
+            };
+        }
     }
 }
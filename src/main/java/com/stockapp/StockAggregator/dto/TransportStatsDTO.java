@@ -0,0 +1,39 @@
+package com.stockapp.StockAggregator.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Live state of one upstream transport. The pool counters are null, and left
+ * out of the JSON, for HTTP/2 transports, whose JDK client has no visible pool.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TransportStatsDTO {
+    private String name;
+    private String protocol;
+    private int inFlight;       // requests currently executing on this transport
+    private Integer leased;     // pooled connections in use
+    private Integer pending;    // requests waiting for a pooled connection
+    private Integer available;  // idle pooled connections
+    private Integer max;        // pool capacity
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public String getProtocol() { return protocol; }
+    public void setProtocol(String protocol) { this.protocol = protocol; }
+
+    public int getInFlight() { return inFlight; }
+    public void setInFlight(int inFlight) { this.inFlight = inFlight; }
+
+    public Integer getLeased() { return leased; }
+    public void setLeased(Integer leased) { this.leased = leased; }
+
+    public Integer getPending() { return pending; }
+    public void setPending(Integer pending) { this.pending = pending; }
+
+    public Integer getAvailable() { return available; }
+    public void setAvailable(Integer available) { this.available = available; }
+
+    public Integer getMax() { return max; }
+    public void setMax(Integer max) { this.max = max; }
+}
@@ -0,0 +1,28 @@
+package com.stockapp.StockAggregator.dto;
+
+public class UpstreamHealthDTO {
+    private String name;          // endpoint (circuit breaker) or host (concurrency limit)
+    private String type;          // endpoint or host
+    private String state;         // CLOSED, OPEN or HALF_OPEN; endpoints only
+    private Long hedgeDelayMs;    // current hedge delay; hedged endpoints only
+    private Integer limit;        // adaptive concurrency limit; hosts only
+    private Integer inFlight;     // calls currently holding a slot; hosts only
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+
+    public String getState() { return state; }
+    public void setState(String state) { this.state = state; }
+
+    public Long getHedgeDelayMs() { return hedgeDelayMs; }
+    public void setHedgeDelayMs(Long hedgeDelayMs) { this.hedgeDelayMs = hedgeDelayMs; }
+
+    public Integer getLimit() { return limit; }
+    public void setLimit(Integer limit) { this.limit = limit; }
+
+    public Integer getInFlight() { return inFlight; }
+    public void setInFlight(Integer inFlight) { this.inFlight = inFlight; }
+}
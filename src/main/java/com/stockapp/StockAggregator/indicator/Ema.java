@@ -0,0 +1,67 @@
+package com.stockapp.StockAggregator.indicator;
+
+/**
+ * Exponential moving average with alpha = 2 / (period + 1), seeded with the
+ * simple average of the first period closes.
+ */
+public final class Ema implements IncrementalIndicator {
+
+    private final int period;
+    private final double alpha;
+    private int count;
+    private double seedSum;
+    private double ema;
+
+    public Ema(int period) {
+        if (period < 1) throw new IllegalArgumentException("EMA period must be positive: " + period);
+        this.period = period;
+        this.alpha = 2.0 / (period + 1);
+    }
+
+    @Override
+    public void update(double close) {
+        if (count < period) {
+            seedSum += close;
+            count++;
+            if (count == period) ema = seedSum / period;
+        } else {
+            ema += alpha * (close - ema);
+        }
+    }
+
+    @Override
+    public boolean isReady() {
+        return count >= period;
+    }
+
+    @Override
+    public int width() {
+        return 1;
+    }
+
+    @Override
+    public boolean current(double[] out) {
+        if (!isReady()) return false;
+        out[0] = ema;
+        return true;
+    }
+
+    @Override
+    public boolean provisional(double price, double[] out) {
+        double next = peek(price);
+        if (Double.isNaN(next)) return false;
+        out[0] = next;
+        return true;
+    }
+
+    double value() {
+        return ema;
+    }
+
+    /** Value with one extra input, or NaN if that would still not be enough. */
+    double peek(double input) {
+        if (isReady()) return ema + alpha * (input - ema);
+        if (count == period - 1) return (seedSum + input) / period;
+        return Double.NaN;
+    }
+}
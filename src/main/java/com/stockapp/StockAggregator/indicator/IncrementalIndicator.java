@@ -0,0 +1,26 @@
+package com.stockapp.StockAggregator.indicator;
+
+/**
+ * Indicator that is updated one closed bar at a time in O(1).
+ * <p>
+ * {@link #provisional(double, double[])} evaluates the indicator as if one more
+ * bar with the given close had been added, without changing any state, so a
+ * live price can be applied on every request at constant cost.
+ */
+public interface IncrementalIndicator {
+
+    /** Adds a closed bar. */
+    void update(double close);
+
+    /** True once enough bars were seen for the indicator to be defined. */
+    boolean isReady();
+
+    /** Number of values written by {@link #current} and {@link #provisional}. */
+    int width();
+
+    /** Writes the value(s) after the last closed bar; returns false if not ready. */
+    boolean current(double[] out);
+
+    /** Writes the value(s) with one extra bar closing at price; returns false if not ready. */
+    boolean provisional(double price, double[] out);
+}
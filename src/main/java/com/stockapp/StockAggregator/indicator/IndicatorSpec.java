@@ -0,0 +1,87 @@
+package com.stockapp.StockAggregator.indicator;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Parsed indicator spec in the StockDetails API notation: {@code rsi}, {@code rsi:14},
+ * {@code sma:50}, {@code ema:200}, {@code macd} or {@code macd:12:26:9}.
+ */
+public final class IndicatorSpec {
+
+    public enum Type { RSI, SMA, EMA, MACD }
+
+    private final Type type;
+    private final int[] params;
+
+    private IndicatorSpec(Type type, int[] params) {
+        this.type = type;
+        this.params = params;
+    }
+
+    public static IndicatorSpec parse(String spec) {
+        String[] parts = spec.trim().toLowerCase(Locale.ROOT).split(":");
+        Type type;
+        try {
+            type = Type.valueOf(parts[0].toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown indicator: " + spec);
+        }
+        int[] defaults = switch (type) {
+            case RSI -> new int[]{14};
+            case SMA -> new int[]{20};
+            case EMA -> new int[]{14};
+            case MACD -> new int[]{12, 26, 9};
+        };
+        if (parts.length - 1 > defaults.length) throw new IllegalArgumentException("Too many parameters: " + spec);
+        int[] params = defaults.clone();
+        for (int i = 1; i < parts.length; i++) {
+            params[i - 1] = Integer.parseInt(parts[i]);
+        }
+        return new IndicatorSpec(type, params);
+    }
+
+    public Type getType() { return type; }
+
+    public int param(int index) { return params[index]; }
+
+    public IncrementalIndicator newIndicator() {
+        return switch (type) {
+            case RSI -> new Rsi(params[0]);
+            case SMA -> new Sma(params[0]);
+            case EMA -> new Ema(params[0]);
+            case MACD -> new Macd(params[0], params[1], params[2]);
+        };
+    }
+
+    /**
+     * Key used in StockAnalysisDTO.indicators: rsi, sma_20, ema_14, macd for the
+     * classic settings, with the parameters appended otherwise (rsi_7, macd_5_35_5).
+     */
+    public String key() {
+        return switch (type) {
+            case RSI -> params[0] == 14 ? "rsi" : "rsi_" + params[0];
+            case SMA -> "sma_" + params[0];
+            case EMA -> "ema_" + params[0];
+            case MACD -> Arrays.equals(params, new int[]{12, 26, 9})
+                    ? "macd" : "macd_" + params[0] + "_" + params[1] + "_" + params[2];
+        };
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof IndicatorSpec other && type == other.type && Arrays.equals(params, other.params);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * type.hashCode() + Arrays.hashCode(params);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(type.name().toLowerCase(Locale.ROOT));
+        for (int p : params) sb.append(':').append(p);
+        return sb.toString();
+    }
+}
@@ -0,0 +1,61 @@
+package com.stockapp.StockAggregator.indicator;
+
+/**
+ * MACD line (fast EMA - slow EMA), its signal EMA and the histogram.
+ * Writes {macd, signal, histogram}.
+ */
+public final class Macd implements IncrementalIndicator {
+
+    private final Ema fast;
+    private final Ema slow;
+    private final Ema signal;
+
+    public Macd(int fastPeriod, int slowPeriod, int signalPeriod) {
+        if (fastPeriod >= slowPeriod) {
+            throw new IllegalArgumentException("MACD fast period must be shorter than slow period");
+        }
+        this.fast = new Ema(fastPeriod);
+        this.slow = new Ema(slowPeriod);
+        this.signal = new Ema(signalPeriod);
+    }
+
+    @Override
+    public void update(double close) {
+        fast.update(close);
+        slow.update(close);
+        if (slow.isReady()) signal.update(fast.value() - slow.value());
+    }
+
+    @Override
+    public boolean isReady() {
+        return signal.isReady();
+    }
+
+    @Override
+    public int width() {
+        return 3;
+    }
+
+    @Override
+    public boolean current(double[] out) {
+        if (!isReady()) return false;
+        double macd = fast.value() - slow.value();
+        out[0] = macd;
+        out[1] = signal.value();
+        out[2] = macd - signal.value();
+        return true;
+    }
+
+    @Override
+    public boolean provisional(double price, double[] out) {
+        double slowNext = slow.peek(price);
+        if (Double.isNaN(slowNext)) return false;
+        double macd = fast.peek(price) - slowNext;
+        double signalNext = signal.peek(macd);
+        if (Double.isNaN(signalNext)) return false;
+        out[0] = macd;
+        out[1] = signalNext;
+        out[2] = macd - signalNext;
+        return true;
+    }
+}
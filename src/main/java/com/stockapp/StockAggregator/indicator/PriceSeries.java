@@ -0,0 +1,58 @@
+package com.stockapp.StockAggregator.indicator;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Closed daily bars of one symbol in a primitive ring buffer, plus the
+ * incremental indicators computed over them.
+ * <p>
+ * Appending a bar updates every registered indicator in O(1). An indicator
+ * requested for the first time is warmed by replaying the buffered closes.
+ * Not thread-safe; callers synchronize on the series.
+ */
+public final class PriceSeries {
+
+    private final double[] closes;
+    private int next;
+    private int size;
+    private long appended; // total bars ever appended, including ones dropped from the buffer
+    private final Map<IndicatorSpec, IncrementalIndicator> indicators = new HashMap<>();
+
+    public PriceSeries(int capacity) {
+        this.closes = new double[capacity];
+    }
+
+    public void append(double close) {
+        closes[next] = close;
+        next = (next + 1) % closes.length;
+        if (size < closes.length) size++;
+        appended++;
+        for (IncrementalIndicator indicator : indicators.values()) {
+            indicator.update(close);
+        }
+    }
+
+    public int size() { return size; }
+
+    public long appendedCount() { return appended; }
+
+    /** Close of the i-th most recent bar (0 = latest). */
+    public double close(int ago) {
+        if (ago >= size) throw new IndexOutOfBoundsException(ago);
+        int idx = next - 1 - ago;
+        return closes[idx < 0 ? idx + closes.length : idx];
+    }
+
+    public IncrementalIndicator indicator(IndicatorSpec spec) {
+        IncrementalIndicator indicator = indicators.get(spec);
+        if (indicator == null) {
+            indicator = spec.newIndicator();
+            for (int ago = size - 1; ago >= 0; ago--) {
+                indicator.update(close(ago));
+            }
+            indicators.put(spec, indicator);
+        }
+        return indicator;
+    }
+}
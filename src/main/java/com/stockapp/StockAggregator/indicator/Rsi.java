@@ -0,0 +1,80 @@
+package com.stockapp.StockAggregator.indicator;
+
+/**
+ * Relative strength index with Wilder smoothing: the first average gain/loss is
+ * a simple mean over period changes, later ones are (avg * (period - 1) + x) / period.
+ */
+public final class Rsi implements IncrementalIndicator {
+
+    private final int period;
+    private int changes;
+    private boolean hasPrevious;
+    private double previous;
+    private double avgGain;
+    private double avgLoss;
+
+    public Rsi(int period) {
+        if (period < 1) throw new IllegalArgumentException("RSI period must be positive: " + period);
+        this.period = period;
+    }
+
+    @Override
+    public void update(double close) {
+        if (hasPrevious) {
+            double change = close - previous;
+            double gain = Math.max(change, 0.0);
+            double loss = Math.max(-change, 0.0);
+            if (changes < period) {
+                avgGain += gain / period;
+                avgLoss += loss / period;
+            } else {
+                avgGain = (avgGain * (period - 1) + gain) / period;
+                avgLoss = (avgLoss * (period - 1) + loss) / period;
+            }
+            changes++;
+        }
+        previous = close;
+        hasPrevious = true;
+    }
+
+    @Override
+    public boolean isReady() {
+        return changes >= period;
+    }
+
+    @Override
+    public int width() {
+        return 1;
+    }
+
+    @Override
+    public boolean current(double[] out) {
+        if (!isReady()) return false;
+        out[0] = rsi(avgGain, avgLoss);
+        return true;
+    }
+
+    @Override
+    public boolean provisional(double price, double[] out) {
+        if (!hasPrevious || changes < period - 1) return false;
+        double change = price - previous;
+        double gain = Math.max(change, 0.0);
+        double loss = Math.max(-change, 0.0);
+        double g;
+        double l;
+        if (changes < period) {
+            g = avgGain + gain / period;
+            l = avgLoss + loss / period;
+        } else {
+            g = (avgGain * (period - 1) + gain) / period;
+            l = (avgLoss * (period - 1) + loss) / period;
+        }
+        out[0] = rsi(g, l);
+        return true;
+    }
+
+    private static double rsi(double gain, double loss) {
+        if (loss == 0.0) return gain == 0.0 ? 50.0 : 100.0;
+        return 100.0 - 100.0 / (1.0 + gain / loss);
+    }
+}
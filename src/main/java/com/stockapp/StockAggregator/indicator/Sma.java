@@ -0,0 +1,58 @@
+package com.stockapp.StockAggregator.indicator;
+
+/**
+ * Simple moving average over a primitive ring buffer with a running sum.
+ */
+public final class Sma implements IncrementalIndicator {
+
+    private final int period;
+    private final double[] window;
+    private int next;   // slot the next close is written to
+    private int count;  // closes in the window, up to period
+    private double sum;
+
+    public Sma(int period) {
+        if (period < 1) throw new IllegalArgumentException("SMA period must be positive: " + period);
+        this.period = period;
+        this.window = new double[period];
+    }
+
+    @Override
+    public void update(double close) {
+        if (count == period) sum -= window[next];
+        else count++;
+        window[next] = close;
+        sum += close;
+        next = (next + 1) % period;
+    }
+
+    @Override
+    public boolean isReady() {
+        return count == period;
+    }
+
+    @Override
+    public int width() {
+        return 1;
+    }
+
+    @Override
+    public boolean current(double[] out) {
+        if (!isReady()) return false;
+        out[0] = sum / period;
+        return true;
+    }
+
+    @Override
+    public boolean provisional(double price, double[] out) {
+        if (count == period) {
+            out[0] = (sum - window[next] + price) / period; // window[next] is the oldest close
+            return true;
+        }
+        if (count == period - 1) {
+            out[0] = (sum + price) / period;
+            return true;
+        }
+        return false;
+    }
+}
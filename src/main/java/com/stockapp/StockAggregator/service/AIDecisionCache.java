@@ -0,0 +1,228 @@
+package com.stockapp.StockAggregator.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stockapp.StockAggregator.dto.AIAnalysisResponse;
+import com.stockapp.StockAggregator.dto.CacheStatsDTO;
+import com.stockapp.StockAggregator.dto.RawJson;
+import com.stockapp.StockAggregator.dto.StockAnalysisDTO;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Caches OpenRouter decisions by a fingerprint of the analysed DTO.
+ * <p>
+ * The request runs at temperature 0.0, so the same input gives the same answer.
+ * The fingerprint is built from the fields the prompt is made of, read straight
+ * off the DTO: prices and indicator values rounded to
+ * {@code openrouter.cache.price-tick}, so DTOs that differ only by sub-tick noise
+ * share an entry, and fundamentals with sorted keys and numbers in one form
+ * (150 and 150.0 are the same). The derived {@code meaning} texts are skipped.
+ */
+@Component
+public class AIDecisionCache {
+
+    private static final Logger log = LoggerFactory.getLogger(AIDecisionCache.class);
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private TtlCache<String, AIAnalysisResponse> cache;
+
+    @Value("${openrouter.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${openrouter.cache.ttl-ms:900000}")
+    private long ttlMs;
+
+    @Value("${openrouter.cache.max-entries:5000}")
+    private int maxEntries;
+
+    @Value("${openrouter.cache.price-tick:0.01}")
+    private double priceTick;
+
+    // Optional JSON snapshot file, restored at startup and written at shutdown
+    @Value("${openrouter.cache.snapshot-path:}")
+    private String snapshotPath;
+
+    @PostConstruct
+    void init() {
+        // no stale window: an expired decision is simply asked again
+        cache = new TtlCache<>("openrouter", ttlMs, 0, maxEntries, Runnable::run);
+        restoreSnapshot();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        writeSnapshot();
+    }
+
+    public AIAnalysisResponse get(String fingerprint) {
+        return enabled ? cache.getIfFresh(fingerprint) : null;
+    }
+
+    public void put(String fingerprint, AIAnalysisResponse response) {
+        if (enabled) cache.put(fingerprint, response);
+    }
+
+    public CacheStatsDTO stats() {
+        return cache.stats();
+    }
+
+    /**
+     * SHA-256 over the canonical form of the DTO.
+     */
+    public String fingerprint(StockAnalysisDTO dto) {
+        StringBuilder canonical = new StringBuilder(512);
+        canonical.append(dto.getSymbol()).append('|');
+        appendTicks(dto.getLivePrice(), canonical);
+        appendTicks(dto.getDayHigh(), canonical);
+        appendTicks(dto.getDayLow(), canonical);
+        appendTicks(dto.getWeek52High(), canonical);
+        appendTicks(dto.getWeek52Low(), canonical);
+        canonical.append(dto.getOverallDecision()).append('|');
+
+        Map<String, StockAnalysisDTO.IndicatorDetail> indicators = dto.getIndicators();
+        if (indicators != null) {
+            for (String key : new TreeSet<>(indicators.keySet())) {
+                StockAnalysisDTO.IndicatorDetail detail = indicators.get(key);
+                canonical.append(key).append('=');
+                if (detail != null) {
+                    appendTicks(detail.getNumericValue(), canonical);
+                    appendTicks(detail.getSignal(), canonical);
+                    appendTicks(detail.getHistogram(), canonical);
+                    canonical.append(detail.getRecommendation()).append(',');
+                    // a posted value that is neither a number nor a MACD object
+                    Object raw = Double.isNaN(detail.getNumericValue()) ? detail.getValue() : null;
+                    if (raw != null) appendCanonical(mapper.valueToTree(raw), true, canonical);
+                }
+                canonical.append(';');
+            }
+        }
+        canonical.append('|');
+        appendFundamentals(dto.getFundamentals(), canonical);
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(canonical.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void appendTicks(Double value, StringBuilder out) {
+        appendTicks(value == null ? Double.NaN : value, out);
+    }
+
+    private void appendTicks(double value, StringBuilder out) {
+        if (Double.isNaN(value)) out.append('-');
+        else out.append(Math.round(value / priceTick)).append('t');
+        out.append(',');
+    }
+
+    // Fundamentals are upstream facts, not prices we want to bucket: normalized but not rounded
+    private void appendFundamentals(Object fundamentals, StringBuilder out) {
+        if (fundamentals == null) return;
+        try {
+            JsonNode node = fundamentals instanceof RawJson raw
+                    ? mapper.readTree(raw.asUnquotedUTF8())
+                    : mapper.valueToTree(fundamentals);
+            appendCanonical(node, false, out);
+        } catch (IOException e) {
+            // RawJson is validated at ingest, so this is not expected; fall back to the bytes as they are
+            out.append(fundamentals);
+        }
+    }
+
+    private void appendCanonical(JsonNode node, boolean quantize, StringBuilder out) {
+        if (node.isObject()) {
+            out.append('{');
+            TreeSet<String> names = new TreeSet<>();
+            node.fieldNames().forEachRemaining(names::add);
+            for (String name : names) {
+                out.append('"').append(name).append("\":");
+                appendCanonical(node.get(name), quantize, out);
+                out.append(',');
+            }
+            out.append('}');
+        } else if (node.isArray()) {
+            out.append('[');
+            for (JsonNode item : node) {
+                appendCanonical(item, quantize, out);
+                out.append(',');
+            }
+            out.append(']');
+        } else if (node.isNumber()) {
+            if (quantize) out.append(Math.round(node.doubleValue() / priceTick)).append('t');
+            else out.append(node.decimalValue().stripTrailingZeros().toPlainString());
+        } else {
+            out.append(node);
+        }
+    }
+
+    private void restoreSnapshot() {
+        if (!enabled || snapshotPath.isBlank()) return;
+        Path path = Path.of(snapshotPath);
+        if (!Files.exists(path)) return;
+        try {
+            Snapshot snapshot = mapper.readValue(path.toFile(), Snapshot.class);
+            long sinceSave = System.currentTimeMillis() - snapshot.savedAt;
+            for (SnapshotEntry entry : snapshot.entries) {
+                long age = entry.ageMs + sinceSave;
+                if (age < ttlMs) cache.put(entry.key, entry.response, age);
+            }
+            log.info("Restored {} AI decisions from {}", cache.size(), path);
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable AI decision snapshot {}: {}", path, e.getMessage());
+        }
+    }
+
+    private void writeSnapshot() {
+        if (!enabled || snapshotPath.isBlank()) return;
+        Snapshot snapshot = new Snapshot();
+        snapshot.savedAt = System.currentTimeMillis();
+        for (TtlCache.Snapshot<String, AIAnalysisResponse> e : cache.snapshot()) {
+            SnapshotEntry entry = new SnapshotEntry();
+            entry.key = e.getKey();
+            entry.ageMs = e.getAgeMs();
+            entry.response = e.getValue();
+            snapshot.entries.add(entry);
+        }
+        Path path = Path.of(snapshotPath);
+        try {
+            if (path.getParent() != null) Files.createDirectories(path.getParent());
+            Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+            mapper.writeValue(tmp.toFile(), snapshot);
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Could not write AI decision snapshot {}: {}", path, e.getMessage());
+        }
+    }
+
+    // On-disk format of the snapshot file
+    static class Snapshot {
+        public long savedAt;
+        public List<SnapshotEntry> entries = new ArrayList<>();
+    }
+
+    static class SnapshotEntry {
+        public String key;
+        public long ageMs;
+        public AIAnalysisResponse response;
+    }
+}
@@ -0,0 +1,84 @@
+package com.stockapp.StockAggregator.service;
+
+/**
+ * Adaptive concurrency limit for one upstream host (AIMD with a Vegas-style
+ * latency signal).
+ * <p>
+ * A call beyond the current limit is refused at once rather than queued. Each
+ * call that returns within tolerance times the best latency seen lets the
+ * limit grow by 1/limit (about +1 per round trip), as long as the limit is
+ * actually in use. A failure, or a call slower than that, shrinks it by the
+ * backoff factor, so the limit falls as soon as the host starts queueing and
+ * before our own threads do. The best latency is re-learnt every
+ * {@link #BASELINE_SAMPLES} calls so it follows a host that got slower for good.
+ */
+public final class AdaptiveLimiter {
+
+    static final int BASELINE_SAMPLES = 500;
+
+    private final double minLimit;
+    private final double maxLimit;
+    private final double tolerance;
+    private final double backoff;
+
+    // guarded by this
+    private double limit;
+    private int inFlight;
+    private long baselineNanos;
+    private long smoothedNanos;
+    private int samples;
+
+    public AdaptiveLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance, double backoff) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.tolerance = Math.max(1.0, tolerance);
+        this.backoff = Math.min(Math.max(backoff, 0.1), 0.99);
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+    }
+
+    /** Takes a slot if fewer than limit calls are in flight; each taken slot ends with onSuccess, onDrop or release. */
+    public synchronized boolean tryAcquire() {
+        if (inFlight >= (int) limit) return false;
+        inFlight++;
+        return true;
+    }
+
+    public synchronized void onSuccess(long latencyNanos) {
+        inFlight--;
+        smoothedNanos = smoothedNanos == 0 ? latencyNanos : smoothedNanos + (latencyNanos - smoothedNanos) / 8;
+        if (++samples >= BASELINE_SAMPLES) {
+            samples = 0;
+            baselineNanos = smoothedNanos;
+        }
+        if (baselineNanos == 0 || latencyNanos < baselineNanos) baselineNanos = latencyNanos;
+
+        if (latencyNanos > tolerance * baselineNanos) {
+            decrease();
+        } else if (inFlight + 1 >= limit / 2) {
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+    }
+
+    /** The call failed or timed out: treated as a sign of overload. */
+    public synchronized void onDrop() {
+        inFlight--;
+        decrease();
+    }
+
+    /** The call ended without telling anything about the host (e.g. cancelled). */
+    public synchronized void release() {
+        inFlight--;
+    }
+
+    public synchronized int limit() {
+        return (int) limit;
+    }
+
+    public synchronized int inFlight() {
+        return inFlight;
+    }
+
+    private void decrease() {
+        limit = Math.max(minLimit, limit * backoff);
+    }
+}
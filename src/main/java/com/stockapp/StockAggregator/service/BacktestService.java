@@ -0,0 +1,313 @@
+package com.stockapp.StockAggregator.service;
+
+import com.stockapp.StockAggregator.backtest.BacktestEngine;
+import com.stockapp.StockAggregator.backtest.SignalSeries;
+import com.stockapp.StockAggregator.dto.BacktestReportDTO;
+import com.stockapp.StockAggregator.dto.BacktestRequestDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Runs backtests as background jobs: the symbols' histories are loaded on
+ * backtestLoadExecutor, turned into {@link SignalSeries} once, then every parameter
+ * set is replayed on the fork/join backtestPool. No thread waits in between.
+ * Poll the job for the report.
+ */
+@Service
+public class BacktestService {
+
+    private static final Logger log = LoggerFactory.getLogger(BacktestService.class);
+
+    private final StockDetailsClient client;
+    private final SnapshotService snapshots;
+    private final ExecutorService loadExecutor;
+    private final ForkJoinPool backtestPool;
+    private final BacktestEngine engine;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    @Value("${backtest.max-symbols:5000}")
+    private int maxSymbols;
+
+    @Value("${backtest.max-parameter-sets:100000}")
+    private int maxParameterSets;
+
+    @Value("${backtest.max-jobs:16}")
+    private int maxJobs;
+
+    public BacktestService(StockDetailsClient client, SnapshotService snapshots,
+                           @Qualifier("backtestLoadExecutor") ExecutorService loadExecutor,
+                           @Qualifier("backtestPool") ForkJoinPool backtestPool) {
+        this.client = client;
+        this.snapshots = snapshots;
+        this.loadExecutor = loadExecutor;
+        this.backtestPool = backtestPool;
+        this.engine = new BacktestEngine(backtestPool);
+    }
+
+    /** Validates the request and starts the job; the report is filled in when it finishes. */
+    public BacktestReportDTO start(BacktestRequestDTO request) {
+        List<String> symbols = normalize(request.getSymbols());
+        boolean fromSnapshots = switch (lower(request.getSource())) {
+            case "ohlcv" -> false;
+            case "snapshots" -> true;
+            default -> throw badRequest("source must be ohlcv or snapshots");
+        };
+        List<StrategyParameters> sets = parameterSets(request);
+        ToDoubleFunction<BacktestReportDTO.Result> rank = ranking(request.getSortBy());
+        if (request.getHorizon() < 1) throw badRequest("horizon must be at least 1");
+
+        Job job = new Job(UUID.randomUUID().toString(), sets.size());
+        synchronized (jobs) {
+            if (jobs.size() >= maxJobs && !evictFinished()) {
+                throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many backtests (max " + maxJobs + ")");
+            }
+            jobs.put(job.id, job);
+        }
+
+        List<CompletableFuture<SignalSeries>> loads = new ArrayList<>();
+        for (String symbol : symbols) {
+            loads.add(CompletableFuture.supplyAsync(() -> load(symbol, fromSnapshots), loadExecutor)
+                    .exceptionally(e -> null));
+        }
+        CompletableFuture.allOf(loads.toArray(new CompletableFuture[0])).thenRunAsync(() -> {
+            List<SignalSeries> series = new ArrayList<>();
+            List<String> failed = new ArrayList<>();
+            for (int i = 0; i < symbols.size(); i++) {
+                SignalSeries s = loads.get(i).join();
+                if (s == null || s.size() < 2) failed.add(symbols.get(i));
+                else series.add(s);
+            }
+            job.loaded(series, failed);
+            BacktestEngine.Stats[] stats = engine.run(series, sets, request.getHorizon());
+            job.finish(results(sets, stats, rank, Math.max(0, request.getTop())));
+        }, backtestPool).exceptionally(e -> {
+            log.warn("Backtest {} failed: {}", job.id, e.getMessage());
+            job.fail(e.getCause() != null ? e.getCause() : e);
+            return null;
+        });
+        return job.report();
+    }
+
+    public BacktestReportDTO get(String id) {
+        Job job = jobs.get(id);
+        if (job == null) throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown backtest " + id);
+        return job.report();
+    }
+
+    public List<BacktestReportDTO> list() {
+        return jobs.values().stream()
+                .sorted(Comparator.comparingLong((Job j) -> j.startedAt).reversed())
+                .map(Job::summary)
+                .toList();
+    }
+
+    private SignalSeries load(String symbol, boolean fromSnapshots) {
+        if (fromSnapshots) {
+            return SignalSeries.fromSnapshots(symbol, snapshots.range(symbol, 0, Long.MAX_VALUE, Integer.MAX_VALUE));
+        }
+        return SignalSeries.fromCloses(symbol, IndicatorEngine.closedBars(client.history(symbol)));
+    }
+
+    private List<StrategyParameters> parameterSets(BacktestRequestDTO request) {
+        StrategyParameters live = StrategyParameters.DEFAULT;
+        double[][] dims = {
+                values(request.getRsiWeight(), live.rsiWeight()),
+                values(request.getSmaWeight(), live.smaWeight()),
+                values(request.getEmaWeight(), live.emaWeight()),
+                values(request.getMacdWeight(), live.macdWeight()),
+                values(request.getBuyThreshold(), live.buyThreshold()),
+                values(request.getSellThreshold(), live.sellThreshold())
+        };
+        List<StrategyParameters> sets = new ArrayList<>();
+        switch (lower(request.getMode())) {
+            case "grid" -> {
+                // checked after every dimension, so the product stays far from overflowing
+                long combinations = 1;
+                for (double[] dim : dims) {
+                    combinations *= dim.length;
+                    if (combinations > maxParameterSets) {
+                        throw badRequest("Grid has more than " + maxParameterSets + " combinations");
+                    }
+                }
+                int[] idx = new int[dims.length];
+                for (long c = 0; c < combinations; c++) {
+                    sets.add(new StrategyParameters(dims[0][idx[0]], dims[1][idx[1]], dims[2][idx[2]],
+                            dims[3][idx[3]], dims[4][idx[4]], dims[5][idx[5]]));
+                    for (int d = dims.length - 1; d >= 0 && ++idx[d] == dims[d].length; d--) idx[d] = 0;
+                }
+            }
+            case "random" -> {
+                if (request.getSamples() < 1 || request.getSamples() > maxParameterSets) {
+                    throw badRequest("samples must be 1.." + maxParameterSets);
+                }
+                SplittableRandom random = request.getSeed() != null ? new SplittableRandom(request.getSeed()) : new SplittableRandom();
+                for (int i = 0; i < request.getSamples(); i++) {
+                    sets.add(new StrategyParameters(draw(random, dims[0]), draw(random, dims[1]), draw(random, dims[2]),
+                            draw(random, dims[3]), draw(random, dims[4]), draw(random, dims[5])));
+                }
+            }
+            default -> throw badRequest("mode must be grid or random");
+        }
+        return sets;
+    }
+
+    private static double[] values(List<Double> list, double live) {
+        if (list == null || list.isEmpty()) return new double[]{live};
+        return list.stream().mapToDouble(Double::doubleValue).toArray();
+    }
+
+    // Uniform between the dimension's min and max
+    private static double draw(SplittableRandom random, double[] dim) {
+        double min = dim[0];
+        double max = dim[0];
+        for (double v : dim) {
+            min = Math.min(min, v);
+            max = Math.max(max, v);
+        }
+        return min == max ? min : min + random.nextDouble() * (max - min);
+    }
+
+    // Higher is better
+    private static ToDoubleFunction<BacktestReportDTO.Result> ranking(String sortBy) {
+        return switch (lower(sortBy)) {
+            case "return" -> BacktestReportDTO.Result::getAverageReturn;
+            case "hitrate" -> BacktestReportDTO.Result::getHitRate;
+            case "drawdown" -> r -> -r.getAverageMaxDrawdown();
+            default -> throw badRequest("sortBy must be return, hitRate or drawdown");
+        };
+    }
+
+    private static List<BacktestReportDTO.Result> results(List<StrategyParameters> sets, BacktestEngine.Stats[] stats,
+                                                          ToDoubleFunction<BacktestReportDTO.Result> rank, int top) {
+        List<BacktestReportDTO.Result> results = new ArrayList<>(sets.size());
+        for (int i = 0; i < sets.size(); i++) {
+            StrategyParameters p = sets.get(i);
+            BacktestEngine.Stats s = stats[i];
+            BacktestReportDTO.Result r = new BacktestReportDTO.Result();
+            r.setRsiWeight(p.rsiWeight());
+            r.setSmaWeight(p.smaWeight());
+            r.setEmaWeight(p.emaWeight());
+            r.setMacdWeight(p.macdWeight());
+            r.setBuyThreshold(p.buyThreshold());
+            r.setSellThreshold(p.sellThreshold());
+            r.setHitRate(s.getHitRate());
+            r.setAverageReturn(s.getAverageReturn());
+            r.setAverageMaxDrawdown(s.getAverageMaxDrawdown());
+            r.setWorstDrawdown(s.getWorstDrawdown());
+            r.setSignals(s.getSignals());
+            r.setTrades(s.getTrades());
+            results.add(r);
+        }
+        results.sort(Comparator.comparingDouble(rank).reversed());
+        return new ArrayList<>(results.subList(0, Math.min(top, results.size())));
+    }
+
+    private List<String> normalize(List<String> symbols) {
+        Set<String> unique = new LinkedHashSet<>();
+        if (symbols != null) {
+            for (String symbol : symbols) {
+                if (symbol != null && !symbol.isBlank()) unique.add(symbol.trim());
+            }
+        }
+        if (unique.isEmpty()) throw badRequest("No symbols given");
+        if (unique.size() > maxSymbols) throw badRequest("Too many symbols: " + unique.size() + " (max " + maxSymbols + ")");
+        return new ArrayList<>(unique);
+    }
+
+    private boolean evictFinished() {
+        return jobs.values().stream()
+                .filter(Job::isFinished)
+                .min(Comparator.comparingLong(j -> j.startedAt))
+                .map(j -> jobs.remove(j.id) != null)
+                .orElse(false);
+    }
+
+    private static String lower(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+
+    private static ResponseStatusException badRequest(String message) {
+        return new ResponseStatusException(HttpStatus.BAD_REQUEST, message);
+    }
+
+    private static final class Job {
+        final String id;
+        final int parameterSets;
+        final long startedAt = System.currentTimeMillis();
+        // written by the job, read by pollers
+        volatile String status = "LOADING";
+        volatile int symbols;
+        volatile long bars;
+        volatile List<String> failed = List.of();
+        volatile List<BacktestReportDTO.Result> results;
+        volatile String error;
+        volatile long elapsedMs;
+
+        Job(String id, int parameterSets) {
+            this.id = id;
+            this.parameterSets = parameterSets;
+        }
+
+        void loaded(List<SignalSeries> series, List<String> failedSymbols) {
+            symbols = series.size();
+            bars = series.stream().mapToLong(SignalSeries::size).sum();
+            failed = failedSymbols;
+            status = "RUNNING";
+        }
+
+        void finish(List<BacktestReportDTO.Result> ranked) {
+            results = ranked;
+            elapsedMs = System.currentTimeMillis() - startedAt;
+            status = "DONE";
+        }
+
+        void fail(Throwable e) {
+            error = e.getMessage();
+            elapsedMs = System.currentTimeMillis() - startedAt;
+            status = "FAILED";
+        }
+
+        boolean isFinished() {
+            return "DONE".equals(status) || "FAILED".equals(status);
+        }
+
+        BacktestReportDTO summary() {
+            BacktestReportDTO dto = new BacktestReportDTO();
+            dto.setId(id);
+            dto.setStatus(status);
+            dto.setError(error);
+            dto.setSymbols(symbols);
+            dto.setFailedSymbols(failed);
+            dto.setBars(bars);
+            dto.setParameterSets(parameterSets);
+            dto.setElapsedMs(isFinished() ? elapsedMs : System.currentTimeMillis() - startedAt);
+            return dto;
+        }
+
+        BacktestReportDTO report() {
+            BacktestReportDTO dto = summary();
+            dto.setResults(results);
+            return dto;
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.stockapp.StockAggregator.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stockapp.StockAggregator.dto.BatchErrorDTO;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Runs one task per symbol with bounded parallelism and streams each result
+ * as a line of NDJSON as soon as it is ready.
+ */
+@Service
+public class BatchAnalysisService {
+
+    /** Per-symbol unit of work of a batch. */
+    @FunctionalInterface
+    public interface SymbolTask<T> {
+        T run(String symbol) throws Exception;
+    }
+
+    /** Second stage that handles several per-symbol results in one go. */
+    @FunctionalInterface
+    public interface GroupTask<T, R> {
+        List<R> run(List<T> group) throws Exception;
+    }
+
+    private final ExecutorService batchExecutor;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    // Symbols of one batch that are processed at the same time
+    @Value("${analysis.batch.parallelism:8}")
+    private int parallelism;
+
+    @Value("${analysis.batch.max-symbols:500}")
+    private int maxSymbols;
+
+    public BatchAnalysisService(@Qualifier("batchExecutor") ExecutorService batchExecutor) {
+        this.batchExecutor = batchExecutor;
+    }
+
+    /**
+     * Rejects empty or oversized batches and drops duplicate symbols, keeping their order.
+     */
+    public List<String> normalize(List<String> symbols) {
+        if (symbols == null || symbols.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At least one symbol is required");
+        }
+        Set<String> unique = new LinkedHashSet<>();
+        for (String symbol : symbols) {
+            if (symbol != null && !symbol.isBlank()) unique.add(symbol.trim());
+        }
+        if (unique.size() > maxSymbols) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "A batch is limited to " + maxSymbols + " symbols");
+        }
+        return new ArrayList<>(unique);
+    }
+
+    /**
+     * Writes one line per symbol in completion order. A failing symbol produces a
+     * {@link BatchErrorDTO} line; it never fails the batch.
+     */
+    public <T> void stream(List<String> symbols, SymbolTask<T> task, OutputStream out) throws IOException {
+        CompletionService<Object> completion = new ExecutorCompletionService<>(batchExecutor);
+        List<Future<Object>> submitted = new ArrayList<>(symbols.size());
+        Iterator<String> pending = symbols.iterator();
+        int running = 0;
+        try {
+            while (running < parallelism && pending.hasNext()) {
+                submitted.add(completion.submit(wrap(pending.next(), task)));
+                running++;
+            }
+            while (running > 0) {
+                Object result = completion.take().get();
+                running--;
+                if (pending.hasNext()) {
+                    submitted.add(completion.submit(wrap(pending.next(), task)));
+                    running++;
+                }
+                writeLine(result, out);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause()); // wrap() never lets a task fail
+        } finally {
+            // client went away or we were interrupted: stop the work nobody will read
+            for (Future<Object> future : submitted) future.cancel(true);
+        }
+    }
+
+    /**
+     * Two-stage variant of {@link #stream}: per-symbol results of the first stage
+     * are collected into groups of up to groupSize and each group is handed to
+     * the second stage as a whole (e.g. one batched LLM completion). Groups are
+     * dispatched as soon as they fill up, so output still streams while later
+     * symbols are being aggregated. A failing group reports an error line for
+     * each of its symbols.
+     */
+    public <T, R> void streamGrouped(List<String> symbols, SymbolTask<T> stage, GroupTask<T, R> groupStage,
+                                     Function<T, String> symbolOf, int groupSize, OutputStream out) throws IOException {
+        CompletionService<Object> completion = new ExecutorCompletionService<>(batchExecutor);
+        List<Future<Object>> submitted = new ArrayList<>();
+        Iterator<String> pending = symbols.iterator();
+        List<T> group = new ArrayList<>(groupSize);
+        int running = 0;
+        int stageRunning = 0;
+        try {
+            while (stageRunning < parallelism && pending.hasNext()) {
+                submitted.add(completion.submit(wrap(pending.next(), stage)));
+                stageRunning++;
+                running++;
+            }
+            while (running > 0) {
+                Object result = completion.take().get();
+                running--;
+
+                if (result instanceof GroupResult groupResult) {
+                    for (Object item : groupResult.items) writeLine(item, out);
+                } else {
+                    stageRunning--;
+                    if (pending.hasNext()) {
+                        submitted.add(completion.submit(wrap(pending.next(), stage)));
+                        stageRunning++;
+                        running++;
+                    }
+                    if (result instanceof BatchErrorDTO) {
+                        writeLine(result, out);
+                    } else {
+                        @SuppressWarnings("unchecked")
+                        T value = (T) result;
+                        group.add(value);
+                    }
+                }
+
+                boolean lastGroup = stageRunning == 0 && !pending.hasNext();
+                if (!group.isEmpty() && (group.size() >= groupSize || lastGroup)) {
+                    submitted.add(completion.submit(wrapGroup(new ArrayList<>(group), groupStage, symbolOf)));
+                    running++;
+                    group.clear();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause()); // the wrappers never let a task fail
+        } finally {
+            for (Future<Object> future : submitted) future.cancel(true);
+        }
+    }
+
+    private void writeLine(Object item, OutputStream out) throws IOException {
+        out.write(mapper.writeValueAsBytes(item));
+        out.write('\n');
+        out.flush();
+    }
+
+    private <T, R> Callable<Object> wrapGroup(List<T> group, GroupTask<T, R> task, Function<T, String> symbolOf) {
+        return () -> {
+            try {
+                return new GroupResult(new ArrayList<>(task.run(group)));
+            } catch (Exception e) {
+                String error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+                List<Object> errors = new ArrayList<>(group.size());
+                for (T item : group) errors.add(new BatchErrorDTO(symbolOf.apply(item), error));
+                return new GroupResult(errors);
+            }
+        };
+    }
+
+    private <T> Callable<Object> wrap(String symbol, SymbolTask<T> task) {
+        return () -> {
+            try {
+                return task.run(symbol);
+            } catch (Exception e) {
+                return new BatchErrorDTO(symbol, e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+            }
+        };
+    }
+
+    // Output of a second-stage task, told apart from first-stage results in the completion queue
+    private static final class GroupResult {
+        final List<Object> items;
+
+        GroupResult(List<Object> items) {
+            this.items = items;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.stockapp.StockAggregator.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Count-based circuit breaker for one upstream endpoint.
+ * <p>
+ * Closed, it records the outcome of the last window calls and opens once at
+ * least minCalls of them were seen and the failed share reaches failureRate.
+ * Open, every call is refused until openMs have passed; then up to trialCalls
+ * calls go through (half-open). Any failed trial reopens it, trialCalls
+ * successes close it with an empty window.
+ */
+public final class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final double failureRate;
+    private final int minCalls;
+    private final long openNanos;
+    private final int trialCalls;
+    private final LongSupplier clock;
+
+    // guarded by this
+    private final boolean[] window;
+    private int recorded;
+    private int next;
+    private int failures;
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int trialsStarted;
+    private int trialsSucceeded;
+
+    public CircuitBreaker(double failureRate, int window, int minCalls, long openMs, int trialCalls) {
+        this(failureRate, window, minCalls, openMs, trialCalls, System::nanoTime);
+    }
+
+    CircuitBreaker(double failureRate, int window, int minCalls, long openMs, int trialCalls, LongSupplier clock) {
+        this.failureRate = failureRate;
+        this.window = new boolean[Math.max(1, window)];
+        this.minCalls = Math.max(1, Math.min(minCalls, this.window.length));
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMs);
+        this.trialCalls = Math.max(1, trialCalls);
+        this.clock = clock;
+    }
+
+    /** Whether a call may go out now; each permitted call must be followed by onSuccess, onFailure or release. */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (clock.getAsLong() - openedAt < openNanos) return false;
+            state = State.HALF_OPEN;
+            trialsStarted = 0;
+            trialsSucceeded = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialsStarted >= trialCalls) return false;
+            trialsStarted++;
+        }
+        return true;
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            if (++trialsSucceeded >= trialCalls) close();
+            return;
+        }
+        if (state == State.CLOSED) record(false);
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        if (state == State.CLOSED) {
+            record(true);
+            if (recorded >= minCalls && failures >= failureRate * recorded) open();
+        }
+    }
+
+    /** A permitted call that ended without a verdict (e.g. cancelled): frees its trial slot. */
+    public synchronized void release() {
+        if (state == State.HALF_OPEN && trialsStarted > trialsSucceeded) trialsStarted--;
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    private void record(boolean failed) {
+        if (recorded == window.length) {
+            if (window[next]) failures--;
+        } else {
+            recorded++;
+        }
+        window[next] = failed;
+        if (failed) failures++;
+        next = (next + 1) % window.length;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = clock.getAsLong();
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        recorded = 0;
+        next = 0;
+        failures = 0;
+    }
+}
@@ -0,0 +1,210 @@
+package com.stockapp.StockAggregator.service;
+
+import com.stockapp.StockAggregator.dto.AIAnalysisResponse;
+
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Incremental parser for the {"symbol", "decision", "reasoning"} object of a
+ * streamed completion. Content is fed in whatever pieces the model emits it;
+ * the decision is reported as soon as its string closes, and the reasoning as
+ * it arrives, one delta per feed call.
+ * <p>
+ * Anything before the first '{' (a code fence, stray prose) and after the
+ * matching '}' is ignored. Values of other keys, nested or not, are skipped.
+ * Input that is not a JSON object stops the parser; the caller then falls
+ * back to parsing the whole content.
+ */
+public final class DecisionStreamParser {
+
+    public interface Listener {
+        void onDecision(String decision);
+
+        void onReasoning(String delta);
+    }
+
+    private static final Set<String> VALID_DECISIONS = Set.of("BUY", "SELL", "HOLD");
+
+    private enum State { BEFORE_OBJECT, KEY_OR_END, KEY, COLON, VALUE, STRING, LITERAL, NESTED, COMMA_OR_END, DONE, FAILED }
+
+    private final Listener listener;
+    private final StringBuilder key = new StringBuilder();
+    private final StringBuilder value = new StringBuilder();
+    private final StringBuilder delta = new StringBuilder();
+    private State state = State.BEFORE_OBJECT;
+
+    // string decoding, shared by keys, values and strings inside skipped values
+    private boolean escaped;
+    private int unicodeDigits = -1;
+    private int unicode;
+
+    // skipped object/array value
+    private int depth;
+    private boolean nestedString;
+
+    private String symbol;
+    private String decision;
+    private String reasoning;
+
+    public DecisionStreamParser(Listener listener) {
+        this.listener = listener;
+    }
+
+    public void feed(CharSequence chunk) {
+        for (int i = 0; i < chunk.length() && state != State.DONE && state != State.FAILED; i++) {
+            accept(chunk.charAt(i));
+        }
+        if (delta.length() > 0) {
+            listener.onReasoning(delta.toString());
+            delta.setLength(0);
+        }
+    }
+
+    /** Whether the whole object was read. */
+    public boolean isComplete() {
+        return state == State.DONE;
+    }
+
+    /** The decision, once read and valid (BUY, SELL or HOLD); null before that. */
+    public String decision() {
+        return decision;
+    }
+
+    /** The answer once the object is complete with a valid decision; null otherwise. */
+    public AIAnalysisResponse result() {
+        if (state != State.DONE || decision == null) return null;
+        AIAnalysisResponse response = new AIAnalysisResponse();
+        response.setSymbol(symbol);
+        response.setDecision(decision);
+        response.setReasoning(reasoning);
+        return response;
+    }
+
+    private void accept(char c) {
+        switch (state) {
+            case BEFORE_OBJECT -> {
+                if (c == '{') state = State.KEY_OR_END;
+            }
+            case KEY_OR_END -> {
+                if (c == '"') {
+                    key.setLength(0);
+                    state = State.KEY;
+                } else if (c == '}') {
+                    state = State.DONE;
+                } else if (!Character.isWhitespace(c)) {
+                    state = State.FAILED;
+                }
+            }
+            case KEY -> {
+                if (string(c, key)) state = State.COLON;
+            }
+            case COLON -> {
+                if (c == ':') state = State.VALUE;
+                else if (!Character.isWhitespace(c)) state = State.FAILED;
+            }
+            case VALUE -> {
+                if (c == '"') {
+                    value.setLength(0);
+                    state = State.STRING;
+                } else if (c == '{' || c == '[') {
+                    depth = 1;
+                    nestedString = false;
+                    state = State.NESTED;
+                } else if (!Character.isWhitespace(c)) {
+                    state = State.LITERAL;
+                }
+            }
+            case STRING -> {
+                int length = value.length();
+                if (string(c, value)) {
+                    field(key.toString(), value.toString());
+                    state = State.COMMA_OR_END;
+                } else if ("reasoning".contentEquals(key) && value.length() > length) {
+                    delta.append(value, length, value.length());
+                }
+            }
+            case LITERAL -> {
+                if (c == ',' || c == '}' || Character.isWhitespace(c)) {
+                    state = State.COMMA_OR_END;
+                    accept(c);
+                }
+            }
+            case NESTED -> {
+                if (nestedString) {
+                    if (string(c, null)) nestedString = false;
+                } else if (c == '"') {
+                    nestedString = true;
+                } else if (c == '{' || c == '[') {
+                    depth++;
+                } else if ((c == '}' || c == ']') && --depth == 0) {
+                    state = State.COMMA_OR_END;
+                }
+            }
+            case COMMA_OR_END -> {
+                if (c == ',') state = State.KEY_OR_END;
+                else if (c == '}') state = State.DONE;
+                else if (!Character.isWhitespace(c)) state = State.FAILED;
+            }
+            default -> { }
+        }
+    }
+
+    // Decodes one character of a string body into out (null: discard); true on the closing quote
+    private boolean string(char c, StringBuilder out) {
+        if (unicodeDigits >= 0) {
+            int digit = Character.digit(c, 16);
+            if (digit < 0) {
+                state = State.FAILED;
+                return false;
+            }
+            unicode = unicode * 16 + digit;
+            if (++unicodeDigits == 4) {
+                if (out != null) out.append((char) unicode);
+                unicodeDigits = -1;
+            }
+            return false;
+        }
+        if (escaped) {
+            escaped = false;
+            char decoded = switch (c) {
+                case 'n' -> '\n';
+                case 't' -> '\t';
+                case 'r' -> '\r';
+                case 'b' -> '\b';
+                case 'f' -> '\f';
+                case 'u' -> '\0';
+                default -> c; // \" \\ \/
+            };
+            if (c == 'u') {
+                unicodeDigits = 0;
+                unicode = 0;
+            } else if (out != null) {
+                out.append(decoded);
+            }
+            return false;
+        }
+        if (c == '\\') {
+            escaped = true;
+            return false;
+        }
+        if (c == '"') return true;
+        if (out != null) out.append(c);
+        return false;
+    }
+
+    private void field(String name, String text) {
+        switch (name) {
+            case "symbol" -> symbol = text;
+            case "reasoning" -> reasoning = text;
+            case "decision" -> {
+                String normalized = text.trim().toUpperCase(Locale.ROOT);
+                if (decision == null && VALID_DECISIONS.contains(normalized)) {
+                    decision = normalized;
+                    listener.onDecision(normalized);
+                }
+            }
+            default -> { }
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.stockapp.StockAggregator.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.stockapp.StockAggregator.indicator.IncrementalIndicator;
+import com.stockapp.StockAggregator.indicator.IndicatorSpec;
+import com.stockapp.StockAggregator.indicator.PriceSeries;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Computes RSI/SMA/EMA/MACD locally from one OHLCV history fetch per symbol.
+ * <p>
+ * All bars but the last are treated as closed and kept in a {@link PriceSeries};
+ * bars that appear in a refreshed history are appended incrementally. The last
+ * bar is the current, still-forming one: its close is replaced by the live
+ * price when there is one, and indicators are evaluated provisionally on top
+ * of the closed bars, which is O(1) per indicator.
+ */
+@Service
+public class IndicatorEngine {
+
+    private static final String[] ARRAY_FIELDS = {"data", "values", "candles", "bars", "history"};
+
+    private final StockDetailsClient client;
+    private final Map<String, SymbolState> states;
+
+    // Closed bars kept per symbol; bounds the longest period that can be warmed exactly
+    @Value("${stockdetailsapi.indicators.local.capacity:512}")
+    private int capacity;
+
+    public IndicatorEngine(StockDetailsClient client,
+                           @Value("${stockdetailsapi.indicators.local.max-symbols:2000}") int maxSymbols) {
+        this.client = client;
+        this.states = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, SymbolState> eldest) {
+                return size() > maxSymbols;
+            }
+        };
+    }
+
+    /**
+     * Brings the symbol's series up to date with the (cached) upstream history.
+     * Upstream failures propagate to the caller.
+     */
+    public void sync(String symbol) {
+        apply(symbol, client.history(symbol));
+    }
+
+    /** Non-blocking sync; the history is applied when it arrives. */
+    public CompletableFuture<Void> syncAsync(String symbol) {
+        return client.historyAsync(symbol).thenAccept(history -> apply(symbol, history));
+    }
+
+    private void apply(String symbol, JsonNode history) {
+        SymbolState state = state(symbol);
+        synchronized (state) {
+            state.apply(history, capacity);
+        }
+    }
+
+    /**
+     * Evaluates the specs with livePrice as the close of the current bar (the last
+     * history close when livePrice is null). Each value array holds one number,
+     * or {macd, signal, histogram} for MACD. Specs without enough history are left out.
+     */
+    public Map<IndicatorSpec, double[]> evaluate(String symbol, List<IndicatorSpec> specs, Double livePrice) {
+        Map<IndicatorSpec, double[]> values = new LinkedHashMap<>();
+        SymbolState state = state(symbol);
+        synchronized (state) {
+            if (state.series == null) return values;
+            double price = livePrice != null ? livePrice : state.currentClose;
+            for (IndicatorSpec spec : specs) {
+                IncrementalIndicator indicator = state.series.indicator(spec);
+                double[] out = new double[indicator.width()];
+                boolean ready = Double.isNaN(price) ? indicator.current(out) : indicator.provisional(price, out);
+                if (ready) values.put(spec, out);
+            }
+        }
+        return values;
+    }
+
+    /** Closes of the closed bars in a history payload, oldest first (the last, still-forming bar is left out). */
+    public static double[] closedBars(JsonNode history) {
+        if (history == null) return new double[0];
+        List<String> keys = new ArrayList<>();
+        List<Double> closes = new ArrayList<>();
+        SymbolState.readBars(history, keys, closes);
+        double[] out = new double[Math.max(0, closes.size() - 1)];
+        for (int i = 0; i < out.length; i++) out[i] = closes.get(i);
+        return out;
+    }
+
+    private SymbolState state(String symbol) {
+        synchronized (states) {
+            return states.computeIfAbsent(symbol, s -> new SymbolState());
+        }
+    }
+
+    private static final class SymbolState {
+        PriceSeries series;
+        JsonNode lastHistory;      // instance last applied; the client cache returns the same one until refreshed
+        String lastClosedKey;      // date/timestamp of the newest closed bar in series
+        double currentClose = Double.NaN;
+
+        void apply(JsonNode history, int capacity) {
+            if (history == null || history == lastHistory) return;
+            lastHistory = history;
+
+            List<String> keys = new ArrayList<>();
+            List<Double> closes = new ArrayList<>();
+            readBars(history, keys, closes);
+            if (closes.isEmpty()) return;
+
+            int closed = closes.size() - 1;
+            currentClose = closes.get(closed);
+
+            int from = -1;
+            if (series != null && lastClosedKey != null) {
+                int known = keys.lastIndexOf(lastClosedKey);
+                if (known >= 0 && known < closed) from = known + 1;
+                else if (known == closed) from = closed; // nothing new has closed
+            }
+            if (from < 0) { // first load, or the history no longer overlaps: rebuild
+                series = new PriceSeries(capacity);
+                from = 0;
+            }
+            for (int i = from; i < closed; i++) {
+                series.append(closes.get(i));
+            }
+            lastClosedKey = closed > 0 ? keys.get(closed - 1) : null;
+        }
+
+        private static void readBars(JsonNode history, List<String> keys, List<Double> closes) {
+            JsonNode bars = history;
+            if (!bars.isArray()) {
+                for (String field : ARRAY_FIELDS) {
+                    if (history.path(field).isArray()) {
+                        bars = history.get(field);
+                        break;
+                    }
+                }
+            }
+            if (!bars.isArray()) return;
+
+            for (JsonNode bar : bars) {
+                JsonNode close = bar.has("close") ? bar.get("close") : bar.path("c");
+                if (!close.isNumber() && !close.isTextual()) continue;
+                String key = bar.has("date") ? bar.get("date").asText()
+                        : bar.has("timestamp") ? bar.get("timestamp").asText()
+                        : bar.path("time").asText(null);
+                keys.add(key);
+                closes.add(close.asDouble());
+            }
+            // oldest first; some feeds return newest first
+            if (keys.size() > 1 && keys.get(0) != null && keys.get(keys.size() - 1) != null
+                    && keys.get(0).compareTo(keys.get(keys.size() - 1)) > 0) {
+                Collections.reverse(keys);
+                Collections.reverse(closes);
+            }
+        }
+    }
+}
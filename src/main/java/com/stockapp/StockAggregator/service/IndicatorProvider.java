@@ -0,0 +1,54 @@
+package com.stockapp.StockAggregator.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.stockapp.StockAggregator.dto.StockAnalysisDTO;
+import com.stockapp.StockAggregator.indicator.IndicatorSpec;
+
+import java.util.Set;
+
+/**
+ * One indicator of the rule-based analysis. Besides the built-in ones that
+ * IndicatorRegistry creates from the indicator settings, every bean of this
+ * type is picked up, so an indicator is added by declaring a component.
+ * <p>
+ * An analysis fetches the union of its providers' dependencies once, then
+ * hands every provider the same inputs.
+ */
+public interface IndicatorProvider {
+
+    // Upstream sections a provider can depend on
+    String LIVE = "live";
+    String TODAY = "today";
+    String WEEK52 = "52week";
+    String FUNDAMENTALS = "fundamentals";
+    String HISTORY = "history"; // OHLCV history applied to IndicatorEngine
+
+    /** Section of a StockDetails indicator endpoint, e.g. indicators/sma:20. */
+    static String indicator(String spec) {
+        return "indicators/" + spec;
+    }
+
+    /** Key in StockAnalysisDTO.indicators and in ?indicators=. */
+    String key();
+
+    /** Sections read by interpret. */
+    Set<String> dependencies();
+
+    /** Weight of the recommendation in the combined score; 0 reports the indicator without scoring it. */
+    double weight();
+
+    /** The interpreted indicator, or null when its inputs are missing. */
+    StockAnalysisDTO.IndicatorDetail interpret(Inputs inputs);
+
+    interface Inputs {
+        String symbol();
+
+        /** A fetched section as JSON; null when it is missing or was not a dependency. */
+        JsonNode json(String section);
+
+        Double livePrice();
+
+        /** Value of a spec computed by IndicatorEngine (see evaluate); null without synced history. */
+        double[] local(IndicatorSpec spec);
+    }
+}
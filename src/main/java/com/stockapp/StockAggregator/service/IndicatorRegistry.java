@@ -0,0 +1,107 @@
+package com.stockapp.StockAggregator.service;
+
+import com.stockapp.StockAggregator.dto.StockAnalysisDTO;
+import com.stockapp.StockAggregator.indicator.IndicatorSpec;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The indicators an analysis can compute, by key. Built-in providers come from
+ * the indicator source: the four classic StockDetails endpoints (remote) or
+ * stockdetailsapi.indicators.local.specs (local), weighted as in
+ * StrategyParameters.DEFAULT. IndicatorProvider beans are added after them and
+ * replace a built-in with the same key.
+ */
+@Component
+public class IndicatorRegistry {
+
+    // Spec names as the StockDetails indicator endpoints expect them
+    private static final String[] REMOTE_SPECS = {"rsi", "sma:20", "ema:14", "macd:12:26:9"};
+
+    private final boolean local;
+    private final Map<String, IndicatorProvider> providers = new LinkedHashMap<>();
+    private final IndicatorProvider[] ordered;
+
+    @Autowired
+    public IndicatorRegistry(@Value("${stockdetailsapi.indicators.source:remote}") String source,
+                             @Value("${stockdetailsapi.indicators.local.specs:rsi:14,sma:20,ema:14,macd:12:26:9}") String[] localSpecs,
+                             ObjectProvider<IndicatorProvider> beans) {
+        this("local".equalsIgnoreCase(source), localSpecs, beans.orderedStream().toList());
+    }
+
+    IndicatorRegistry(boolean local, String[] localSpecs, List<IndicatorProvider> extra) {
+        this.local = local;
+        for (String name : local ? localSpecs : REMOTE_SPECS) {
+            double weight = classicWeight(IndicatorSpec.parse(name).key());
+            register(local ? SpecIndicatorProvider.local(name, weight) : SpecIndicatorProvider.remote(name, weight));
+        }
+        for (IndicatorProvider provider : extra) register(provider);
+        this.ordered = providers.values().toArray(IndicatorProvider[]::new);
+    }
+
+    // Only the classic settings are scored, as they were before providers; other periods are reported unweighted
+    private static double classicWeight(String key) {
+        StrategyParameters p = StrategyParameters.DEFAULT;
+        return switch (key) {
+            case "rsi" -> p.rsiWeight();
+            case "sma_20" -> p.smaWeight();
+            case "ema_14" -> p.emaWeight();
+            case "macd" -> p.macdWeight();
+            default -> 0.0;
+        };
+    }
+
+    private void register(IndicatorProvider provider) {
+        providers.remove(provider.key()); // a replacement goes to the end, like any added provider
+        providers.put(provider.key(), provider);
+    }
+
+    /** Whether the built-in indicators are computed locally from the OHLCV history. */
+    public boolean isLocal() {
+        return local;
+    }
+
+    public List<IndicatorProvider> all() {
+        return List.of(ordered);
+    }
+
+    /** Providers for the given keys (case-insensitive), in registry order; 400 for an unknown key. */
+    public List<IndicatorProvider> select(Collection<String> keys) {
+        List<String> wanted = new ArrayList<>();
+        for (String key : keys) {
+            String k = key.trim().toLowerCase(Locale.ROOT);
+            if (k.isEmpty()) continue;
+            if (!providers.containsKey(k)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Unknown indicator: " + key + " (available: " + String.join(",", providers.keySet()) + ")");
+            }
+            wanted.add(k);
+        }
+        List<IndicatorProvider> selected = new ArrayList<>();
+        for (IndicatorProvider provider : ordered) {
+            if (wanted.contains(provider.key())) selected.add(provider);
+        }
+        return selected;
+    }
+
+    /** Weighted sum of the recommendations of the registered indicators present; allocation-free. */
+    public double score(Map<String, StockAnalysisDTO.IndicatorDetail> indicators) {
+        double score = 0.0;
+        for (IndicatorProvider provider : ordered) {
+            StockAnalysisDTO.IndicatorDetail detail = indicators.get(provider.key());
+            if (detail != null) score += detail.getScore() * provider.weight();
+        }
+        return score;
+    }
+}
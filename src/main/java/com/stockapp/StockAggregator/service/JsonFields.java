@@ -0,0 +1,79 @@
+package com.stockapp.StockAggregator.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Set;
+
+/**
+ * Streaming reader that keeps only the named top-level scalar fields of an
+ * upstream body. Nested objects and arrays, and any other fields, are skipped
+ * without being materialized. Also checks bodies that are passed through raw.
+ */
+final class JsonFields {
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+    private static final JsonNodeFactory NODES = JsonNodeFactory.instance;
+
+    private JsonFields() {
+    }
+
+    /**
+     * Fails unless the body is exactly one complete JSON value (an HTML error
+     * page or a truncated document is not), without building it.
+     */
+    static void requireSingleValue(byte[] body) {
+        try (JsonParser parser = FACTORY.createParser(body)) {
+            if (parser.nextToken() == null) throw new IOException("empty body");
+            parser.skipChildren();
+            if (parser.nextToken() != null) throw new IOException("content after the value");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Malformed upstream JSON: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Object holding the selected fields that are present. A bare number body is
+     * returned as a number node; a body of any other shape gives an empty object.
+     * Selected fields holding a container read as 0, as JsonNode.asDouble() would.
+     */
+    static JsonNode select(byte[] body, Set<String> fields) {
+        if (body == null || body.length == 0) return null;
+        ObjectNode selected = NODES.objectNode();
+        try (JsonParser parser = FACTORY.createParser(body)) {
+            JsonToken root = parser.nextToken();
+            if (root == JsonToken.VALUE_NUMBER_INT || root == JsonToken.VALUE_NUMBER_FLOAT) {
+                return NODES.numberNode(parser.getDoubleValue());
+            }
+            if (root != JsonToken.START_OBJECT) return selected;
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (!fields.contains(name)) {
+                    parser.skipChildren();
+                    continue;
+                }
+                switch (value) {
+                    case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> selected.put(name, parser.getDoubleValue());
+                    case VALUE_STRING -> selected.put(name, parser.getText());
+                    case VALUE_TRUE, VALUE_FALSE -> selected.put(name, parser.getBooleanValue());
+                    case VALUE_NULL -> selected.putNull(name);
+                    default -> {
+                        parser.skipChildren();
+                        selected.put(name, 0.0);
+                    }
+                }
+            }
+            return selected;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Malformed upstream JSON: " + e.getMessage(), e);
+        }
+    }
+}
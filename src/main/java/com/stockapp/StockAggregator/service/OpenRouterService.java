@@ -1,15 +1,29 @@
 package com.stockapp.StockAggregator.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.stockapp.StockAggregator.dto.AIAnalysisResponse;
 import com.stockapp.StockAggregator.dto.StockAnalysisDTO;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Sends aggregated DTO to OpenRouter (AI reasoning) and parses response.
@@ -17,80 +31,498 @@ import java.util.*;
 @Service
 public class OpenRouterService {
 
+    private static final Logger log = LoggerFactory.getLogger(OpenRouterService.class);
+
     @Value("${openrouter.api.url}")
     private String openRouterUrl;
 
     @Value("${openrouter.api.key}")
     private String openRouterKey;
 
+    // Per-request timeout of the async client
+    @Value("${upstream.openrouter.read-timeout-ms:30000}")
+    private long readTimeoutMs;
+
+    private static final String REFERER = "http://localhost:8080";
+    private static final String TITLE = "StockAggregator";
+
     private final RestTemplate restTemplate;
+    private final HttpClient httpClient;
+    private final AIDecisionCache decisionCache;
+    private final PipelineMetrics metrics;
     private final ObjectMapper mapper = new ObjectMapper();
+    private final SingleFlight<String, AIAnalysisResponse> inFlight = new SingleFlight<>();
+
+    // Pack several symbols into one completion for batch requests
+    @Value("${openrouter.batch.enabled:true}")
+    private boolean batchEnabled;
+
+    @Value("${openrouter.batch.max-size:20}")
+    private int batchMaxSize;
+
+    // Upper bound on the estimated prompt tokens of one batched completion
+    @Value("${openrouter.batch.token-budget:6000}")
+    private int batchTokenBudget;
+
+    // compact (rounded, derived texts dropped, budgeted, static system prefix) or verbose (the whole DTO)
+    @Value("${openrouter.prompt.format:compact}")
+    private String promptFormat;
+
+    // Estimated tokens of one symbol's data in a compact prompt; fundamentals are trimmed to fit
+    @Value("${openrouter.prompt.token-budget:400}")
+    private int promptTokenBudget;
 
-    public OpenRouterService(RestTemplate restTemplate) {
+    // Fundamentals fields sent in compact prompts; empty sends every short scalar field
+    @Value("${openrouter.prompt.fundamentals-fields:}")
+    private String[] fundamentalsFields;
+
+    @Value("${openrouter.prompt.max-text-length:40}")
+    private int maxTextLength;
+
+    @Value("${openrouter.prompt.significant-digits:5}")
+    private int significantDigits;
+
+    // The saved-tokens metric serializes the DTOs once more, so only every n-th prompt is measured (0: never)
+    @Value("${openrouter.prompt.savings-sample-every:100}")
+    private int savingsSampleEvery;
+
+    private PromptEncoder encoder;
+    private final AtomicLong promptCount = new AtomicLong();
+
+    private static final Set<String> VALID_DECISIONS = Set.of("BUY", "SELL", "HOLD");
+
+    public OpenRouterService(@Qualifier("openRouterRestTemplate") RestTemplate restTemplate,
+                             @Qualifier("asyncHttpClient") HttpClient httpClient,
+                             AIDecisionCache decisionCache, PipelineMetrics metrics) {
         this.restTemplate = restTemplate;
+        this.httpClient = httpClient;
+        this.decisionCache = decisionCache;
+        this.metrics = metrics;
+    }
+
+    @PostConstruct
+    void init() {
+        Set<String> fields = new HashSet<>();
+        for (String field : fundamentalsFields) {
+            if (!field.isBlank()) fields.add(field.trim());
+        }
+        encoder = new PromptEncoder(promptFormat, promptTokenBudget, fields, maxTextLength, significantDigits);
     }
 
     /**
      * Sends stock analysis to OpenRouter and expects a JSON object back:
      * { "symbol": "...", "decision": "BUY|SELL|HOLD", "reasoning": "..." }
+     * Answers for an equivalent DTO (same fingerprint) come from the decision cache,
+     * and concurrent calls with the same fingerprint share one OpenRouter request.
      */
     public AIAnalysisResponse askAIForDecision(StockAnalysisDTO dto) throws Exception {
-        String userPrompt = "You are a highly skilled financial analyst. Carefully analyze the following stock analysis JSON data. " +
-                "Your task is to return a response strictly as a valid JSON object in the following format (no extra text, no explanations outside JSON): " +
-                "{\"symbol\":\"<symbol>\", \"decision\":\"BUY|SELL|HOLD\", \"reasoning\":\"<clear and concise reasoning using fundamentals and indicators>\"}. " +
-                "Make sure the reasoning is short, precise, and directly supports the decision. " +
-                "Here is the data: " + mapper.writeValueAsString(dto);
-
-        Map<String, Object> messageSystem = Map.of(
-                "role", "system",
-                "content", "You are a senior institutional equity analyst."
-        );
-        Map<String, Object> messageUser = Map.of(
-                "role", "user",
-                "content", userPrompt
-        );
-        List<Map<String, Object>> messages = List.of(messageSystem, messageUser);
+        String fingerprint = decisionCache.fingerprint(dto);
+        AIAnalysisResponse cached = decisionCache.get(fingerprint);
+        if (cached != null) return cached;
+        return inFlight.execute(fingerprint, () -> requestDecision(dto, fingerprint));
+    }
 
-        Map<String, Object> body = new HashMap<>();
-        body.put("model", "gpt-4o-mini"); // OpenRouter supports many models
-        body.put("messages", messages);
-        body.put("temperature", 0.0);
+    /**
+     * Non-blocking askAIForDecision for pipeline.mode=async: same cache and
+     * coalescing, with the completion sent over the async client.
+     */
+    public CompletableFuture<AIAnalysisResponse> askAIForDecisionAsync(StockAnalysisDTO dto) {
+        String fingerprint = decisionCache.fingerprint(dto);
+        AIAnalysisResponse cached = decisionCache.get(fingerprint);
+        if (cached != null) return CompletableFuture.completedFuture(cached);
+        return inFlight.executeAsync(fingerprint, () -> requestDecisionAsync(dto, fingerprint));
+    }
+
+    /**
+     * Streaming askAIForDecision: the completion is requested with stream=true and
+     * its content parsed as it arrives, so listener.onDecision fires as soon as the
+     * model has written the decision, ahead of the reasoning, which follows as
+     * onReasoning deltas. The future completes with the whole answer, cached like
+     * askAIForDecision's; a cached answer is replayed to the listener at once.
+     * An answer that is not a strict JSON decision gets the usual HOLD fallback,
+     * reported to the listener at the end, also when it replaces a decision the
+     * parser had already emitted, so the last onDecision is always the result's.
+     */
+    public CompletableFuture<AIAnalysisResponse> streamDecision(StockAnalysisDTO dto, DecisionStreamParser.Listener listener) {
+        String fingerprint = decisionCache.fingerprint(dto);
+        AIAnalysisResponse cached = decisionCache.get(fingerprint);
+        if (cached != null) {
+            listener.onDecision(cached.getDecision());
+            if (cached.getReasoning() != null) listener.onReasoning(cached.getReasoning());
+            return CompletableFuture.completedFuture(cached);
+        }
+        HttpRequest request;
+        try {
+            Map<String, Object> body = completionBody(decisionPrompt(dto));
+            body.put("stream", true);
+            body.put("usage", Map.of("include", true)); // token usage arrives with the last chunk
+            request = completionRequest(body);
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        long start = System.nanoTime();
+        DecisionStreamParser parser = new DecisionStreamParser(new DecisionStreamParser.Listener() {
+            @Override
+            public void onDecision(String decision) {
+                metrics.timeToDecision(System.nanoTime() - start);
+                listener.onDecision(decision);
+            }
+
+            @Override
+            public void onReasoning(String delta) {
+                listener.onReasoning(delta);
+            }
+        });
+        CompletionStream stream = new CompletionStream(parser);
+        return metrics.completionAsync("stream", encoder.format(),
+                        () -> httpClient.sendAsync(request, HttpResponse.BodyHandlers.fromLineSubscriber(stream)))
+                .thenApply(response -> {
+                    if (response.statusCode() / 100 != 2 || stream.error != null) {
+                        throw new RuntimeException("OpenRouter request failed: " + response.statusCode() + " "
+                                + (stream.error != null ? stream.error : stream.other));
+                    }
+                    AIAnalysisResponse result = parser.result();
+                    if (result != null && validDecision(result.getDecision(), result.getReasoning()) != null) {
+                        if (result.getSymbol() == null) result.setSymbol(dto.getSymbol());
+                        decisionCache.put(fingerprint, result);
+                        return result;
+                    }
+                    result = toDecision(dto, fingerprint, trimCodeFences(stream.content.toString().trim()).trim());
+                    if (!result.getDecision().equals(parser.decision())) listener.onDecision(result.getDecision());
+                    return result;
+                });
+    }
+
+    /**
+     * Asks for several decisions at once. DTOs are packed into as few completions
+     * as the batch token budget allows, each answered with a JSON array of
+     * {symbol, decision, reasoning}. Cached DTOs are not sent at all, and any
+     * symbol whose item is missing or malformed falls back to askAIForDecision.
+     * When a batch completion fails outright (OpenRouter down, timeout, 5xx),
+     * its symbols get an uncached HOLD instead, so an outage costs one failed
+     * call per chunk rather than one per symbol. Results are returned in the
+     * order of the input list.
+     */
+    public List<AIAnalysisResponse> askAIForDecisions(List<StockAnalysisDTO> dtos) throws Exception {
+        AIAnalysisResponse[] results = new AIAnalysisResponse[dtos.size()];
+        String[] fingerprints = new String[dtos.size()];
+        PromptEncoder.Encoded[] items = new PromptEncoder.Encoded[dtos.size()];
+
+        List<List<Integer>> chunks = new ArrayList<>();
+        List<Integer> chunk = new ArrayList<>();
+        int chunkTokens = encoder.batchPrefixTokens();
+        for (int i = 0; i < dtos.size(); i++) {
+            fingerprints[i] = decisionCache.fingerprint(dtos.get(i));
+            results[i] = decisionCache.get(fingerprints[i]);
+            if (results[i] != null) continue;
+
+            items[i] = encoder.encode(dtos.get(i));
+            int tokens = items[i].tokens() + 1;
+            if (!chunk.isEmpty() && (chunk.size() >= batchMaxSize || chunkTokens + tokens > batchTokenBudget)) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>();
+                chunkTokens = encoder.batchPrefixTokens();
+            }
+            chunk.add(i);
+            chunkTokens += tokens;
+        }
+        if (!chunk.isEmpty()) chunks.add(chunk);
+
+        for (List<Integer> indexes : chunks) {
+            if (indexes.size() == 1) continue; // a single symbol goes through the regular path below
+            requestDecisions(dtos, indexes, items, fingerprints, results);
+        }
+
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] == null) results[i] = askAIForDecision(dtos.get(i));
+        }
+        return Arrays.asList(results);
+    }
+
+    public boolean isBatchEnabled() { return batchEnabled; }
+
+    public int getBatchMaxSize() { return batchMaxSize; }
+
+    private AIAnalysisResponse requestDecision(StockAnalysisDTO dto, String fingerprint) throws Exception {
+        return toDecision(dto, fingerprint, complete("single", decisionPrompt(dto)));
+    }
+
+    private CompletableFuture<AIAnalysisResponse> requestDecisionAsync(StockAnalysisDTO dto, String fingerprint) {
+        PromptEncoder.Prompt prompt;
+        try {
+            prompt = decisionPrompt(dto);
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return completeAsync("single", prompt).thenApply(cleaned -> toDecision(dto, fingerprint, cleaned));
+    }
+
+    private PromptEncoder.Prompt decisionPrompt(StockAnalysisDTO dto) throws JsonProcessingException {
+        PromptEncoder.Prompt prompt = encoder.single(encoder.encode(dto));
+        recordPrompt(List.of(dto), prompt);
+        return prompt;
+    }
+
+    private void recordPrompt(List<StockAnalysisDTO> dtos, PromptEncoder.Prompt prompt) throws JsonProcessingException {
+        metrics.prompt(encoder.format(), prompt.tokens());
+        if (savingsSampleEvery > 0 && promptCount.getAndIncrement() % savingsSampleEvery == 0) {
+            metrics.promptSaved(encoder.format(), encoder.savedTokens(dtos, prompt));
+        }
+    }
+
+    private AIAnalysisResponse toDecision(StockAnalysisDTO dto, String fingerprint, String cleaned) {
+        AIAnalysisResponse result;
+        try {
+            result = parseDecision(cleaned);
+        } catch (Exception ex) {
+            result = null;
+        }
+        String decision = result == null ? null : validDecision(result.getDecision(), result.getReasoning());
+        if (decision == null) {
+            // Not cached: a malformed answer must not be repeated for the whole TTL
+            metrics.invalidAiResponse();
+            result = new AIAnalysisResponse();
+            result.setSymbol(dto.getSymbol());
+            result.setDecision("HOLD");
+            result.setReasoning("AI did not return a strict JSON decision. Raw response: " + cleaned);
+            return result;
+        }
+        result.setDecision(decision);
+        decisionCache.put(fingerprint, result);
+        return result;
+    }
+
+    /**
+     * The rule every answer must pass before it is used or cached: a decision of
+     * BUY, SELL or HOLD in any case, with some reasoning. Returns the decision
+     * upper-cased, or null when the answer fails.
+     */
+    static String validDecision(String decision, String reasoning) {
+        if (decision == null || reasoning == null || reasoning.isBlank()) return null;
+        String normalized = decision.trim().toUpperCase(Locale.ROOT);
+        return VALID_DECISIONS.contains(normalized) ? normalized : null;
+    }
+
+    /**
+     * One completion for the DTOs at the given indexes. Fills results for every
+     * well-formed item; anything else in an answer is left null for the
+     * per-symbol fallback. If no answer arrives, every item gets a HOLD.
+     */
+    private void requestDecisions(List<StockAnalysisDTO> dtos, List<Integer> indexes, PromptEncoder.Encoded[] encoded,
+                                  String[] fingerprints, AIAnalysisResponse[] results) {
+        String answer;
+        try {
+            List<PromptEncoder.Encoded> chunk = new ArrayList<>(indexes.size());
+            List<StockAnalysisDTO> chunkDtos = new ArrayList<>(indexes.size());
+            for (int i : indexes) {
+                chunk.add(encoded[i]);
+                chunkDtos.add(dtos.get(i));
+            }
+            PromptEncoder.Prompt prompt = encoder.batch(chunk);
+            recordPrompt(chunkDtos, prompt);
+            answer = complete("batch", prompt);
+        } catch (Exception e) {
+            // Retrying symbol by symbol would multiply the outage; answer the chunk with HOLD
+            log.warn("Batch completion for {} symbols failed: {}", indexes.size(), e.toString());
+            for (int i : indexes) results[i] = unavailable(dtos.get(i), e);
+            return;
+        }
+        JsonNode items;
+        try {
+            items = mapper.readTree(answer);
+        } catch (Exception e) {
+            items = null;
+        }
+        if (items == null || !items.isArray()) {
+            metrics.invalidAiResponse();
+            return;
+        }
+
+        for (JsonNode item : items) {
+            String symbol = item.path("symbol").asText("");
+            String reasoning = item.path("reasoning").asText("");
+            String decision = validDecision(item.path("decision").asText(""), reasoning);
+            if (decision == null) continue;
+
+            for (int i : indexes) {
+                if (results[i] == null && symbol.equalsIgnoreCase(dtos.get(i).getSymbol())) {
+                    AIAnalysisResponse result = new AIAnalysisResponse();
+                    result.setSymbol(dtos.get(i).getSymbol());
+                    result.setDecision(decision);
+                    result.setReasoning(reasoning);
+                    decisionCache.put(fingerprints[i], result);
+                    results[i] = result;
+                    break;
+                }
+            }
+        }
+    }
+
+    // Not cached: the next request asks again
+    private static AIAnalysisResponse unavailable(StockAnalysisDTO dto, Exception cause) {
+        AIAnalysisResponse result = new AIAnalysisResponse();
+        result.setSymbol(dto.getSymbol());
+        result.setDecision("HOLD");
+        result.setReasoning("AI analysis unavailable: " + cause.getMessage());
+        return result;
+    }
 
+    /**
+     * Sends one chat completion and returns the model's answer with code fences removed.
+     * kind (single or batch) tags the latency metric and span.
+     */
+    private String complete(String kind, PromptEncoder.Prompt prompt) throws Exception {
         // Required headers for OpenRouter
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
         headers.setBearerAuth(openRouterKey);
-        headers.set("HTTP-Referer", "http://localhost:8080"); // use your deployed backend domain in production
-        headers.set("X-Title", "StockAggregator");
+        headers.set("HTTP-Referer", REFERER); // use your deployed backend domain in production
+        headers.set("X-Title", TITLE);
 
-        HttpEntity<Map<String, Object>> request = new HttpEntity<>(body, headers);
+        HttpEntity<Map<String, Object>> request = new HttpEntity<>(completionBody(prompt), headers);
+
+        String responseBody = metrics.completion(kind, encoder.format(), () -> {
+            ResponseEntity<String> response = restTemplate.postForEntity(openRouterUrl, request, String.class);
+            if (!response.getStatusCode().is2xxSuccessful()) {
+                throw new RuntimeException("OpenRouter request failed: " + response.getStatusCodeValue() + " " + response.getBody());
+            }
+            return response.getBody();
+        });
+        return answer(responseBody);
+    }
 
-        ResponseEntity<String> response = restTemplate.postForEntity(openRouterUrl, request, String.class);
-        if (!response.getStatusCode().is2xxSuccessful()) {
-            throw new RuntimeException("OpenRouter request failed: " + response.getStatusCodeValue() + " " + response.getBody());
+    /** Non-blocking complete over the async client; no thread waits for the model. */
+    private CompletableFuture<String> completeAsync(String kind, PromptEncoder.Prompt prompt) {
+        HttpRequest request;
+        try {
+            request = completionRequest(completionBody(prompt));
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(e);
         }
+        return metrics.completionAsync(kind, encoder.format(), () -> httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString()))
+                .thenApply(response -> {
+                    if (response.statusCode() / 100 != 2) {
+                        throw new RuntimeException("OpenRouter request failed: " + response.statusCode() + " " + response.body());
+                    }
+                    try {
+                        return answer(response.body());
+                    } catch (JsonProcessingException e) {
+                        throw new CompletionException(e);
+                    }
+                });
+    }
+
+    private HttpRequest completionRequest(Map<String, Object> body) throws JsonProcessingException {
+        return HttpRequest.newBuilder(URI.create(openRouterUrl))
+                .timeout(Duration.ofMillis(readTimeoutMs))
+                .header("Content-Type", "application/json")
+                .header("Authorization", "Bearer " + openRouterKey)
+                .header("HTTP-Referer", REFERER)
+                .header("X-Title", TITLE)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(mapper.writeValueAsBytes(body)))
+                .build();
+    }
 
-        JsonNode root = mapper.readTree(response.getBody());
+    private Map<String, Object> completionBody(PromptEncoder.Prompt prompt) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("model", "gpt-4o-mini"); // OpenRouter supports many models
+        body.put("messages", prompt.messages());
+        body.put("temperature", 0.0);
+        return body;
+    }
+
+    // Records token usage and returns the model's answer
+    private String answer(String responseBody) throws JsonProcessingException {
+        JsonNode root = mapper.readTree(responseBody);
+        JsonNode usage = root.path("usage");
+        if (usage.isObject()) {
+            metrics.tokens(usage.path("prompt_tokens").asLong(-1), usage.path("completion_tokens").asLong(-1));
+        }
+        return extractContent(root);
+    }
+
+    /** The answer text of a chat completion response body, code fences removed. */
+    String extractContent(String responseBody) throws JsonProcessingException {
+        return extractContent(mapper.readTree(responseBody));
+    }
+
+    private String extractContent(JsonNode root) {
         JsonNode contentNode = root.path("choices").get(0).path("message").path("content");
         String content = contentNode.isMissingNode()
                 ? root.path("choices").get(0).path("text").asText()
                 : contentNode.asText();
 
-        String cleaned = trimCodeFences(content).trim();
+        return trimCodeFences(content).trim();
+    }
 
-        AIAnalysisResponse result;
-        try {
-            result = mapper.readValue(cleaned, AIAnalysisResponse.class);
-        } catch (Exception ex) {
-            result = new AIAnalysisResponse();
-            result.setSymbol(dto.getSymbol());
-            result.setDecision("HOLD");
-            result.setReasoning("AI did not return strict JSON. Raw response: " + cleaned);
+    AIAnalysisResponse parseDecision(String cleaned) throws JsonProcessingException {
+        return mapper.readValue(cleaned, AIAnalysisResponse.class);
+    }
+
+    /**
+     * Reads the server-sent events of a streamed completion line by line: each
+     * "data:" chunk's choices[0].delta.content goes to the parser and is kept
+     * for the fallback; usage and error chunks are picked up on the way. Lines
+     * are delivered by the client's executor, never on a waiting thread.
+     */
+    private final class CompletionStream implements Flow.Subscriber<String> {
+        private final DecisionStreamParser parser;
+        final StringBuilder content = new StringBuilder();
+        final StringBuilder other = new StringBuilder(); // a non-SSE body, e.g. the error of a 4xx
+        volatile String error;
+
+        CompletionStream(DecisionStreamParser parser) {
+            this.parser = parser;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(String line) {
+            if (!line.startsWith("data:")) {
+                // ":" lines are keep-alive comments
+                if (!line.startsWith(":") && other.length() < 2000) other.append(line);
+                return;
+            }
+            String data = line.substring(5).trim();
+            if (data.isEmpty() || data.equals("[DONE]")) return;
+            JsonNode chunk;
+            try {
+                chunk = mapper.readTree(data);
+            } catch (JsonProcessingException e) {
+                return;
+            }
+            if (chunk.has("error")) {
+                error = chunk.path("error").path("message").asText(chunk.path("error").toString());
+                return;
+            }
+            JsonNode usage = chunk.path("usage");
+            if (usage.isObject()) {
+                metrics.tokens(usage.path("prompt_tokens").asLong(-1), usage.path("completion_tokens").asLong(-1));
+            }
+            JsonNode delta = chunk.path("choices").path(0).path("delta").path("content");
+            if (delta.isTextual()) {
+                String text = delta.asText();
+                content.append(text);
+                parser.feed(text);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            // the response future fails with the same error
+        }
+
+        @Override
+        public void onComplete() {
         }
-        return result;
     }
 
-    private String trimCodeFences(String text) {
+    String trimCodeFences(String text) {
         if (text.startsWith("```")) {
             int idx = text.indexOf("\n");
             if (idx > 0) text = text.substring(idx + 1);
@@ -0,0 +1,219 @@
+package com.stockapp.StockAggregator.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.apache.hc.client5.http.ConnectTimeoutException;
+import org.springframework.stereotype.Component;
+
+import java.net.SocketTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Meters and spans for each stage of the analysis pipeline, exposed through
+ * the actuator (/actuator/prometheus). Observations produce both a timer (with
+ * an error tag) and a trace span; counters cover what observations can't see:
+ * timeouts decided by the caller, swallowed indicator failures and the AI
+ * strict-JSON fallback.
+ * <p>
+ * Tag values are endpoint and indicator names only; symbols go on spans as
+ * high-cardinality values and never into metric tags.
+ */
+@Component
+public class PipelineMetrics {
+
+    private final MeterRegistry meters;
+    private final ObservationRegistry observations;
+
+    public PipelineMetrics(MeterRegistry meters, ObservationRegistry observations) {
+        this.meters = meters;
+        this.observations = observations;
+    }
+
+    /** One StockDetails HTTP call (cache misses and background refreshes only). */
+    public <T> T upstream(String endpoint, String symbol, Supplier<T> call) {
+        try {
+            return Observation.createNotStarted("stockdetails.upstream", observations)
+                    .lowCardinalityKeyValue("endpoint", endpoint)
+                    .highCardinalityKeyValue("symbol", symbol)
+                    .observe(call);
+        } catch (RuntimeException e) {
+            upstreamError(endpoint, errorType(e));
+            throw e;
+        }
+    }
+
+    /** Async variant of upstream: the observation ends when the future completes. */
+    public <T> CompletableFuture<T> upstreamAsync(String endpoint, String symbol, Supplier<CompletableFuture<T>> call) {
+        Observation observation = Observation.createNotStarted("stockdetails.upstream", observations)
+                .lowCardinalityKeyValue("endpoint", endpoint)
+                .highCardinalityKeyValue("symbol", symbol);
+        return observeAsync(observation, call).whenComplete((value, error) -> {
+            if (error != null) upstreamError(endpoint, errorType(error));
+        });
+    }
+
+    /**
+     * type tag of a failed call: timeout when any cause is a socket, HTTP or
+     * future timeout (RestTemplate wraps a read timeout in ResourceAccessException,
+     * the async client fails with HttpTimeoutException), error otherwise.
+     */
+    static String errorType(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof SocketTimeoutException || t instanceof HttpTimeoutException
+                    || t instanceof TimeoutException || t instanceof ConnectTimeoutException) {
+                return "timeout";
+            }
+        }
+        return "error";
+    }
+
+    /** A section whose call missed its own or the request deadline, decided by the caller. */
+    public void upstreamTimeout(String endpoint) {
+        upstreamError(endpoint, "timeout");
+    }
+
+    /**
+     * A call refused before it was sent: by UpstreamGuard (reason circuit-open or
+     * shed) or by the full upstreamExecutor (saturated).
+     */
+    public void upstreamRejected(String endpoint, String reason) {
+        upstreamError(endpoint, reason);
+    }
+
+    /** A second attempt sent because the first was slower than the endpoint's hedge delay. */
+    public void upstreamHedged(String endpoint) {
+        Counter.builder("stockdetails.upstream.hedges")
+                .tag("endpoint", endpoint)
+                .register(meters)
+                .increment();
+    }
+
+    private void upstreamError(String endpoint, String type) {
+        Counter.builder("stockdetails.upstream.errors")
+                .tag("endpoint", endpoint)
+                .tag("type", type)
+                .register(meters)
+                .increment();
+    }
+
+    /** Indicator dropped from the analysis because its call failed (safeGet / history sync). */
+    public void indicatorFailure(String indicator) {
+        Counter.builder("stockanalysis.indicator.failures")
+                .tag("indicator", indicator)
+                .register(meters)
+                .increment();
+    }
+
+    /** Span around a whole analysis; the upstream calls become its children. */
+    public <T> T analysis(String symbol, Callable<T> task) throws Exception {
+        return Observation.createNotStarted("stockanalysis.aggregate", observations)
+                .highCardinalityKeyValue("symbol", symbol)
+                .observeChecked(task::call);
+    }
+
+    /** Wraps work handed to another thread so its spans stay children of the caller's. */
+    public <T> Supplier<T> inCurrentSpan(Supplier<T> call) {
+        Observation parent = observations.getCurrentObservation();
+        if (parent == null) return call;
+        return () -> {
+            try (Observation.Scope scope = parent.openScope()) {
+                return call.get();
+            }
+        };
+    }
+
+    /**
+     * One OpenRouter chat completion; kind is single, batch or stream, prompt
+     * the prompt format (compact or verbose), so their latencies can be compared.
+     */
+    public <T> T completion(String kind, String prompt, Callable<T> call) throws Exception {
+        return Observation.createNotStarted("openrouter.completion", observations)
+                .lowCardinalityKeyValue("kind", kind)
+                .lowCardinalityKeyValue("prompt", prompt)
+                .observeChecked(call::call);
+    }
+
+    /** Async variant of analysis. */
+    public <T> CompletableFuture<T> analysisAsync(String symbol, Supplier<CompletableFuture<T>> task) {
+        return observeAsync(Observation.createNotStarted("stockanalysis.aggregate", observations)
+                .highCardinalityKeyValue("symbol", symbol), task);
+    }
+
+    /** Async variant of completion. */
+    public <T> CompletableFuture<T> completionAsync(String kind, String prompt, Supplier<CompletableFuture<T>> call) {
+        return observeAsync(Observation.createNotStarted("openrouter.completion", observations)
+                .lowCardinalityKeyValue("kind", kind)
+                .lowCardinalityKeyValue("prompt", prompt), call);
+    }
+
+    // Starts the observation, opens its scope only while the call is issued (so
+    // child observations attach), and stops it when the future completes
+    private static <T> CompletableFuture<T> observeAsync(Observation observation, Supplier<CompletableFuture<T>> call) {
+        observation.start();
+        CompletableFuture<T> future;
+        try (Observation.Scope scope = observation.openScope()) {
+            future = call.get();
+        } catch (RuntimeException e) {
+            observation.error(e);
+            observation.stop();
+            return CompletableFuture.failedFuture(e);
+        }
+        return future.whenComplete((value, error) -> {
+            if (error != null) observation.error(error);
+            observation.stop();
+        });
+    }
+
+    /** Token usage reported in the OpenRouter usage field. */
+    public void tokens(long promptTokens, long completionTokens) {
+        if (promptTokens >= 0) tokenSummary("prompt").record(promptTokens);
+        if (completionTokens >= 0) tokenSummary("completion").record(completionTokens);
+    }
+
+    /** Estimated size of a prompt as sent. */
+    public void prompt(String format, int tokens) {
+        DistributionSummary.builder("openrouter.prompt.tokens")
+                .baseUnit("tokens")
+                .tag("prompt", format)
+                .register(meters)
+                .record(tokens);
+    }
+
+    /** Tokens a sampled prompt's format saved against the verbose one. */
+    public void promptSaved(String format, int savedTokens) {
+        DistributionSummary.builder("openrouter.prompt.tokens.saved")
+                .baseUnit("tokens")
+                .tag("prompt", format)
+                .register(meters)
+                .record(savedTokens);
+    }
+
+    /** Time from sending a streamed completion until its decision was parsed, ahead of the reasoning. */
+    public void timeToDecision(long nanos) {
+        Timer.builder("openrouter.stream.time-to-decision")
+                .publishPercentileHistogram()
+                .register(meters)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /** The model answered, but not with the strict JSON we asked for. */
+    public void invalidAiResponse() {
+        meters.counter("openrouter.responses.invalid").increment();
+    }
+
+    private DistributionSummary tokenSummary(String type) {
+        return DistributionSummary.builder("openrouter.tokens")
+                .baseUnit("tokens")
+                .tag("type", type)
+                .register(meters);
+    }
+}
@@ -0,0 +1,285 @@
+package com.stockapp.StockAggregator.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.stockapp.StockAggregator.dto.RawJson;
+import com.stockapp.StockAggregator.dto.StockAnalysisDTO;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Builds the OpenRouter prompts for one or several analyses.
+ * <p>
+ * Compact format: the instructions are a fixed system message, built once, so
+ * every request starts with the same bytes and providers can reuse their
+ * prefix cache. The user message carries only the data:
+ * <ul>
+ *   <li>numbers rounded to significant-digits</li>
+ *   <li>indicators as value and rule recommendation; the meaning sentences
+ *       only restate those and are dropped</li>
+ *   <li>fundamentals reduced to scalar fields named by their dotted path
+ *       (income.total, debt.total), only fundamentals-fields when set, and
+ *       without texts longer than max-text-length</li>
+ *   <li>fundamentals fields dropped from the end until the data fits token-budget</li>
+ * </ul>
+ * Verbose format is the former prompt: instructions followed by the whole DTO
+ * as JSON. Token counts are local estimates (see {@link #estimateTokens}); the
+ * tokens saved against the verbose format are only computed on request (see
+ * {@link #savedTokens}), since that serializes the whole DTO again.
+ */
+public final class PromptEncoder {
+
+    public static final String COMPACT = "compact";
+    public static final String VERBOSE = "verbose";
+
+    private static final String ANALYST = "You are a senior institutional equity analyst.";
+
+    private static final String SINGLE_FORMAT = "{\"symbol\":\"<symbol>\", \"decision\":\"BUY|SELL|HOLD\", "
+            + "\"reasoning\":\"<clear and concise reasoning using fundamentals and indicators>\"}";
+
+    private static final String VERBOSE_SINGLE = "You are a highly skilled financial analyst. Carefully analyze the following stock analysis JSON data. " +
+            "Your task is to return a response strictly as a valid JSON object in the following format (no extra text, no explanations outside JSON): " +
+            SINGLE_FORMAT + ". " +
+            "Make sure the reasoning is short, precise, and directly supports the decision. " +
+            "Here is the data: ";
+
+    private static final String VERBOSE_BATCH = "You are a highly skilled financial analyst. Carefully analyze each stock in the following JSON array of stock analysis data. " +
+            "Your task is to return a response strictly as a valid JSON array with exactly one object per input stock, in the following format (no extra text, no explanations outside JSON): " +
+            "[" + SINGLE_FORMAT + "]. " +
+            "Make sure each reasoning is short, precise, and directly supports its decision. " +
+            "Here is the data: ";
+
+    private static final String DATA_LEGEND = "Prices are rounded; each indicator gives its value and rec, the rule-based BUY/SELL/HOLD; "
+            + "rule is the combined rule-based decision.";
+
+    private static final String COMPACT_SINGLE = ANALYST + " Analyze the stock data JSON in the user message. " + DATA_LEGEND
+            + " Reply strictly with one JSON object and no text outside it: " + SINGLE_FORMAT
+            + ". Keep the reasoning short, precise and in support of the decision.";
+
+    private static final String COMPACT_BATCH = ANALYST + " Analyze each stock in the JSON array in the user message. " + DATA_LEGEND
+            + " Reply strictly with a JSON array of exactly one object per stock and no text outside it: [" + SINGLE_FORMAT
+            + "]. Keep each reasoning short, precise and in support of its decision.";
+
+    /** The data of one analysis as sent, with its estimated tokens. */
+    public record Encoded(String json, int tokens) { }
+
+    /** Chat messages of one completion. */
+    public record Prompt(List<Map<String, Object>> messages, int tokens) { }
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final boolean compact;
+    private final int tokenBudget;
+    private final Set<String> fundamentalsFields;
+    private final int maxTextLength;
+    private final MathContext rounding;
+
+    // Static prefixes, built once per encoder
+    private final Map<String, Object> singleSystem;
+    private final Map<String, Object> batchSystem;
+    private final int singlePrefixTokens;
+    private final int batchPrefixTokens;
+
+    public PromptEncoder(String format, int tokenBudget, Set<String> fundamentalsFields, int maxTextLength,
+                         int significantDigits) {
+        this.compact = !VERBOSE.equalsIgnoreCase(format);
+        this.tokenBudget = tokenBudget;
+        this.fundamentalsFields = fundamentalsFields;
+        this.maxTextLength = maxTextLength;
+        this.rounding = new MathContext(Math.max(1, significantDigits));
+        this.singleSystem = message("system", compact ? COMPACT_SINGLE : ANALYST);
+        this.batchSystem = message("system", compact ? COMPACT_BATCH : ANALYST);
+        this.singlePrefixTokens = estimateTokens(compact ? COMPACT_SINGLE : ANALYST + VERBOSE_SINGLE);
+        this.batchPrefixTokens = estimateTokens(compact ? COMPACT_BATCH : ANALYST + VERBOSE_BATCH);
+    }
+
+    public String format() {
+        return compact ? COMPACT : VERBOSE;
+    }
+
+    /** Estimated tokens of the batch instructions, before any item. */
+    public int batchPrefixTokens() {
+        return batchPrefixTokens;
+    }
+
+    public Encoded encode(StockAnalysisDTO dto) throws JsonProcessingException {
+        if (!compact) {
+            String verbose = mapper.writeValueAsString(dto);
+            return new Encoded(verbose, estimateTokens(verbose));
+        }
+
+        ObjectNode data = mapper.createObjectNode();
+        data.put("symbol", dto.getSymbol());
+        number(data, "price", dto.getLivePrice());
+        number(data, "dayHigh", dto.getDayHigh());
+        number(data, "dayLow", dto.getDayLow());
+        number(data, "week52High", dto.getWeek52High());
+        number(data, "week52Low", dto.getWeek52Low());
+        if (dto.getOverallDecision() != null) data.put("rule", dto.getOverallDecision());
+        if (dto.getIndicators() != null && !dto.getIndicators().isEmpty()) {
+            ObjectNode indicators = data.putObject("indicators");
+            dto.getIndicators().forEach((name, detail) -> {
+                if (detail != null) indicators.set(name, indicator(detail));
+            });
+        }
+        ObjectNode fundamentals = fundamentals(dto.getFundamentals());
+        if (fundamentals != null && !fundamentals.isEmpty()) data.set("fundamentals", fundamentals);
+
+        String json = mapper.writeValueAsString(data);
+        int tokens = estimateTokens(json);
+        if (tokens > tokenBudget && fundamentals != null) {
+            json = fit(data, fundamentals);
+            tokens = estimateTokens(json);
+        }
+        return new Encoded(json, tokens);
+    }
+
+    public Prompt single(Encoded item) {
+        String user = compact ? item.json() : VERBOSE_SINGLE + item.json();
+        int tokens = singlePrefixTokens + item.tokens();
+        return new Prompt(List.of(singleSystem, message("user", user)), tokens);
+    }
+
+    public Prompt batch(List<Encoded> items) {
+        StringBuilder data = new StringBuilder(compact ? "[" : VERBOSE_BATCH + "[");
+        int tokens = batchPrefixTokens + 2;
+        for (int i = 0; i < items.size(); i++) {
+            Encoded item = items.get(i);
+            if (i > 0) data.append(',');
+            data.append(item.json());
+            tokens += item.tokens() + 1;
+        }
+        return new Prompt(List.of(batchSystem, message("user", data.append(']').toString())), tokens);
+    }
+
+    /**
+     * Estimated tokens the prompt saves against the verbose prompt for the same
+     * DTOs. Serializes every DTO in full, so callers only ask for sampled prompts.
+     */
+    public int savedTokens(List<StockAnalysisDTO> dtos, Prompt prompt) throws JsonProcessingException {
+        if (!compact) return 0;
+        boolean batch = prompt.messages().get(0) == batchSystem;
+        int verbose = estimateTokens(ANALYST) + (batch ? estimateTokens(VERBOSE_BATCH) + 2 : estimateTokens(VERBOSE_SINGLE));
+        for (StockAnalysisDTO dto : dtos) {
+            verbose += estimateTokens(mapper.writeValueAsString(dto)) + (batch ? 1 : 0);
+        }
+        return Math.max(0, verbose - prompt.tokens());
+    }
+
+    /**
+     * Local token estimate for English text and JSON, close to what BPE
+     * tokenizers produce: a token per four letters of a word, per three digits
+     * of a number and per punctuation mark; a space joins the following word.
+     */
+    public static int estimateTokens(CharSequence text) {
+        int tokens = 0;
+        int n = text.length();
+        int i = 0;
+        while (i < n) {
+            char c = text.charAt(i);
+            int start = i;
+            if (Character.isLetter(c)) {
+                while (i < n && Character.isLetter(text.charAt(i))) i++;
+                tokens += (i - start + 3) / 4;
+            } else if (Character.isDigit(c)) {
+                while (i < n && Character.isDigit(text.charAt(i))) i++;
+                tokens += (i - start + 2) / 3;
+            } else {
+                i++;
+                if (!Character.isWhitespace(c)) tokens++;
+            }
+        }
+        return tokens;
+    }
+
+    private ObjectNode indicator(StockAnalysisDTO.IndicatorDetail detail) {
+        ObjectNode node = mapper.createObjectNode();
+        if (!Double.isNaN(detail.getSignal())) {
+            number(node, "macd", detail.getNumericValue());
+            number(node, "signal", detail.getSignal());
+            number(node, "hist", detail.getHistogram());
+        } else if (!Double.isNaN(detail.getNumericValue())) {
+            number(node, "v", detail.getNumericValue());
+        } else if (detail.getValue() != null) {
+            node.set("v", mapper.valueToTree(detail.getValue())); // posted value the rules could not read
+        }
+        if (detail.getRecommendation() != null) node.put("rec", detail.getRecommendation().name());
+        return node;
+    }
+
+    // Scalar fields up to depth 3, keyed by their dotted path so that equal leaf names keep their context
+    private ObjectNode fundamentals(Object raw) {
+        if (raw == null) return null;
+        JsonNode tree;
+        try {
+            tree = raw instanceof RawJson json ? mapper.readTree(json.asUnquotedUTF8()) : mapper.valueToTree(raw);
+        } catch (IOException | IllegalArgumentException e) {
+            return null; // unreadable upstream payload: sent without fundamentals
+        }
+        ObjectNode out = mapper.createObjectNode();
+        collect(tree, "", out, 0);
+        return out;
+    }
+
+    private void collect(JsonNode node, String prefix, ObjectNode out, int depth) {
+        if (!node.isObject() || depth > 3) return;
+        for (Map.Entry<String, JsonNode> field : node.properties()) {
+            String name = prefix + field.getKey();
+            JsonNode value = field.getValue();
+            if (value.isObject()) {
+                collect(value, name + ".", out, depth + 1);
+                continue;
+            }
+            // fundamentals-fields entries match the dotted path or the field's own name
+            if (!fundamentalsFields.isEmpty() && !fundamentalsFields.contains(name)
+                    && !fundamentalsFields.contains(field.getKey())) continue;
+            if (value.isNumber()) {
+                number(out, name, value.doubleValue());
+            } else if (value.isBoolean()) {
+                out.put(name, value.booleanValue());
+            } else if (value.isTextual() && !value.asText().isBlank() && value.asText().length() <= maxTextLength) {
+                out.put(name, value.asText());
+            }
+        }
+    }
+
+    // Drops fundamentals fields, last first, until the data fits the budget
+    private String fit(ObjectNode data, ObjectNode fundamentals) throws JsonProcessingException {
+        List<String> names = new ArrayList<>();
+        fundamentals.fieldNames().forEachRemaining(names::add);
+        int tokens = estimateTokens(mapper.writeValueAsString(data));
+        for (int i = names.size() - 1; i >= 0 && tokens > tokenBudget; i--) {
+            String name = names.get(i);
+            tokens -= estimateTokens(mapper.writeValueAsString(name)) + estimateTokens(fundamentals.get(name).toString()) + 2;
+            fundamentals.remove(name);
+        }
+        if (fundamentals.isEmpty()) data.remove("fundamentals");
+        String json = mapper.writeValueAsString(data);
+        // the running estimate is approximate; settle on the real one
+        for (int i = fundamentals.size() - 1; i >= 0 && estimateTokens(json) > tokenBudget; i--) {
+            fundamentals.remove(names.get(i));
+            if (fundamentals.isEmpty()) data.remove("fundamentals");
+            json = mapper.writeValueAsString(data);
+        }
+        return json;
+    }
+
+    private void number(ObjectNode node, String name, Double value) {
+        if (value == null || value.isNaN() || value.isInfinite()) return;
+        BigDecimal rounded = BigDecimal.valueOf(value).round(rounding).stripTrailingZeros();
+        // plain digits for whole numbers up to a million, exponent notation beyond
+        if (rounded.scale() < 0 && rounded.precision() - rounded.scale() <= 7) rounded = rounded.setScale(0);
+        node.put(name, rounded);
+    }
+
+    private static Map<String, Object> message(String role, String content) {
+        return Map.of("role", role, "content", content);
+    }
+}
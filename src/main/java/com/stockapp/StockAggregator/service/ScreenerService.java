@@ -0,0 +1,371 @@
+package com.stockapp.StockAggregator.service;
+
+import com.stockapp.StockAggregator.dto.Recommendation;
+import com.stockapp.StockAggregator.dto.ScreenerRequestDTO;
+import com.stockapp.StockAggregator.dto.ScreenerScanDTO;
+import com.stockapp.StockAggregator.dto.StockAnalysisDTO;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the rule engine over a whole symbol universe. Symbols of every scan go
+ * into one priority queue drained by a fixed number of workers; each uncached
+ * analysis first takes its upstream calls from the token bucket of the
+ * StockDetails host, so scans never exceed the configured rate however large
+ * the universe.
+ * <p>
+ * High-interest symbols (watchlist, or named in the request) are screened
+ * first, then the ones screened longest ago. A symbol screened within
+ * screener.max-age-ms by any scan is reused without an upstream call. Matching
+ * rows land in the scan's result table as soon as they are known, so results
+ * can be read while the scan is still running.
+ */
+@Service
+public class ScreenerService {
+
+    private static final Logger log = LoggerFactory.getLogger(ScreenerService.class);
+
+    private final StockAnalysisService analysisService;
+    private final StockDetailsClient client;
+    private final WatchlistService watchlist;
+    private final ExecutorService workers;
+    private final ScheduledExecutorService scheduler;
+    private final Environment env;
+
+    private final PriorityBlockingQueue<Job> queue = new PriorityBlockingQueue<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<String, Scan> scans = new ConcurrentHashMap<>();
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private TtlCache<String, Screened> latest; // last analysis per symbol, any scan
+
+    @Value("${screener.concurrency:4}")
+    private int concurrency;
+
+    // Overridable per host: screener.rate.<host>.permits-per-second / .burst
+    @Value("${screener.rate.permits-per-second:10}")
+    private double permitsPerSecond;
+
+    @Value("${screener.rate.burst:40}")
+    private double burst;
+
+    @Value("${screener.max-age-ms:60000}")
+    private long maxAgeMs;
+
+    @Value("${screener.max-symbols:5000}")
+    private int maxSymbols;
+
+    @Value("${screener.max-scans:8}")
+    private int maxScans;
+
+    // Symbols whose last analysis is kept for reuse and ordering (LRU beyond that)
+    @Value("${screener.latest.max-entries:10000}")
+    private int latestMaxEntries;
+
+    public ScreenerService(StockAnalysisService analysisService, StockDetailsClient client,
+                           WatchlistService watchlist, @Qualifier("screenerExecutor") ExecutorService workers,
+                           @Qualifier("screenerScheduler") ScheduledExecutorService scheduler, Environment env) {
+        this.analysisService = analysisService;
+        this.client = client;
+        this.watchlist = watchlist;
+        this.workers = workers;
+        this.scheduler = scheduler;
+        this.env = env;
+    }
+
+    @PostConstruct
+    void startWorkers() {
+        // fresh for max-age-ms; older entries are still peeked to order jobs until evicted
+        latest = new TtlCache<>("screener", maxAgeMs, 0, latestMaxEntries, Runnable::run);
+        for (int i = 0; i < concurrency; i++) {
+            workers.execute(this::work);
+        }
+    }
+
+    /** Starts a scan; its first pass is queued at once. */
+    public ScreenerScanDTO start(ScreenerRequestDTO request) {
+        List<String> universe = normalize(request.getSymbols());
+        Set<String> interest = new LinkedHashSet<>();
+        if (request.getHighInterest() != null) interest.addAll(request.getHighInterest());
+
+        Scan scan = new Scan(UUID.randomUUID().toString(), universe, interest,
+                request.getFilter(), Math.max(0, request.getRepeatIntervalMs()));
+        synchronized (scans) {
+            if (scans.size() >= maxScans && !evictFinished()) {
+                throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many screener scans (max " + maxScans + ")");
+            }
+            scans.put(scan.id, scan);
+        }
+        enqueue(scan);
+        return scan.summary();
+    }
+
+    public List<ScreenerScanDTO> list() {
+        return scans.values().stream()
+                .sorted(Comparator.comparingLong((Scan s) -> s.startedAt).reversed())
+                .map(Scan::summary)
+                .toList();
+    }
+
+    /** Scan progress plus the ranked result table (strongest signals first). */
+    public ScreenerScanDTO get(String id, int offset, int limit) {
+        Scan scan = find(id);
+        ScreenerScanDTO dto = scan.summary();
+        dto.setResults(scan.ranked(Math.max(0, offset), Math.max(0, limit)));
+        return dto;
+    }
+
+    public ScreenerScanDTO cancel(String id) {
+        Scan scan = find(id);
+        scan.cancelled = true; // its queued jobs are skipped when taken
+        return scan.summary();
+    }
+
+    private Scan find(String id) {
+        Scan scan = scans.get(id);
+        if (scan == null) throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown scan " + id);
+        return scan;
+    }
+
+    private List<String> normalize(List<String> symbols) {
+        Set<String> unique = new LinkedHashSet<>();
+        if (symbols != null) {
+            for (String symbol : symbols) {
+                if (symbol != null && !symbol.isBlank()) unique.add(symbol.trim());
+            }
+        }
+        if (unique.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No symbols given");
+        }
+        if (unique.size() > maxSymbols) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Too many symbols: " + unique.size() + " (max " + maxSymbols + ")");
+        }
+        return new ArrayList<>(unique);
+    }
+
+    // Drops the oldest finished or cancelled scan; false when all are still active
+    private boolean evictFinished() {
+        return scans.values().stream()
+                .filter(Scan::isFinished)
+                .min(Comparator.comparingLong(s -> s.startedAt))
+                .map(s -> scans.remove(s.id) != null)
+                .orElse(false);
+    }
+
+    private void enqueue(Scan scan) {
+        Pass pass = scan.beginPass();
+        for (String symbol : scan.universe) {
+            boolean interest = scan.interest.contains(symbol) || watchlist.isWatched(symbol);
+            Screened last = latest.peek(symbol);
+            queue.add(new Job(scan, pass, symbol, interest, last == null ? 0 : last.at, sequence.incrementAndGet()));
+        }
+    }
+
+    private void work() {
+        while (!Thread.currentThread().isInterrupted()) {
+            Job job;
+            try {
+                job = queue.take();
+            } catch (InterruptedException e) {
+                return; // shutting down
+            }
+            if (job.scan.cancelled || job.pass != job.scan.pass) continue; // cancelled, or left over from an earlier pass
+            boolean passDone;
+            try {
+                passDone = job.scan.record(job, screen(job.symbol));
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                log.debug("Screening {} failed: {}", job.symbol, e.getMessage());
+                passDone = job.scan.recordFailure(job);
+            }
+            if (passDone) scheduleNextPass(job.scan);
+        }
+    }
+
+    private Screened screen(String symbol) throws InterruptedException {
+        Screened last = latest.getIfFresh(symbol);
+        if (last != null) return last;
+
+        bucket(client.host()).acquire(analysisService.upstreamCallsPerAnalysis());
+        StockAnalysisDTO dto = analysisService.analyzeStock(symbol);
+        double score = dto.getIndicators() == null ? 0.0 : analysisService.score(dto.getIndicators());
+        Screened screened = new Screened(dto, score, System.currentTimeMillis());
+        latest.put(symbol, screened);
+        return screened;
+    }
+
+    // Charges every analysis its full call count; cache hits make the real rate lower, never higher
+    private TokenBucket bucket(String host) {
+        return buckets.computeIfAbsent(host, h -> new TokenBucket(
+                env.getProperty("screener.rate." + h + ".permits-per-second", Double.class, permitsPerSecond),
+                env.getProperty("screener.rate." + h + ".burst", Double.class, burst)));
+    }
+
+    private void scheduleNextPass(Scan scan) {
+        if (scan.repeatIntervalMs <= 0 || scan.cancelled) return;
+        scheduler.schedule(() -> {
+            if (!scan.cancelled && scans.containsKey(scan.id)) enqueue(scan);
+        }, scan.repeatIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    static boolean matches(ScreenerRequestDTO.Filter filter, StockAnalysisDTO dto, double score) {
+        if (filter == null) return true;
+        if (filter.getDecision() != null
+                && StockAnalysisService.decision(score) != Recommendation.from(filter.getDecision())) {
+            return false;
+        }
+        if (filter.getRsiMin() != null || filter.getRsiMax() != null) {
+            double rsi = value(dto, "rsi");
+            if (Double.isNaN(rsi)) return false;
+            if (filter.getRsiMin() != null && rsi < filter.getRsiMin()) return false;
+            if (filter.getRsiMax() != null && rsi > filter.getRsiMax()) return false;
+        }
+        if (filter.getPriceVsSma() != null) {
+            double sma = value(dto, filter.getSma());
+            Double price = dto.getLivePrice();
+            if (price == null || Double.isNaN(sma)) return false;
+            boolean above = price > sma;
+            if (above != "above".equalsIgnoreCase(filter.getPriceVsSma())) return false;
+        }
+        return true;
+    }
+
+    private static double value(StockAnalysisDTO dto, String key) {
+        if (dto.getIndicators() == null) return Double.NaN;
+        StockAnalysisDTO.IndicatorDetail detail = dto.getIndicators().get(key);
+        return detail == null ? Double.NaN : detail.getNumericValue();
+    }
+
+    // score is the registry's, the same that gave dto its overallDecision
+    private record Screened(StockAnalysisDTO dto, double score, long at) {
+    }
+
+    // Watched/high-interest first, then least recently screened, then submission order
+    private record Job(Scan scan, Pass pass, String symbol, boolean interest, long lastScreenedAt, long seq)
+            implements Comparable<Job> {
+        @Override
+        public int compareTo(Job o) {
+            if (interest != o.interest) return interest ? -1 : 1;
+            if (lastScreenedAt != o.lastScreenedAt) return Long.compare(lastScreenedAt, o.lastScreenedAt);
+            return Long.compare(seq, o.seq);
+        }
+    }
+
+    private static final class Scan {
+        final String id;
+        final List<String> universe;
+        final Set<String> interest;
+        final ScreenerRequestDTO.Filter filter;
+        final long repeatIntervalMs;
+        final long startedAt = System.currentTimeMillis();
+        final Map<String, ScreenerScanDTO.Row> rows = new ConcurrentHashMap<>();
+        volatile Pass pass = new Pass(0);
+        volatile boolean cancelled;
+
+        Scan(String id, List<String> universe, Set<String> interest, ScreenerRequestDTO.Filter filter, long repeatIntervalMs) {
+            this.id = id;
+            this.universe = universe;
+            this.interest = interest;
+            this.filter = filter;
+            this.repeatIntervalMs = repeatIntervalMs;
+        }
+
+        Pass beginPass() {
+            pass = new Pass(pass.number + 1);
+            return pass;
+        }
+
+        // Both return true for the one job that completes its pass
+        boolean record(Job job, Screened result) {
+            String symbol = job.symbol();
+            StockAnalysisDTO dto = result.dto();
+            double score = result.score();
+            if (matches(filter, dto, score)) {
+                ScreenerScanDTO.Row row = new ScreenerScanDTO.Row();
+                row.setSymbol(symbol);
+                row.setLivePrice(dto.getLivePrice());
+                row.setOverallDecision(dto.getOverallDecision());
+                row.setScore(score);
+                double rsi = value(dto, "rsi");
+                row.setRsi(Double.isNaN(rsi) ? null : rsi);
+                row.setScreenedAt(result.at());
+                rows.put(symbol, row);
+            } else {
+                rows.remove(symbol); // matched in an earlier pass, not any more
+            }
+            return job.pass().screened.incrementAndGet() == universe.size();
+        }
+
+        boolean recordFailure(Job job) {
+            job.pass().failed.incrementAndGet();
+            return job.pass().screened.incrementAndGet() == universe.size();
+        }
+
+        boolean isFinished() {
+            return cancelled || (repeatIntervalMs <= 0 && pass.screened.get() >= universe.size());
+        }
+
+        // SELL screens rank the most bearish first, everything else the most bullish
+        List<ScreenerScanDTO.Row> ranked(int offset, int limit) {
+            boolean bearish = filter != null && filter.getDecision() != null
+                    && Recommendation.from(filter.getDecision()) == Recommendation.SELL;
+            Comparator<ScreenerScanDTO.Row> order = Comparator.comparingDouble(ScreenerScanDTO.Row::getScore);
+            return rows.values().stream()
+                    .sorted(bearish ? order : order.reversed())
+                    .skip(offset)
+                    .limit(limit)
+                    .toList();
+        }
+
+        ScreenerScanDTO summary() {
+            ScreenerScanDTO dto = new ScreenerScanDTO();
+            dto.setId(id);
+            Pass current = pass;
+            int done = current.screened.get();
+            dto.setStatus(cancelled ? "CANCELLED"
+                    : done < universe.size() ? "RUNNING"
+                    : repeatIntervalMs > 0 ? "WAITING" : "DONE");
+            dto.setPass(current.number);
+            dto.setTotal(universe.size());
+            dto.setScreened(done);
+            dto.setFailed(current.failed.get());
+            dto.setMatched(rows.size());
+            dto.setStartedAt(startedAt);
+            return dto;
+        }
+    }
+
+    // Progress of one pass over a scan's universe; its jobs count only here
+    private static final class Pass {
+        final int number;
+        final AtomicInteger screened = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+
+        Pass(int number) {
+            this.number = number;
+        }
+    }
+}
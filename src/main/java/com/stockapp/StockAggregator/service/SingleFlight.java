@@ -0,0 +1,85 @@
+package com.stockapp.StockAggregator.service;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * In-flight deduplication: concurrent callers with the same key join the
+ * computation that is already running instead of starting their own.
+ * Nothing is kept once the computation finishes; caching is a separate concern.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder joined = new LongAdder();
+
+    public V execute(K key, Callable<V> task) throws Exception {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            joined.increment();
+            return await(running);
+        }
+
+        executed.increment();
+        try {
+            V value = task.call();
+            mine.complete(value);
+            return value;
+        } catch (Exception | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * Non-blocking variant: the leader starts task, everyone gets a future for
+     * its result. Shares the in-flight map with execute, so blocking and async
+     * callers of the same key join each other.
+     */
+    public CompletableFuture<V> executeAsync(K key, Supplier<CompletableFuture<V>> task) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            joined.increment();
+            return running.copy(); // callers can't complete or cancel the shared future
+        }
+
+        executed.increment();
+        try {
+            task.get().whenComplete((value, error) -> {
+                inFlight.remove(key, mine);
+                if (error != null) mine.completeExceptionally(error);
+                else mine.complete(value);
+            });
+        } catch (RuntimeException | Error e) {
+            inFlight.remove(key, mine);
+            mine.completeExceptionally(e);
+        }
+        return mine.copy();
+    }
+
+    /** Computations actually run by a leader. */
+    public long getExecutedCount() { return executed.sum(); }
+
+    /** Callers that joined a computation started by someone else. */
+    public long getJoinedCount() { return joined.sum(); }
+
+    private V await(CompletableFuture<V> running) throws Exception {
+        try {
+            return running.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception ex) throw ex;
+            if (cause instanceof Error err) throw err;
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.stockapp.StockAggregator.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.stockapp.StockAggregator.dto.Recommendation;
+import com.stockapp.StockAggregator.dto.SnapshotSeriesDTO;
+import com.stockapp.StockAggregator.dto.StockAnalysisDTO;
+import com.stockapp.StockAggregator.store.Snapshot;
+import com.stockapp.StockAggregator.store.SnapshotRange;
+import com.stockapp.StockAggregator.store.SnapshotStore;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.stockapp.StockAggregator.store.Snapshot.Field.*;
+
+/**
+ * Keeps every analysis as a row in the {@link SnapshotStore} (at most one per
+ * symbol per snapshots.min-interval-ms) and serves the stored history.
+ * <p>
+ * At startup the latest row of each symbol seeds the StockDetails caches with
+ * its real age, so a restarted instance serves stale-while-revalidate instead
+ * of a cold fan-out. Stored indicators are the default set: rsi, sma_20, ema_14
+ * and macd.
+ */
+@Service
+public class SnapshotService {
+
+    private static final Logger log = LoggerFactory.getLogger(SnapshotService.class);
+
+    private final StockDetailsClient client;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Map<String, Long> lastRecorded = new ConcurrentHashMap<>();
+    private SnapshotStore store; // null when disabled
+
+    @Value("${snapshots.enabled:false}")
+    private boolean enabled;
+
+    @Value("${snapshots.dir:data/snapshots}")
+    private String dir;
+
+    // Rows mapped together; an existing file keeps the size it was created with
+    @Value("${snapshots.rows-per-chunk:4096}")
+    private int rowsPerChunk;
+
+    @Value("${snapshots.min-interval-ms:10000}")
+    private long minIntervalMs;
+
+    // Rows older than this are not used to warm the caches
+    @Value("${snapshots.warm-max-age-ms:86400000}")
+    private long warmMaxAgeMs;
+
+    public SnapshotService(StockDetailsClient client) {
+        this.client = client;
+    }
+
+    @PostConstruct
+    void init() throws IOException {
+        if (!enabled) return;
+        store = new SnapshotStore(Path.of(dir), rowsPerChunk);
+        warmCaches();
+    }
+
+    @PreDestroy
+    void close() {
+        if (store != null) store.close();
+    }
+
+    /** Appends the analysis unless the symbol was recorded less than min-interval-ms ago. */
+    public void record(StockAnalysisDTO dto) {
+        if (store == null || dto.getLivePrice() == null || !SnapshotStore.isStorable(dto.getSymbol())) return;
+        String symbol = dto.getSymbol();
+        long now = System.currentTimeMillis();
+        boolean[] due = new boolean[1];
+        lastRecorded.compute(symbol, (k, last) -> {
+            if (last == null) {
+                Snapshot latest = store.latest(k);
+                last = latest == null ? Long.MIN_VALUE : latest.getTimestamp();
+            }
+            due[0] = last == Long.MIN_VALUE || now - last >= minIntervalMs;
+            return due[0] ? now : last;
+        });
+        if (!due[0]) return;
+        try {
+            store.append(symbol, toSnapshot(dto, now));
+        } catch (IOException e) {
+            log.warn("Could not store snapshot of {}: {}", symbol, e.getMessage());
+        }
+    }
+
+    /** Stored rows with from <= timestamp <= to; the most recent limit rows when there are more. */
+    public SnapshotSeriesDTO history(String symbol, long from, long to, int limit) {
+        SnapshotRange range = range(symbol, from, to, limit);
+        SnapshotSeriesDTO dto = new SnapshotSeriesDTO();
+        dto.setSymbol(symbol);
+        dto.setTimestamps(range.timestamps());
+        dto.setLivePrice(range.column(LIVE_PRICE));
+        dto.setDayHigh(range.column(DAY_HIGH));
+        dto.setDayLow(range.column(DAY_LOW));
+        dto.setWeek52High(range.column(WEEK52_HIGH));
+        dto.setWeek52Low(range.column(WEEK52_LOW));
+        dto.setRsi(range.column(RSI));
+        dto.setSma(range.column(SMA));
+        dto.setEma(range.column(EMA));
+        dto.setMacd(range.column(MACD));
+        dto.setMacdSignal(range.column(MACD_SIGNAL));
+        dto.setMacdHistogram(range.column(MACD_HISTOGRAM));
+        List<Recommendation> decisions = new ArrayList<>(range.size());
+        for (byte decision : range.decisions()) decisions.add(toRecommendation(decision));
+        dto.setDecisions(decisions);
+        return dto;
+    }
+
+    /** Same rows as history, as columns of primitives. */
+    public SnapshotRange range(String symbol, long from, long to, int limit) {
+        return store().range(checked(symbol), from, to, limit);
+    }
+
+    /** Most recent stored row of the symbol. */
+    public Snapshot latest(String symbol) {
+        Snapshot latest = store().latest(checked(symbol));
+        if (latest == null) throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No snapshots of " + symbol);
+        return latest;
+    }
+
+    private SnapshotStore store() {
+        if (store == null) throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Snapshot store is disabled");
+        return store;
+    }
+
+    private static String checked(String symbol) {
+        if (!SnapshotStore.isStorable(symbol)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid symbol: " + symbol);
+        }
+        return symbol;
+    }
+
+    private void warmCaches() throws IOException {
+        long now = System.currentTimeMillis();
+        int warmed = 0;
+        for (String symbol : store.symbols()) {
+            Snapshot s = store.latest(symbol);
+            if (s == null || now - s.getTimestamp() > warmMaxAgeMs) continue;
+            long age = Math.max(0, now - s.getTimestamp());
+            client.warmPrice("live", symbol, fields("price", s.get(LIVE_PRICE)), age);
+            client.warmPrice("today", symbol, fields("high", s.get(DAY_HIGH), "low", s.get(DAY_LOW)), age);
+            client.warmPrice("52week", symbol, fields("week52High", s.get(WEEK52_HIGH), "week52Low", s.get(WEEK52_LOW)), age);
+            client.warmIndicator("rsi", symbol, fields("value", s.get(RSI)), age);
+            client.warmIndicator("sma:20", symbol, fields("value", s.get(SMA)), age);
+            client.warmIndicator("ema:14", symbol, fields("value", s.get(EMA)), age);
+            client.warmIndicator("macd:12:26:9", symbol,
+                    fields("macd", s.get(MACD), "signal", s.get(MACD_SIGNAL), "histogram", s.get(MACD_HISTOGRAM)), age);
+            lastRecorded.put(symbol, s.getTimestamp());
+            warmed++;
+        }
+        log.info("Warmed StockDetails caches for {} symbols from {}", warmed, dir);
+    }
+
+    // Object of the given name/value pairs; null if any value is missing, so nothing partial is cached
+    private ObjectNode fields(Object... pairs) {
+        ObjectNode node = mapper.createObjectNode();
+        for (int i = 0; i < pairs.length; i += 2) {
+            double value = (Double) pairs[i + 1];
+            if (Double.isNaN(value)) return null;
+            node.put((String) pairs[i], value);
+        }
+        return node;
+    }
+
+    private static Snapshot toSnapshot(StockAnalysisDTO dto, long timestamp) {
+        Snapshot snapshot = new Snapshot(timestamp)
+                .set(LIVE_PRICE, dto.getLivePrice())
+                .set(DAY_HIGH, dto.getDayHigh())
+                .set(DAY_LOW, dto.getDayLow())
+                .set(WEEK52_HIGH, dto.getWeek52High())
+                .set(WEEK52_LOW, dto.getWeek52Low());
+        Map<String, StockAnalysisDTO.IndicatorDetail> indicators = dto.getIndicators();
+        if (indicators != null) {
+            snapshot.set(RSI, value(indicators.get("rsi")))
+                    .set(SMA, value(indicators.get("sma_20")))
+                    .set(EMA, value(indicators.get("ema_14")));
+            StockAnalysisDTO.IndicatorDetail macd = indicators.get("macd");
+            if (macd != null) {
+                snapshot.set(MACD, macd.getNumericValue())
+                        .set(MACD_SIGNAL, macd.getSignal())
+                        .set(MACD_HISTOGRAM, macd.getHistogram());
+            }
+            // Deliberately the DEFAULT strategy, not the registry: replays must decode the same byte
+            snapshot.setDecision(toByte(StockAnalysisService.decision(StockAnalysisService.defaultScore(indicators))));
+        }
+        return snapshot;
+    }
+
+    private static Double value(StockAnalysisDTO.IndicatorDetail detail) {
+        return detail == null ? null : detail.getNumericValue();
+    }
+
+    private static byte toByte(Recommendation rec) {
+        return (byte) rec.weight();
+    }
+
+    private static Recommendation toRecommendation(byte decision) {
+        return switch (decision) {
+            case 1 -> Recommendation.BUY;
+            case -1 -> Recommendation.SELL;
+            case 0 -> Recommendation.HOLD;
+            default -> null;
+        };
+    }
+}
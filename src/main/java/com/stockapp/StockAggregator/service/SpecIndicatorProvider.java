@@ -0,0 +1,82 @@
+package com.stockapp.StockAggregator.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.stockapp.StockAggregator.dto.StockAnalysisDTO;
+import com.stockapp.StockAggregator.indicator.IndicatorSpec;
+
+import java.util.Set;
+
+/**
+ * Built-in provider for one RSI/SMA/EMA/MACD spec: read from its StockDetails
+ * indicator endpoint (remote) or computed by IndicatorEngine from the synced
+ * history at the live price (local).
+ */
+final class SpecIndicatorProvider implements IndicatorProvider {
+
+    private final IndicatorSpec spec;
+    private final String section; // remote only
+    private final boolean local;
+    private final double weight;
+    private final Set<String> dependencies;
+
+    private SpecIndicatorProvider(IndicatorSpec spec, String section, boolean local, double weight, Set<String> dependencies) {
+        this.spec = spec;
+        this.section = section;
+        this.local = local;
+        this.weight = weight;
+        this.dependencies = dependencies;
+    }
+
+    /** name is the spec as sent to StockDetails (rsi, sma:20, ...). */
+    static SpecIndicatorProvider remote(String name, double weight) {
+        IndicatorSpec spec = IndicatorSpec.parse(name);
+        String section = IndicatorProvider.indicator(name);
+        // SMA/EMA compare the average against the live price
+        Set<String> dependencies = spec.getType() == IndicatorSpec.Type.SMA || spec.getType() == IndicatorSpec.Type.EMA
+                ? Set.of(section, LIVE) : Set.of(section);
+        return new SpecIndicatorProvider(spec, section, false, weight, dependencies);
+    }
+
+    static SpecIndicatorProvider local(String name, double weight) {
+        return new SpecIndicatorProvider(IndicatorSpec.parse(name), null, true, weight, Set.of(HISTORY, LIVE));
+    }
+
+    @Override
+    public String key() {
+        return spec.key();
+    }
+
+    @Override
+    public Set<String> dependencies() {
+        return dependencies;
+    }
+
+    @Override
+    public double weight() {
+        return weight;
+    }
+
+    @Override
+    public StockAnalysisDTO.IndicatorDetail interpret(Inputs inputs) {
+        Double price = inputs.livePrice();
+        if (local) {
+            double[] v = inputs.local(spec);
+            if (v == null) return null;
+            return switch (spec.getType()) {
+                case RSI -> StockAnalysisService.interpretRSI(v[0]);
+                case SMA -> StockAnalysisService.interpretSMA(v[0], price);
+                case EMA -> StockAnalysisService.interpretEMA(v[0], price);
+                case MACD -> StockAnalysisService.interpretMACD(v[0], v[1], v[2]);
+            };
+        }
+        JsonNode json = inputs.json(section);
+        if (json == null) return null;
+        return switch (spec.getType()) {
+            case RSI -> StockAnalysisService.interpretRSI(StockAnalysisService.extractNumericValue(json));
+            case SMA -> StockAnalysisService.interpretSMA(StockAnalysisService.extractNumericValue(json), price);
+            case EMA -> StockAnalysisService.interpretEMA(StockAnalysisService.extractNumericValue(json), price);
+            // json might be { "date":"..", "macd":..., "signal":..., "histogram":... }
+            case MACD -> StockAnalysisService.interpretMACD(json);
+        };
+    }
+}
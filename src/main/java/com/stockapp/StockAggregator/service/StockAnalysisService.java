@@ -2,120 +2,504 @@ package com.stockapp.StockAggregator.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stockapp.StockAggregator.dto.RawJson;
+import com.stockapp.StockAggregator.dto.Recommendation;
 import com.stockapp.StockAggregator.dto.StockAnalysisDTO;
+import com.stockapp.StockAggregator.indicator.IndicatorSpec;
+import com.stockapp.StockAggregator.store.Snapshot;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
 /**
  * Aggregates stock-related data from external StockDetails API.
+ * <p>
+ * An analysis can be narrowed to some fields and indicators (see
+ * IndicatorRegistry); only the upstream sections they depend on are fetched,
+ * each once however many indicators share it.
  */
 @Service
 public class StockAnalysisService {
 
-    private final RestTemplate restTemplate;
+    /** Selectable non-indicator fields, with the section each one reads. */
+    public static final Map<String, String> FIELDS = Map.of(
+            "price", IndicatorProvider.LIVE,
+            "today", IndicatorProvider.TODAY,
+            "week52", IndicatorProvider.WEEK52,
+            "fundamentals", IndicatorProvider.FUNDAMENTALS);
+
+    private final StockDetailsClient client;
+    private final IndicatorEngine indicatorEngine;
+    private final ExecutorService upstreamExecutor;
+    private final PipelineMetrics metrics;
+    private final SnapshotService snapshots;
+    private final IndicatorRegistry registry;
     private final ObjectMapper mapper = new ObjectMapper();
+    private final SingleFlight<String, StockAnalysisDTO> inFlight = new SingleFlight<>();
+
+    // Fan the upstream calls out on upstreamExecutor instead of running them one by one
+    @Value("${stockdetailsapi.aggregation.concurrent:true}")
+    private boolean concurrent;
+
+    // Deadline for a single upstream call in concurrent mode
+    @Value("${stockdetailsapi.aggregation.call-timeout-ms:3000}")
+    private long callTimeoutMs;
+
+    // Deadline for the whole fan-out in concurrent mode
+    @Value("${stockdetailsapi.aggregation.request-timeout-ms:5000}")
+    private long requestTimeoutMs;
+
+    private Plan full;
+
+    public StockAnalysisService(StockDetailsClient client, IndicatorEngine indicatorEngine,
+                                @Qualifier("upstreamExecutor") ExecutorService upstreamExecutor,
+                                PipelineMetrics metrics, SnapshotService snapshots, IndicatorRegistry registry) {
+        this.client = client;
+        this.indicatorEngine = indicatorEngine;
+        this.upstreamExecutor = upstreamExecutor;
+        this.metrics = metrics;
+        this.snapshots = snapshots;
+        this.registry = registry;
+    }
 
-    @Value("${stockdetailsapi.url}")
-    private String stockDetailsBase;
+    @PostConstruct
+    void init() {
+        full = new Plan(FIELDS.keySet(), registry.all(), true);
+    }
 
-    public StockAnalysisService(RestTemplate restTemplate) {
-        this.restTemplate = restTemplate;
+    /** StockDetails calls one uncached full analysis makes (see fetchConcurrently). */
+    public int upstreamCallsPerAnalysis() {
+        return full.sections.size();
     }
 
+    /**
+     * Concurrent analyses of the same symbol share one aggregation run.
+     */
     public StockAnalysisDTO analyzeStock(String symbol) {
-        StockAnalysisDTO dto = new StockAnalysisDTO();
-        dto.setSymbol(symbol);
+        return analyze(symbol, full);
+    }
 
+    /**
+     * analyzeStock narrowed to the given fields (price, today, week52,
+     * fundamentals) and indicator keys. Both null is the full analysis;
+     * otherwise a null selection means none, so ?indicators=rsi fetches only
+     * what RSI needs. Unknown names are a 400. Narrowed analyses are not recorded
+     * as snapshots, since their rows would look like missing data.
+     */
+    public StockAnalysisDTO analyzeStock(String symbol, Collection<String> fields, Collection<String> indicators) {
+        return analyze(symbol, plan(fields, indicators));
+    }
+
+    private StockAnalysisDTO analyze(String symbol, Plan plan) {
         try {
-            // Live price endpoint - adapt to your StockDetailsAPI endpoint path
-            JsonNode live = restTemplate.getForObject(stockDetailsBase + "/api/price/" + symbol + "/live", JsonNode.class);
-            if (live != null) {
-                if (live.has("price")) dto.setLivePrice(live.get("price").asDouble());
-                if (live.has("timestamp")) { /* could store */ }
-            }
+            return inFlight.execute(plan.key(symbol), () -> metrics.analysis(symbol, () -> aggregate(symbol, plan)));
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Non-blocking analyzeStock for pipeline.mode=async: every section is fetched
+     * with the async client and no thread waits for any of them. Same sections,
+     * deadlines and failure rules as the concurrent blocking path, and it joins
+     * blocking analyses of the same symbol that are already running.
+     */
+    public CompletableFuture<StockAnalysisDTO> analyzeStockAsync(String symbol) {
+        return analyzeAsync(symbol, full);
+    }
 
-            // Today's high/low
-            JsonNode today = restTemplate.getForObject(stockDetailsBase + "/api/price/" + symbol + "/today", JsonNode.class);
-            if (today != null) {
-                if (today.has("high")) dto.setDayHigh(today.get("high").asDouble());
-                if (today.has("low")) dto.setDayLow(today.get("low").asDouble());
+    /** Async variant of the narrowed analyzeStock. */
+    public CompletableFuture<StockAnalysisDTO> analyzeStockAsync(String symbol, Collection<String> fields, Collection<String> indicators) {
+        return analyzeAsync(symbol, plan(fields, indicators));
+    }
+
+    private CompletableFuture<StockAnalysisDTO> analyzeAsync(String symbol, Plan plan) {
+        return inFlight.executeAsync(plan.key(symbol), () -> metrics.analysisAsync(symbol, () -> aggregateAsync(symbol, plan)));
+    }
+
+    private Plan plan(Collection<String> fields, Collection<String> indicators) {
+        if (fields == null && indicators == null) return full;
+        Set<String> selectedFields = new TreeSet<>();
+        if (fields != null) {
+            for (String field : fields) {
+                String f = field.trim().toLowerCase(Locale.ROOT);
+                if (f.isEmpty()) continue;
+                if (!FIELDS.containsKey(f)) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                            "Unknown field: " + field + " (available: " + String.join(",", new TreeSet<>(FIELDS.keySet())) + ")");
+                }
+                selectedFields.add(f);
             }
+        }
+        List<IndicatorProvider> selected = indicators == null ? List.of() : registry.select(indicators);
+        return new Plan(selectedFields, selected, false);
+    }
 
-            // 52 week
-            JsonNode w52 = restTemplate.getForObject(stockDetailsBase + "/api/price/" + symbol + "/52week", JsonNode.class);
-            if (w52 != null) {
-                if (w52.has("week52High")) dto.setWeek52High(w52.get("week52High").asDouble());
-                else if (w52.has("high")) dto.setWeek52High(w52.get("high").asDouble());
-                if (w52.has("week52Low")) dto.setWeek52Low(w52.get("week52Low").asDouble());
-                else if (w52.has("low")) dto.setWeek52Low(w52.get("low").asDouble());
+    // What one analysis computes, and the sections that takes
+    private static final class Plan {
+        final Set<String> fields;
+        final List<IndicatorProvider> indicators;
+        final Set<String> sections = new LinkedHashSet<>();
+        final boolean full;
+        final String suffix; // SingleFlight key after the symbol; full analyses are keyed by the symbol alone
+
+        Plan(Set<String> fields, List<IndicatorProvider> indicators, boolean full) {
+            this.fields = fields;
+            this.indicators = indicators;
+            this.full = full;
+            for (String field : fields) sections.add(FIELDS.get(field));
+            for (IndicatorProvider provider : indicators) sections.addAll(provider.dependencies());
+            StringBuilder sb = new StringBuilder();
+            if (!full) {
+                sb.append("?fields=").append(String.join(",", fields)).append("&indicators=");
+                for (IndicatorProvider provider : indicators) sb.append(provider.key()).append(',');
             }
+            this.suffix = sb.toString();
+        }
 
-            // Fundamentals (raw)
-            Object fundamentals = restTemplate.getForObject(stockDetailsBase + "/api/fundamentals/" + symbol, Object.class);
-            dto.setFundamentals(fundamentals);
+        String key(String symbol) {
+            return suffix.isEmpty() ? symbol : symbol + suffix;
+        }
+    }
 
-            // Indicators - fetch latest values (assumes your endpoints return DTO-like objects)
-            Map<String, StockAnalysisDTO.IndicatorDetail> indicators = new HashMap<>();
+    private StockAnalysisDTO aggregate(String symbol, Plan plan) {
+        try {
+            UpstreamData data = concurrent ? fetchConcurrently(symbol, plan) : fetchSequentially(symbol, plan);
+            return assemble(symbol, plan, data);
+        } catch (RestClientException ex) {
+            // handle remote errors gracefully
+            throw upstreamFailure(ex);
+        }
+    }
 
-            // RSI
-            JsonNode rsiJson = safeGet(stockDetailsBase + "/api/indicators/" + symbol + "/rsi");
-            if (rsiJson != null) {
-                Double rsiValue = extractNumericValue(rsiJson);
-                StockAnalysisDTO.IndicatorDetail rsiDetail = interpretRSI(rsiValue);
-                indicators.put("rsi", rsiDetail);
-            }
+    private static RuntimeException upstreamFailure(RestClientException ex) {
+        return new RuntimeException("Failed to fetch data from StockDetails API: " + ex.getMessage(), ex);
+    }
+
+    // Builds the DTO from the fetched sections; shared by the blocking and async paths
+    private StockAnalysisDTO assemble(String symbol, Plan plan, UpstreamData data) {
+        StockAnalysisDTO dto = new StockAnalysisDTO();
+        dto.setSymbol(symbol);
 
-            // SMA (example: 20)
-            JsonNode smaJson = safeGet(stockDetailsBase + "/api/indicators/" + symbol + "/sma:20");
-            if (smaJson != null) {
-                Double smaValue = extractNumericValue(smaJson);
-                StockAnalysisDTO.IndicatorDetail smaDetail = interpretSMA(smaValue, dto.getLivePrice());
-                indicators.put("sma_20", smaDetail);
+        // Live price endpoint - adapt to your StockDetailsAPI endpoint path
+        JsonNode live = data.json(IndicatorProvider.LIVE);
+        Double livePrice = live != null && live.has("price") ? live.get("price").asDouble() : null;
+        if (plan.fields.contains("price")) dto.setLivePrice(livePrice);
+
+        // Today's high/low
+        JsonNode today = data.json(IndicatorProvider.TODAY);
+        if (today != null && plan.fields.contains("today")) {
+            if (today.has("high")) dto.setDayHigh(today.get("high").asDouble());
+            if (today.has("low")) dto.setDayLow(today.get("low").asDouble());
+        }
+
+        // 52 week
+        JsonNode w52 = data.json(IndicatorProvider.WEEK52);
+        if (w52 != null && plan.fields.contains("week52")) {
+            if (w52.has("week52High")) dto.setWeek52High(w52.get("week52High").asDouble());
+            else if (w52.has("high")) dto.setWeek52High(w52.get("high").asDouble());
+            if (w52.has("week52Low")) dto.setWeek52Low(w52.get("week52Low").asDouble());
+            else if (w52.has("low")) dto.setWeek52Low(w52.get("low").asDouble());
+        }
+
+        // Fundamentals (raw)
+        if (plan.fields.contains("fundamentals")) dto.setFundamentals(data.fundamentals());
+
+        // Indicators - each provider interprets the sections it declared
+        Map<String, StockAnalysisDTO.IndicatorDetail> indicators = new HashMap<>();
+        Inputs inputs = new Inputs(symbol, livePrice, data);
+        for (IndicatorProvider provider : plan.indicators) {
+            StockAnalysisDTO.IndicatorDetail detail = provider.interpret(inputs);
+            if (detail != null) indicators.put(provider.key(), detail);
+        }
+
+        dto.setIndicators(indicators);
+
+        // Combine decisions using a weighted strategy
+        dto.setOverallDecision(combineStrategy(indicators));
+
+        if (plan.full) snapshots.record(dto);
+        return dto;
+    }
+
+    // What providers see of one analysis
+    private final class Inputs implements IndicatorProvider.Inputs {
+        private final String symbol;
+        private final Double livePrice;
+        private final UpstreamData data;
+
+        Inputs(String symbol, Double livePrice, UpstreamData data) {
+            this.symbol = symbol;
+            this.livePrice = livePrice;
+            this.data = data;
+        }
+
+        @Override
+        public String symbol() { return symbol; }
+
+        @Override
+        public JsonNode json(String section) {
+            if (!IndicatorProvider.FUNDAMENTALS.equals(section)) return data.json(section);
+            RawJson fundamentals = data.fundamentals();
+            if (fundamentals == null) return null;
+            try {
+                return mapper.readTree(fundamentals.asUnquotedUTF8());
+            } catch (IOException e) {
+                return null;
             }
+        }
+
+        @Override
+        public Double livePrice() { return livePrice; }
+
+        @Override
+        public double[] local(IndicatorSpec spec) {
+            if (!data.historySynced()) return null;
+            return indicatorEngine.evaluate(symbol, List.of(spec), livePrice).get(spec);
+        }
+    }
+
+    /**
+     * Rebuilds an analysis from a stored snapshot with the current rules, without
+     * any upstream call. Fundamentals are not stored, so they are absent.
+     */
+    public StockAnalysisDTO fromSnapshot(String symbol, Snapshot snapshot) {
+        StockAnalysisDTO dto = new StockAnalysisDTO();
+        dto.setSymbol(symbol);
+        dto.setLivePrice(orNull(snapshot.get(Snapshot.Field.LIVE_PRICE)));
+        dto.setDayHigh(orNull(snapshot.get(Snapshot.Field.DAY_HIGH)));
+        dto.setDayLow(orNull(snapshot.get(Snapshot.Field.DAY_LOW)));
+        dto.setWeek52High(orNull(snapshot.get(Snapshot.Field.WEEK52_HIGH)));
+        dto.setWeek52Low(orNull(snapshot.get(Snapshot.Field.WEEK52_LOW)));
+
+        Map<String, StockAnalysisDTO.IndicatorDetail> indicators = new HashMap<>();
+        double rsi = snapshot.get(Snapshot.Field.RSI);
+        if (!Double.isNaN(rsi)) indicators.put("rsi", interpretRSI(rsi));
+        double sma = snapshot.get(Snapshot.Field.SMA);
+        if (!Double.isNaN(sma)) indicators.put("sma_20", interpretSMA(sma, dto.getLivePrice()));
+        double ema = snapshot.get(Snapshot.Field.EMA);
+        if (!Double.isNaN(ema)) indicators.put("ema_14", interpretEMA(ema, dto.getLivePrice()));
+        double macd = snapshot.get(Snapshot.Field.MACD);
+        if (!Double.isNaN(macd)) {
+            indicators.put("macd", interpretMACD(macd, snapshot.get(Snapshot.Field.MACD_SIGNAL),
+                    snapshot.get(Snapshot.Field.MACD_HISTOGRAM)));
+        }
+        dto.setIndicators(indicators);
+        dto.setOverallDecision(combineStrategy(indicators));
+        return dto;
+    }
 
-            // EMA (example: 14)
-            JsonNode emaJson = safeGet(stockDetailsBase + "/api/indicators/" + symbol + "/ema:14");
-            if (emaJson != null) {
-                Double emaValue = extractNumericValue(emaJson);
-                StockAnalysisDTO.IndicatorDetail emaDetail = interpretEMA(emaValue, dto.getLivePrice());
-                indicators.put("ema_14", emaDetail);
+    private static Double orNull(double value) {
+        return Double.isNaN(value) ? null : value;
+    }
+
+    private CompletableFuture<StockAnalysisDTO> aggregateAsync(String symbol, Plan plan) {
+        // All calls start together, so the request deadline bounds each of them
+        long timeoutMs = Math.min(callTimeoutMs, requestTimeoutMs);
+        Map<String, CompletableFuture<?>> sections = new LinkedHashMap<>();
+        for (String section : plan.sections) sections.put(section, fetchAsync(symbol, section, timeoutMs));
+
+        return CompletableFuture.allOf(sections.values().toArray(CompletableFuture[]::new))
+                .handle((ignored, error) -> {
+                    if (error != null) {
+                        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                        throw new CompletionException(cause instanceof RestClientException rce ? upstreamFailure(rce) : cause);
+                    }
+                    UpstreamData data = new UpstreamData();
+                    sections.forEach((section, future) -> data.put(section, future.join()));
+                    return assemble(symbol, plan, data);
+                });
+    }
+
+    private CompletableFuture<?> fetchAsync(String symbol, String section, long timeoutMs) {
+        return switch (section) {
+            case IndicatorProvider.LIVE, IndicatorProvider.TODAY, IndicatorProvider.WEEK52 ->
+                    section(section, null, timeoutMs, () -> client.priceAsync(symbol, section));
+            case IndicatorProvider.FUNDAMENTALS -> section(section, null, timeoutMs, () -> client.fundamentalsAsync(symbol));
+            case IndicatorProvider.HISTORY -> section(section, section, timeoutMs,
+                    () -> indicatorEngine.syncAsync(symbol).thenApply(ignored -> Boolean.TRUE));
+            default -> {
+                String indicator = indicatorName(section);
+                yield section(section, indicator, timeoutMs, () -> client.indicatorAsync(symbol, indicator));
             }
+        };
+    }
 
-            // MACD (fetch latest macd object)
-            JsonNode macdJson = safeGet(stockDetailsBase + "/api/indicators/" + symbol + "/macd:12:26:9");
-            if (macdJson != null) {
-                // macdJson might be { "date":"..", "macd":..., "signal":..., "histogram":... }
-                StockAnalysisDTO.IndicatorDetail macdDetail = interpretMACD(macdJson);
-                indicators.put("macd", macdDetail);
+    /**
+     * One async section. A timeout or a call refused by UpstreamGuard leaves it
+     * missing (null); other failures propagate, except for optional sections
+     * (indicator != null), which are dropped like safeGet does.
+     */
+    private <T> CompletableFuture<T> section(String name, String indicator, long timeoutMs, Supplier<CompletableFuture<T>> call) {
+        CompletableFuture<T> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        return future.orTimeout(timeoutMs, TimeUnit.MILLISECONDS).handle((value, error) -> {
+            if (error == null) return value;
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof TimeoutException) {
+                metrics.upstreamTimeout(name);
+                return null;
+            }
+            if (cause instanceof UpstreamUnavailableException) return null;
+            if (indicator != null) {
+                metrics.indicatorFailure(indicator);
+                return null;
             }
+            throw new CompletionException(cause);
+        });
+    }
+
+    private UpstreamData fetchSequentially(String symbol, Plan plan) {
+        UpstreamData data = new UpstreamData();
+        for (String section : plan.sections) data.put(section, orMissing(() -> fetch(symbol, section)));
+        return data;
+    }
 
-            dto.setIndicators(indicators);
+    // The blocking call behind a section; indicators and history are dropped on failure (safeGet / syncHistory)
+    private Object fetch(String symbol, String section) {
+        return switch (section) {
+            case IndicatorProvider.LIVE, IndicatorProvider.TODAY, IndicatorProvider.WEEK52 -> client.price(symbol, section);
+            case IndicatorProvider.FUNDAMENTALS -> client.fundamentals(symbol);
+            case IndicatorProvider.HISTORY -> syncHistory(symbol);
+            default -> safeGet(symbol, indicatorName(section));
+        };
+    }
 
-            // Combine decisions using a weighted strategy
-            dto.setOverallDecision(combineStrategy(indicators));
+    private static String indicatorName(String section) {
+        return section.substring(section.indexOf('/') + 1);
+    }
 
-        } catch (RestClientException ex) {
-            // handle remote errors gracefully
-            throw new RuntimeException("Failed to fetch data from StockDetails API: " + ex.getMessage(), ex);
+    // A call refused by UpstreamGuard (open circuit, shed load) leaves its section missing
+    private static <T> T orMissing(Supplier<T> call) {
+        try {
+            return call.get();
+        } catch (UpstreamUnavailableException e) {
+            return null;
         }
+    }
 
-        return dto;
+    /**
+     * Runs all of the plan's calls at once (eight for a full remote analysis, five with local indicators). A call
+     * that misses its own deadline or the request deadline, that UpstreamGuard refuses or that the saturated
+     * upstreamExecutor rejects, leaves its section missing; other failures behave as in sequential mode
+     * (price/fundamentals propagate, indicators are dropped).
+     */
+    private UpstreamData fetchConcurrently(String symbol, Plan plan) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(requestTimeoutMs);
+
+        Map<String, CompletableFuture<Object>> calls = new LinkedHashMap<>();
+        for (String section : plan.sections) calls.put(section, submit(section, () -> fetch(symbol, section)));
+
+        UpstreamData data = new UpstreamData();
+        calls.forEach((section, call) -> data.put(section, await(section, call, deadline)));
+        return data;
+    }
+
+    // The HTTP call carries its own deadline (the transport's read timeout), since cancel(true) cannot interrupt it
+    private <T> CompletableFuture<T> submit(String section, Supplier<T> call) {
+        try {
+            return CompletableFuture.supplyAsync(metrics.inCurrentSpan(call), upstreamExecutor)
+                    .orTimeout(callTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            metrics.upstreamRejected(section, "saturated");
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    private <T> T await(String section, CompletableFuture<T> future, long deadlineNanos) {
+        try {
+            return future.get(Math.max(0L, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            metrics.upstreamTimeout(section);
+            future.cancel(true);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            return null;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof TimeoutException) {
+                metrics.upstreamTimeout(section);
+                return null;
+            }
+            if (cause instanceof UpstreamUnavailableException) return null;
+            if (cause instanceof RuntimeException re) throw re;
+            throw new IllegalStateException(cause);
+        }
     }
 
-    private JsonNode safeGet(String url) {
+    private boolean syncHistory(String symbol) {
         try {
-            return restTemplate.getForObject(url, JsonNode.class);
+            indicatorEngine.sync(symbol);
+            return true;
         } catch (Exception e) {
+            metrics.indicatorFailure("history");
+            return false; // same contract as safeGet: indicators are simply missing
+        }
+    }
+
+    private JsonNode safeGet(String symbol, String indicator) {
+        try {
+            return client.indicator(symbol, indicator);
+        } catch (Exception e) {
+            metrics.indicatorFailure(indicator);
             return null;
         }
     }
 
-    private Double extractNumericValue(JsonNode node) {
+    // Raw upstream payloads for one symbol, by section; absent means the section is missing
+    private static class UpstreamData {
+        private final Map<String, Object> sections = new HashMap<>();
+
+        void put(String section, Object value) {
+            if (value != null) sections.put(section, value);
+        }
+
+        JsonNode json(String section) {
+            return sections.get(section) instanceof JsonNode node ? node : null;
+        }
+
+        RawJson fundamentals() {
+            return (RawJson) sections.get(IndicatorProvider.FUNDAMENTALS);
+        }
+
+        // local indicator mode: OHLCV history applied to IndicatorEngine
+        boolean historySynced() {
+            return Boolean.TRUE.equals(sections.get(IndicatorProvider.HISTORY));
+        }
+    }
+
+    static Double extractNumericValue(JsonNode node) {
         // Tries common keys: value, price, close, macd (if scalar)
         if (node == null) return null;
         if (node.has("value")) return node.get("value").asDouble();
@@ -127,145 +511,104 @@ public class StockAnalysisService {
         return null;
     }
 
-    // Interpretations: market-aware meaning strings
-    private StockAnalysisDTO.IndicatorDetail interpretRSI(Double value) {
-        StockAnalysisDTO.IndicatorDetail detail = new StockAnalysisDTO.IndicatorDetail();
-        detail.setValue(value);
-        if (value == null) {
-            detail.setMeaning("RSI not available");
-            detail.setRecommendation("HOLD");
-            return detail;
-        }
+    // Interpretations: only the recommendation is decided here; the meaning text
+    // is derived from the values when the DTO is serialized.
+    // Package-private, like combineStrategy, for the providers and the JMH suites in src/jmh/java.
+    static StockAnalysisDTO.IndicatorDetail interpretRSI(Double value) {
+        double rsi = value == null ? Double.NaN : value;
+        return new StockAnalysisDTO.IndicatorDetail(StockAnalysisDTO.IndicatorDetail.Kind.RSI, rsi, Double.NaN, rsiRule(rsi));
+    }
 
-        if (value < 30) {
-            detail.setMeaning(String.format("RSI %.2f: Deep/strong oversold conditions often indicate a potential bullish reversal. Contrarian traders may see buying opportunity.", value));
-            detail.setRecommendation("BUY");
-        } else if (value < 40) {
-            detail.setMeaning(String.format("RSI %.2f: Mildly oversold; watch for reversal signals and confirm with volume and other indicators.", value));
-            detail.setRecommendation("BUY");
-        } else if (value <= 60) {
-            detail.setMeaning(String.format("RSI %.2f: Neutral zone — the market is balanced between buyers and sellers.", value));
-            detail.setRecommendation("HOLD");
-        } else if (value <= 70) {
-            detail.setMeaning(String.format("RSI %.2f: Mildly overbought; monitor for weakening momentum.", value));
-            detail.setRecommendation("HOLD");
-        } else {
-            detail.setMeaning(String.format("RSI %.2f: Overbought conditions suggest possible pullback or correction; risk of near-term selling.", value));
-            detail.setRecommendation("SELL");
-        }
-        return detail;
+    static StockAnalysisDTO.IndicatorDetail interpretSMA(Double sma, Double price) {
+        return new StockAnalysisDTO.IndicatorDetail(StockAnalysisDTO.IndicatorDetail.Kind.SMA,
+                sma == null ? Double.NaN : sma, price == null ? Double.NaN : price, crossover(sma, price));
     }
 
-    private StockAnalysisDTO.IndicatorDetail interpretSMA(Double sma, Double price) {
-        StockAnalysisDTO.IndicatorDetail detail = new StockAnalysisDTO.IndicatorDetail();
-        detail.setValue(sma);
-        if (sma == null || price == null) {
-            detail.setMeaning("SMA or price not available");
-            detail.setRecommendation("HOLD");
-            return detail;
-        }
-        if (price > sma) {
-            detail.setMeaning(String.format("Price (%.2f) above SMA (%.2f): short-to-mid-term momentum is bullish.", price, sma));
-            detail.setRecommendation("BUY");
-        } else if (price < sma) {
-            detail.setMeaning(String.format("Price (%.2f) below SMA (%.2f): short-to-mid-term momentum is bearish.", price, sma));
-            detail.setRecommendation("SELL");
-        } else {
-            detail.setMeaning(String.format("Price equals SMA: neutral trend.", price));
-            detail.setRecommendation("HOLD");
-        }
-        return detail;
+    static StockAnalysisDTO.IndicatorDetail interpretEMA(Double ema, Double price) {
+        return new StockAnalysisDTO.IndicatorDetail(StockAnalysisDTO.IndicatorDetail.Kind.EMA,
+                ema == null ? Double.NaN : ema, price == null ? Double.NaN : price, crossover(ema, price));
     }
 
-    private StockAnalysisDTO.IndicatorDetail interpretEMA(Double ema, Double price) {
-        StockAnalysisDTO.IndicatorDetail detail = new StockAnalysisDTO.IndicatorDetail();
-        detail.setValue(ema);
-        if (ema == null || price == null) {
-            detail.setMeaning("EMA or price not available");
-            detail.setRecommendation("HOLD");
-            return detail;
-        }
-        if (price > ema) {
-            detail.setMeaning(String.format("Price (%.2f) above EMA (%.2f): recent momentum bullish.", price, ema));
-            detail.setRecommendation("BUY");
-        } else if (price < ema) {
-            detail.setMeaning(String.format("Price (%.2f) below EMA (%.2f): recent momentum bearish.", price, ema));
-            detail.setRecommendation("SELL");
-        } else {
-            detail.setMeaning("Price equals EMA: neutral short-term momentum.");
-            detail.setRecommendation("HOLD");
-        }
-        return detail;
+    private static Recommendation crossover(Double average, Double price) {
+        if (average == null || price == null) return Recommendation.HOLD;
+        return crossover(average.doubleValue(), price.doubleValue());
     }
 
-    private StockAnalysisDTO.IndicatorDetail interpretMACD(JsonNode macdNode) {
-        StockAnalysisDTO.IndicatorDetail detail = new StockAnalysisDTO.IndicatorDetail();
-        detail.setValue(macdNode);
-        // If macdNode contains macd, signal, histogram
+    static StockAnalysisDTO.IndicatorDetail interpretMACD(JsonNode macdNode) {
         if (macdNode == null) {
-            detail.setMeaning("MACD not available");
-            detail.setRecommendation("HOLD");
-            return detail;
+            return new StockAnalysisDTO.IndicatorDetail(StockAnalysisDTO.IndicatorDetail.Kind.MACD,
+                    Double.NaN, Double.NaN, Recommendation.HOLD);
         }
-
+        // If macdNode contains macd, signal, histogram
         double macd = macdNode.has("macd") ? macdNode.get("macd").asDouble() : macdNode.asDouble();
         double signal = macdNode.has("signal") ? macdNode.get("signal").asDouble() : 0.0;
         double hist = macdNode.has("histogram") ? macdNode.get("histogram").asDouble() : (macd - signal);
+        return interpretMACD(macd, signal, hist);
+    }
 
-        String meaning = String.format("MACD = %.4f, Signal = %.4f, Histogram = %.4f. ", macd, signal, hist);
-
-        if (macd > signal && hist > 0) {
-            meaning += "MACD above signal and positive histogram indicates bullish momentum and potential continuation.";
-            detail.setRecommendation("BUY");
-        } else if (macd < signal && hist < 0) {
-            meaning += "MACD below signal and negative histogram indicates bearish momentum and potential continuation.";
-            detail.setRecommendation("SELL");
-        } else {
-            meaning += "Mixed MACD signals; treat with caution and confirm with other indicators.";
-            detail.setRecommendation("HOLD");
-        }
-        detail.setMeaning(meaning);
-        return detail;
+    static StockAnalysisDTO.IndicatorDetail interpretMACD(double macd, double signal, double hist) {
+        return StockAnalysisDTO.IndicatorDetail.macd(macd, signal, hist, macdRule(macd, signal, hist));
+    }
+
+    // The rules themselves, on primitives so that backtests can replay them without allocating
+
+    public static Recommendation rsiRule(double rsi) {
+        if (Double.isNaN(rsi)) return Recommendation.HOLD;
+        if (rsi < 40) return Recommendation.BUY;   // oversold (deeply below 30)
+        if (rsi <= 70) return Recommendation.HOLD; // neutral or mildly overbought
+        return Recommendation.SELL;
+    }
+
+    // Price above the average is bullish, below bearish (NaN on either side: HOLD)
+    public static Recommendation crossover(double average, double price) {
+        if (price > average) return Recommendation.BUY;
+        if (price < average) return Recommendation.SELL;
+        return Recommendation.HOLD;
+    }
+
+    public static Recommendation macdRule(double macd, double signal, double hist) {
+        if (macd > signal && hist > 0) return Recommendation.BUY;
+        if (macd < signal && hist < 0) return Recommendation.SELL;
+        return Recommendation.HOLD; // mixed signals
     }
 
     /**
      * Combine indicators using a weighted strategy (institutional-like).
      * - Give higher weight to trend-following signals (SMA/EMA/MACD)
      * - Momentum indicators (RSI) weigh moderately
-     * This is a simple example. You can tune weights or add more complex strategies.
+     * The weights are the providers' (see IndicatorRegistry).
      */
-    private String combineStrategy(Map<String, StockAnalysisDTO.IndicatorDetail> indicators) {
-        double score = 0.0;
-
-        // weight settings (example)
-        double wRSI = 1.0;
-        double wSMA = 1.5;
-        double wEMA = 1.2;
-        double wMACD = 1.8;
-
-        StockAnalysisDTO.IndicatorDetail rsi = indicators.get("rsi");
-        StockAnalysisDTO.IndicatorDetail sma = indicators.get("sma_20");
-        StockAnalysisDTO.IndicatorDetail ema = indicators.get("ema_14");
-        StockAnalysisDTO.IndicatorDetail macd = indicators.get("macd");
-
-        if (rsi != null) score += weightRecommendation(rsi.getRecommendation()) * wRSI;
-        if (sma != null) score += weightRecommendation(sma.getRecommendation()) * wSMA;
-        if (ema != null) score += weightRecommendation(ema.getRecommendation()) * wEMA;
-        if (macd != null) score += weightRecommendation(macd.getRecommendation()) * wMACD;
-
-        // Final decision by threshold
-        if (score >= 2.0) return "Overall: BUY (weighted indicators bullish)";
-        if (score <= -2.0) return "Overall: SELL (weighted indicators bearish)";
-        return "Overall: HOLD (mixed or neutral signals)";
-    }
-
-    // Map textual recommendation into numeric weight
-    private double weightRecommendation(String rec) {
-        if (rec == null) return 0.0;
-        return switch (rec.toUpperCase()) {
-            case "BUY" -> 1.0;
-            case "SELL" -> -1.0;
-            default -> 0.0;
+    String combineStrategy(Map<String, StockAnalysisDTO.IndicatorDetail> indicators) {
+        return switch (decision(registry.score(indicators))) {
+            case BUY -> "Overall: BUY (weighted indicators bullish)";
+            case SELL -> "Overall: SELL (weighted indicators bearish)";
+            case HOLD -> "Overall: HOLD (mixed or neutral signals)";
         };
     }
+
+    /** Final decision by threshold on the weighted score. */
+    public static Recommendation decision(double score) {
+        return StrategyParameters.DEFAULT.decide(score);
+    }
+
+    /**
+     * Weighted sum of the registered indicators' scores, the one overallDecision
+     * is taken from; use it wherever a score is shown next to that decision.
+     */
+    public double score(Map<String, StockAnalysisDTO.IndicatorDetail> indicators) {
+        return registry.score(indicators);
+    }
+
+    /**
+     * Weighted sum of the classic indicators' scores with StrategyParameters.DEFAULT,
+     * the strategy snapshots and backtests replay; allocation-free.
+     */
+    public static double defaultScore(Map<String, StockAnalysisDTO.IndicatorDetail> indicators) {
+        return StrategyParameters.DEFAULT.score(signal(indicators.get("rsi")), signal(indicators.get("sma_20")),
+                signal(indicators.get("ema_14")), signal(indicators.get("macd")));
+    }
+
+    private static double signal(StockAnalysisDTO.IndicatorDetail detail) {
+        return detail == null ? 0.0 : detail.getScore();
+    }
 }
@@ -0,0 +1,311 @@
+package com.stockapp.StockAggregator.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stockapp.StockAggregator.dto.CacheStatsDTO;
+import com.stockapp.StockAggregator.dto.RawJson;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+
+/**
+ * Read-through client for the StockDetails API.
+ * Every endpoint has its own TTL cache, tuned by how often its data class changes.
+ * Cache misses go through {@link UpstreamGuard}; a call it refuses is answered
+ * with the last cached value however old, or fails with
+ * {@link UpstreamUnavailableException} when there is none.
+ */
+@Service
+public class StockDetailsClient {
+
+    /**
+     * Data classes with their default freshness (ttl) and stale-while-revalidate window.
+     * Override with stockdetailsapi.cache.&lt;key&gt;.ttl-ms / .stale-ms.
+     */
+    public enum DataClass {
+        LIVE("live", 1_000, 4_000),
+        TODAY("today", 30_000, 60_000),
+        WEEK52("week52", 6 * 3_600_000L, 18 * 3_600_000L),
+        FUNDAMENTALS("fundamentals", 6 * 3_600_000L, 18 * 3_600_000L),
+        INDICATOR("indicators", 60_000, 240_000),
+        HISTORY("history", 15 * 60_000L, 6 * 3_600_000L);
+
+        private final String key;
+        private final long defaultTtlMs;
+        private final long defaultStaleMs;
+
+        DataClass(String key, long defaultTtlMs, long defaultStaleMs) {
+            this.key = key;
+            this.defaultTtlMs = defaultTtlMs;
+            this.defaultStaleMs = defaultStaleMs;
+        }
+    }
+
+    // Top-level fields read from each section; everything else is skipped while parsing
+    private static final Set<String> LIVE_FIELDS = Set.of("price", "timestamp");
+    private static final Set<String> TODAY_FIELDS = Set.of("high", "low");
+    private static final Set<String> WEEK52_FIELDS = Set.of("week52High", "week52Low", "high", "low");
+    private static final Set<String> INDICATOR_FIELDS = Set.of("value", "price", "close", "macd", "signal", "histogram");
+
+    private final RestTemplate restTemplate;
+    private final ExecutorService refreshExecutor;
+    private final Environment env;
+    private final PipelineMetrics metrics;
+    private final HttpClient httpClient;
+    private final UpstreamGuard guard;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Map<String, TtlCache<String, Object>> caches = new ConcurrentHashMap<>();
+
+    @Value("${stockdetailsapi.url}")
+    private String stockDetailsBase;
+
+    // OHLCV history endpoint used by the local indicator engine
+    @Value("${stockdetailsapi.ohlcv.path:/api/price/{symbol}/ohlcv}")
+    private String ohlcvPath;
+
+    @Value("${stockdetailsapi.cache.enabled:true}")
+    private boolean cacheEnabled;
+
+    // Per-request timeout of the async client (the pooled RestTemplate has its own),
+    // capped at the section deadline like the blocking transport's
+    @Value("${upstream.stockdetails.read-timeout-ms:4000}")
+    private long readTimeoutMs;
+
+    @Value("${stockdetailsapi.aggregation.call-timeout-ms:3000}")
+    private long callTimeoutMs;
+
+    // Per-endpoint bound on cached symbols (LRU beyond that)
+    @Value("${stockdetailsapi.cache.max-entries:2000}")
+    private int maxEntries;
+
+    private String host;
+
+    public StockDetailsClient(@Qualifier("stockDetailsRestTemplate") RestTemplate restTemplate,
+                              @Qualifier("refreshExecutor") ExecutorService refreshExecutor,
+                              @Qualifier("asyncHttpClient") HttpClient httpClient,
+                              Environment env, PipelineMetrics metrics, UpstreamGuard guard) {
+        this.restTemplate = restTemplate;
+        this.httpClient = httpClient;
+        this.refreshExecutor = refreshExecutor;
+        this.env = env;
+        this.metrics = metrics;
+        this.guard = guard;
+    }
+
+    @PostConstruct
+    void init() {
+        host = URI.create(stockDetailsBase).getHost();
+    }
+
+    /** Host every call of this client goes to. */
+    public String host() {
+        return host;
+    }
+
+    /**
+     * GET /api/price/{symbol}/{section} for section live, today or 52week.
+     * Only the fields the analysis reads are kept. A hedged section (see
+     * upstream.hedge.endpoints) is fetched with the async client, so both
+     * attempts run without a second thread.
+     */
+    public JsonNode price(String symbol, String section) {
+        String url = stockDetailsBase + "/api/price/" + symbol + "/" + section;
+        Set<String> fields = priceFields(section);
+        if (guard.isHedged(section)) {
+            return (JsonNode) load(priceDataClass(section), section, symbol, () -> guard.hedged(host, section,
+                    () -> metrics.upstreamAsync(section, symbol,
+                            () -> getBytesAsync(url).thenApply(body -> (Object) JsonFields.select(body, fields)))));
+        }
+        return (JsonNode) cached(priceDataClass(section), section, symbol, () -> JsonFields.select(getBytes(url), fields));
+    }
+
+    /** GET /api/fundamentals/{symbol}, kept as the raw JSON bytes. */
+    public RawJson fundamentals(String symbol) {
+        String url = stockDetailsBase + "/api/fundamentals/" + symbol;
+        return (RawJson) cached(DataClass.FUNDAMENTALS, "fundamentals", symbol, () -> toRawJson(getBytes(url)));
+    }
+
+    /** GET /api/indicators/{symbol}/{spec}, e.g. spec rsi, sma:20 or macd:12:26:9. */
+    public JsonNode indicator(String symbol, String spec) {
+        String url = stockDetailsBase + "/api/indicators/" + symbol + "/" + spec;
+        return (JsonNode) cached(DataClass.INDICATOR, "indicators/" + spec, symbol,
+                () -> JsonFields.select(getBytes(url), INDICATOR_FIELDS));
+    }
+
+    /** Daily OHLCV bars of the symbol, as returned by the configured history endpoint. */
+    public JsonNode history(String symbol) {
+        String url = stockDetailsBase + ohlcvPath.replace("{symbol}", symbol);
+        return (JsonNode) cached(DataClass.HISTORY, "history", symbol, () -> restTemplate.getForObject(url, JsonNode.class));
+    }
+
+    // Non-blocking variants for pipeline.mode=async: same caches, same parsing
+
+    public CompletableFuture<JsonNode> priceAsync(String symbol, String section) {
+        String url = stockDetailsBase + "/api/price/" + symbol + "/" + section;
+        Set<String> fields = priceFields(section);
+        return cachedAsync(priceDataClass(section), section, symbol,
+                () -> getBytesAsync(url).thenApply(body -> JsonFields.select(body, fields)))
+                .thenApply(JsonNode.class::cast);
+    }
+
+    public CompletableFuture<RawJson> fundamentalsAsync(String symbol) {
+        String url = stockDetailsBase + "/api/fundamentals/" + symbol;
+        return cachedAsync(DataClass.FUNDAMENTALS, "fundamentals", symbol,
+                () -> getBytesAsync(url).thenApply(StockDetailsClient::toRawJson))
+                .thenApply(RawJson.class::cast);
+    }
+
+    public CompletableFuture<JsonNode> indicatorAsync(String symbol, String spec) {
+        String url = stockDetailsBase + "/api/indicators/" + symbol + "/" + spec;
+        return cachedAsync(DataClass.INDICATOR, "indicators/" + spec, symbol,
+                () -> getBytesAsync(url).thenApply(body -> JsonFields.select(body, INDICATOR_FIELDS)))
+                .thenApply(JsonNode.class::cast);
+    }
+
+    public CompletableFuture<JsonNode> historyAsync(String symbol) {
+        String url = stockDetailsBase + ohlcvPath.replace("{symbol}", symbol);
+        return cachedAsync(DataClass.HISTORY, "history", symbol,
+                () -> getBytesAsync(url).thenApply(this::readTree))
+                .thenApply(JsonNode.class::cast);
+    }
+
+    private static DataClass priceDataClass(String section) {
+        return switch (section) {
+            case "live" -> DataClass.LIVE;
+            case "today" -> DataClass.TODAY;
+            default -> DataClass.WEEK52;
+        };
+    }
+
+    private static Set<String> priceFields(String section) {
+        return switch (section) {
+            case "live" -> LIVE_FIELDS;
+            case "today" -> TODAY_FIELDS;
+            default -> WEEK52_FIELDS;
+        };
+    }
+
+    // Passed through verbatim later, so a body that is not one JSON value fails here, before it is cached
+    private static RawJson toRawJson(byte[] body) {
+        if (body == null || body.length == 0) return null;
+        JsonFields.requireSingleValue(body);
+        return new RawJson(body);
+    }
+
+    private byte[] getBytes(String url) {
+        return restTemplate.getForObject(url, byte[].class);
+    }
+
+    // Same contract as getBytes: 4xx and 5xx fail with the same exceptions RestTemplate throws
+    private CompletableFuture<byte[]> getBytesAsync(String url) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofMillis(Math.min(readTimeoutMs, callTimeoutMs)))
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray()).thenApply(response -> {
+            HttpStatusCode status = HttpStatusCode.valueOf(response.statusCode());
+            if (status.is4xxClientError()) throw new HttpClientErrorException(status, "GET " + url);
+            if (status.is5xxServerError()) throw new HttpServerErrorException(status, "GET " + url);
+            if (!status.is2xxSuccessful()) {
+                throw new RestClientException("GET " + url + " returned " + response.statusCode());
+            }
+            return response.body();
+        });
+    }
+
+    private JsonNode readTree(byte[] body) {
+        if (body == null || body.length == 0) return null;
+        try {
+            return mapper.readTree(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Malformed upstream JSON: " + e.getMessage(), e);
+        }
+    }
+
+    /** Seeds the live, today or 52week cache with a value fetched ageMs ago, e.g. from a stored snapshot. */
+    public void warmPrice(String section, String symbol, JsonNode value, long ageMs) {
+        warm(priceDataClass(section), section, symbol, value, ageMs);
+    }
+
+    /** Seeds the cache of an indicator spec, as fetched by indicator(symbol, spec), with a value fetched ageMs ago. */
+    public void warmIndicator(String spec, String symbol, JsonNode value, long ageMs) {
+        warm(DataClass.INDICATOR, "indicators/" + spec, symbol, value, ageMs);
+    }
+
+    private void warm(DataClass dataClass, String endpoint, String symbol, JsonNode value, long ageMs) {
+        if (!cacheEnabled || value == null) return;
+        caches.computeIfAbsent(endpoint, name -> newCache(dataClass, name)).put(symbol, value, ageMs);
+    }
+
+    public List<CacheStatsDTO> cacheStats() {
+        return caches.values().stream().map(TtlCache::stats).toList();
+    }
+
+    // Only real upstream calls are observed; cache hits are visible in cacheStats()
+    private Object cached(DataClass dataClass, String endpoint, String symbol, Supplier<Object> loader) {
+        return load(dataClass, endpoint, symbol, () -> guard.call(host, endpoint, () -> metrics.upstream(endpoint, symbol, loader)));
+    }
+
+    // guarded is the complete upstream call (guard and observation included)
+    private Object load(DataClass dataClass, String endpoint, String symbol, Supplier<Object> guarded) {
+        if (!cacheEnabled) return guarded.get();
+        TtlCache<String, Object> cache = caches.computeIfAbsent(endpoint, name -> newCache(dataClass, name));
+        try {
+            return cache.get(symbol, guarded);
+        } catch (UpstreamUnavailableException e) {
+            return fallback(cache, symbol, e);
+        }
+    }
+
+    private CompletableFuture<Object> cachedAsync(DataClass dataClass, String endpoint, String symbol,
+                                                  Supplier<CompletableFuture<Object>> loader) {
+        Supplier<CompletableFuture<Object>> observed = guard.isHedged(endpoint)
+                ? () -> guard.hedgedAsync(host, endpoint, () -> metrics.upstreamAsync(endpoint, symbol, loader))
+                : () -> guard.callAsync(host, endpoint, () -> metrics.upstreamAsync(endpoint, symbol, loader));
+        if (!cacheEnabled) return observed.get();
+        TtlCache<String, Object> cache = caches.computeIfAbsent(endpoint, name -> newCache(dataClass, name));
+        return cache.getAsync(symbol, observed).exceptionally(error -> {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof UpstreamUnavailableException e) return fallback(cache, symbol, e);
+            throw error instanceof CompletionException ce ? ce : new CompletionException(error);
+        });
+    }
+
+    // A refused call is answered with the last value even past its stale window
+    private static Object fallback(TtlCache<String, Object> cache, String symbol, UpstreamUnavailableException e) {
+        Object last = cache.peek(symbol);
+        if (last == null) throw e;
+        return last;
+    }
+
+    private TtlCache<String, Object> newCache(DataClass dataClass, String endpoint) {
+        String prefix = "stockdetailsapi.cache." + dataClass.key;
+        long ttlMs = env.getProperty(prefix + ".ttl-ms", Long.class, dataClass.defaultTtlMs);
+        long staleMs = env.getProperty(prefix + ".stale-ms", Long.class, dataClass.defaultStaleMs);
+        return new TtlCache<>(endpoint, ttlMs, staleMs, maxEntries, refreshExecutor);
+    }
+}
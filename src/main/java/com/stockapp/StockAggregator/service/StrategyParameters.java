@@ -0,0 +1,25 @@
+package com.stockapp.StockAggregator.service;
+
+import com.stockapp.StockAggregator.dto.Recommendation;
+
+/**
+ * Weights and thresholds of the combined strategy. DEFAULT is what every live
+ * analysis uses; backtests replay the same rules with other values.
+ */
+public record StrategyParameters(double rsiWeight, double smaWeight, double emaWeight, double macdWeight,
+                                 double buyThreshold, double sellThreshold) {
+
+    // Trend-following signals count more than momentum
+    public static final StrategyParameters DEFAULT = new StrategyParameters(1.0, 1.5, 1.2, 1.8, 2.0, -2.0);
+
+    /** Weighted sum of the per-indicator recommendations, each given as its weight (1, 0 or -1). */
+    public double score(double rsi, double sma, double ema, double macd) {
+        return rsi * rsiWeight + sma * smaWeight + ema * emaWeight + macd * macdWeight;
+    }
+
+    public Recommendation decide(double score) {
+        if (score >= buyThreshold) return Recommendation.BUY;
+        if (score <= sellThreshold) return Recommendation.SELL;
+        return Recommendation.HOLD;
+    }
+}
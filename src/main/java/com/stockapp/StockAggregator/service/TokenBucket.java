@@ -0,0 +1,62 @@
+package com.stockapp.StockAggregator.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Token-bucket rate limiter: refills at a steady rate up to a burst capacity.
+ * A rate of zero or less means unlimited.
+ */
+public final class TokenBucket {
+
+    private final double permitsPerNano;
+    private final double capacity;
+    private final LongSupplier clock;
+
+    // guarded by this
+    private double tokens;
+    private long refilledAt;
+
+    public TokenBucket(double permitsPerSecond, double burst) {
+        this(permitsPerSecond, burst, System::nanoTime);
+    }
+
+    TokenBucket(double permitsPerSecond, double burst, LongSupplier clock) {
+        this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.capacity = Math.max(1, burst);
+        this.clock = clock;
+        this.tokens = capacity;
+        this.refilledAt = clock.getAsLong();
+    }
+
+    /**
+     * Takes the permits if they are available now; otherwise takes nothing and
+     * returns the nanoseconds until they will be. A request larger than the
+     * burst is capped to it, so it waits for a full bucket rather than forever.
+     */
+    public synchronized long tryAcquire(double permits) {
+        if (permitsPerNano <= 0) return 0;
+        double wanted = Math.min(permits, capacity);
+        long now = clock.getAsLong();
+        tokens = Math.min(capacity, tokens + (now - refilledAt) * permitsPerNano);
+        refilledAt = now;
+        if (tokens >= wanted) {
+            tokens -= wanted;
+            return 0;
+        }
+        return Math.max(1, (long) Math.ceil((wanted - tokens) / permitsPerNano));
+    }
+
+    /** Blocks until the permits are taken. */
+    public void acquire(double permits) throws InterruptedException {
+        long wait;
+        while ((wait = tryAcquire(permits)) > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+    public synchronized double available() {
+        if (permitsPerNano <= 0) return Double.POSITIVE_INFINITY;
+        return Math.min(capacity, tokens + (clock.getAsLong() - refilledAt) * permitsPerNano);
+    }
+}
@@ -0,0 +1,234 @@
+package com.stockapp.StockAggregator.service;
+
+import com.stockapp.StockAggregator.dto.CacheStatsDTO;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bounded LRU cache with a fresh TTL and a stale-while-revalidate window.
+ * <p>
+ * Within the TTL an entry is served as is. After the TTL, and until the stale
+ * window ends, the old value is still served while a single background refresh
+ * reloads it. Past that the caller loads synchronously. Null values are never cached.
+ */
+public class TtlCache<K, V> {
+
+    private final String name;
+    private final long ttlNanos;
+    private final long staleNanos;
+    private final int maxEntries;
+    private final Executor refreshExecutor;
+    private final Map<K, Entry<V>> entries;
+    private final Set<K> refreshing = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public TtlCache(String name, long ttlMs, long staleMs, int maxEntries, Executor refreshExecutor) {
+        this.name = name;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        this.staleNanos = TimeUnit.MILLISECONDS.toNanos(staleMs);
+        this.maxEntries = maxEntries;
+        this.refreshExecutor = refreshExecutor;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() <= TtlCache.this.maxEntries) return false;
+                evictions.increment();
+                return true;
+            }
+        };
+    }
+
+    public V get(K key, Supplier<V> loader) {
+        Entry<V> entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        if (entry != null) {
+            long age = System.nanoTime() - entry.loadedAt;
+            if (age < ttlNanos) {
+                hits.increment();
+                return entry.value;
+            }
+            if (age < ttlNanos + staleNanos) {
+                staleHits.increment();
+                refreshInBackground(key, loader);
+                return entry.value;
+            }
+        }
+        misses.increment();
+        V value = loader.get();
+        put(key, value);
+        return value;
+    }
+
+    /**
+     * Non-blocking variant of get: the same fresh/stale rules, with a loader that
+     * returns a future. A miss completes when the load does.
+     */
+    public CompletableFuture<V> getAsync(K key, Supplier<CompletableFuture<V>> loader) {
+        Entry<V> entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        if (entry != null) {
+            long age = System.nanoTime() - entry.loadedAt;
+            if (age < ttlNanos) {
+                hits.increment();
+                return CompletableFuture.completedFuture(entry.value);
+            }
+            if (age < ttlNanos + staleNanos) {
+                staleHits.increment();
+                refreshAsync(key, loader);
+                return CompletableFuture.completedFuture(entry.value);
+            }
+        }
+        misses.increment();
+        return loader.get().thenApply(value -> {
+            put(key, value);
+            return value;
+        });
+    }
+
+    /** Returns the value only while it is fresh, without loading; null otherwise. */
+    public V getIfFresh(K key) {
+        Entry<V> entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        if (entry != null && System.nanoTime() - entry.loadedAt < ttlNanos) {
+            hits.increment();
+            return entry.value;
+        }
+        misses.increment();
+        return null;
+    }
+
+    /** Returns the cached value even if expired, without loading; null if absent. */
+    public V peek(K key) {
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            return entry == null ? null : entry.value;
+        }
+    }
+
+    public void put(K key, V value) {
+        put(key, value, 0L);
+    }
+
+    /** Stores a value that was loaded ageMs ago, e.g. when restoring a snapshot. */
+    public void put(K key, V value, long ageMs) {
+        if (value == null) return;
+        long loadedAt = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(ageMs);
+        synchronized (entries) {
+            entries.put(key, new Entry<>(value, loadedAt));
+        }
+    }
+
+    /** Copies the entries that are still servable (fresh or stale), least recently used first. */
+    public List<Snapshot<K, V>> snapshot() {
+        long now = System.nanoTime();
+        List<Snapshot<K, V>> copy = new ArrayList<>();
+        synchronized (entries) {
+            for (Map.Entry<K, Entry<V>> e : entries.entrySet()) {
+                long age = now - e.getValue().loadedAt;
+                if (age < ttlNanos + staleNanos) {
+                    copy.add(new Snapshot<>(e.getKey(), e.getValue().value, TimeUnit.NANOSECONDS.toMillis(age)));
+                }
+            }
+        }
+        return copy;
+    }
+
+    public void invalidate(K key) {
+        synchronized (entries) {
+            entries.remove(key);
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public CacheStatsDTO stats() {
+        CacheStatsDTO stats = new CacheStatsDTO();
+        stats.setName(name);
+        stats.setSize(size());
+        stats.setHits(hits.sum());
+        stats.setStaleHits(staleHits.sum());
+        stats.setMisses(misses.sum());
+        stats.setEvictions(evictions.sum());
+        return stats;
+    }
+
+    private void refreshInBackground(K key, Supplier<V> loader) {
+        if (!refreshing.add(key)) return; // a refresh for this key is already running
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    put(key, loader.get());
+                } catch (RuntimeException ignored) {
+                    // keep serving the stale value; the next stale hit retries
+                } finally {
+                    refreshing.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(key);
+        }
+    }
+
+    private void refreshAsync(K key, Supplier<CompletableFuture<V>> loader) {
+        if (!refreshing.add(key)) return;
+        try {
+            loader.get().whenComplete((value, error) -> {
+                if (error == null) put(key, value); // on failure keep serving the stale value
+                refreshing.remove(key);
+            });
+        } catch (RuntimeException e) {
+            refreshing.remove(key);
+        }
+    }
+
+    public static final class Snapshot<K, V> {
+        private final K key;
+        private final V value;
+        private final long ageMs;
+
+        public Snapshot(K key, V value, long ageMs) {
+            this.key = key;
+            this.value = value;
+            this.ageMs = ageMs;
+        }
+
+        public K getKey() { return key; }
+        public V getValue() { return value; }
+        public long getAgeMs() { return ageMs; }
+    }
+
+    private static final class Entry<V> {
+        final V value;
+        final long loadedAt;
+
+        Entry(V value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
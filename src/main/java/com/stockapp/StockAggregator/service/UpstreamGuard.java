@@ -0,0 +1,332 @@
+package com.stockapp.StockAggregator.service;
+
+import com.stockapp.StockAggregator.dto.UpstreamHealthDTO;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Resilience around every real StockDetails call (cache hits never get here):
+ * <ul>
+ *   <li>a {@link CircuitBreaker} per endpoint; calls slower than slow-call-ms count as failures</li>
+ *   <li>an {@link AdaptiveLimiter} per host that refuses calls beyond its limit</li>
+ *   <li>optional hedging: a second attempt once the first is slower than the
+ *       endpoint's recent p95, the first answer wins</li>
+ * </ul>
+ * Refused calls fail at once with {@link UpstreamUnavailableException}. A 4xx
+ * other than 429 says nothing about the host's health and counts as a success.
+ */
+@Component
+public class UpstreamGuard {
+
+    // Latency samples kept per hedged endpoint, and how many must exist before hedging starts
+    private static final int LATENCY_WINDOW = 256;
+    private static final int MIN_SAMPLES = 20;
+
+    private final PipelineMetrics metrics;
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+    private final Map<String, AdaptiveLimiter> limiters = new ConcurrentHashMap<>();
+    private final Map<String, LatencyWindow> latencies = new ConcurrentHashMap<>();
+
+    @Value("${upstream.resilience.enabled:true}")
+    private boolean enabled;
+
+    @Value("${upstream.breaker.failure-rate:0.5}")
+    private double failureRate;
+
+    @Value("${upstream.breaker.window:20}")
+    private int window;
+
+    @Value("${upstream.breaker.min-calls:10}")
+    private int minCalls;
+
+    @Value("${upstream.breaker.open-ms:10000}")
+    private long openMs;
+
+    @Value("${upstream.breaker.half-open-calls:3}")
+    private int halfOpenCalls;
+
+    @Value("${upstream.breaker.slow-call-ms:3000}")
+    private long slowCallMs;
+
+    @Value("${upstream.limit.initial:16}")
+    private int initialLimit;
+
+    @Value("${upstream.limit.min:2}")
+    private int minLimit;
+
+    @Value("${upstream.limit.max:64}")
+    private int maxLimit;
+
+    // A call slower than tolerance x the best latency seen counts as queueing
+    @Value("${upstream.limit.tolerance:2.0}")
+    private double tolerance;
+
+    @Value("${upstream.limit.backoff:0.9}")
+    private double backoff;
+
+    @Value("${upstream.hedge.enabled:false}")
+    private boolean hedgeEnabled;
+
+    @Value("${upstream.hedge.endpoints:live}")
+    private String[] hedgeEndpoints;
+
+    @Value("${upstream.hedge.percentile:0.95}")
+    private double hedgePercentile;
+
+    @Value("${upstream.hedge.min-delay-ms:20}")
+    private long hedgeMinDelayMs;
+
+    @Value("${upstream.hedge.max-delay-ms:1000}")
+    private long hedgeMaxDelayMs;
+
+    private long slowCallNanos;
+    private Set<String> hedged;
+
+    public UpstreamGuard(PipelineMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @PostConstruct
+    void init() {
+        slowCallNanos = TimeUnit.MILLISECONDS.toNanos(slowCallMs);
+        hedged = hedgeEnabled && enabled ? Set.copyOf(Arrays.asList(hedgeEndpoints)) : Set.of();
+        for (String endpoint : hedged) latencies.put(endpoint, new LatencyWindow(LATENCY_WINDOW));
+    }
+
+    public boolean isHedged(String endpoint) {
+        return hedged.contains(endpoint);
+    }
+
+    /** Runs a blocking call to host under the endpoint's breaker and the host's limit. */
+    public <T> T call(String host, String endpoint, Supplier<T> call) {
+        if (!enabled) return call.get();
+        CircuitBreaker breaker = breaker(endpoint);
+        if (!breaker.tryAcquire()) throw rejected(endpoint, "circuit-open");
+        AdaptiveLimiter limiter = limiter(host);
+        if (!limiter.tryAcquire()) {
+            breaker.release();
+            throw rejected(endpoint, "shed");
+        }
+        long start = System.nanoTime();
+        T value;
+        try {
+            value = call.get();
+        } catch (RuntimeException e) {
+            attemptDone(endpoint, limiter, start, e);
+            callDone(breaker, start, e);
+            throw e;
+        }
+        attemptDone(endpoint, limiter, start, null);
+        callDone(breaker, start, null);
+        return value;
+    }
+
+    /** Async variant of call. */
+    public <T> CompletableFuture<T> callAsync(String host, String endpoint, Supplier<CompletableFuture<T>> call) {
+        if (!enabled) return call.get();
+        CircuitBreaker breaker = breaker(endpoint);
+        if (!breaker.tryAcquire()) return CompletableFuture.failedFuture(rejected(endpoint, "circuit-open"));
+        long start = System.nanoTime();
+        return attempt(host, endpoint, call).whenComplete((value, error) -> callDone(breaker, start, error));
+    }
+
+    /**
+     * Like callAsync, plus a second attempt when the first has not answered
+     * within the endpoint's recent p95 latency (clamped to min/max-delay-ms).
+     * The first success wins; the slower attempt is left to finish and still
+     * informs the limiter. The hedge is an ordinary call for the limiter, so an
+     * overloaded host sheds hedges first. Endpoints that are not hedged get callAsync.
+     */
+    public <T> CompletableFuture<T> hedgedAsync(String host, String endpoint, Supplier<CompletableFuture<T>> call) {
+        LatencyWindow latency = latencies.get(endpoint);
+        if (latency == null) return callAsync(host, endpoint, call);
+        CircuitBreaker breaker = breaker(endpoint);
+        if (!breaker.tryAcquire()) return CompletableFuture.failedFuture(rejected(endpoint, "circuit-open"));
+
+        long start = System.nanoTime();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger(1);
+        attempt(host, endpoint, call).whenComplete((value, error) -> settle(result, pending, value, error));
+        CompletableFuture.delayedExecutor(hedgeDelayMs(latency), TimeUnit.MILLISECONDS).execute(() -> {
+            if (result.isDone()) return;
+            pending.incrementAndGet();
+            metrics.upstreamHedged(endpoint);
+            attempt(host, endpoint, call).whenComplete((value, error) -> settle(result, pending, value, error));
+        });
+        return result.whenComplete((value, error) -> callDone(breaker, start, error));
+    }
+
+    /** Blocking hedgedAsync: waits for the winning attempt, failing like the RestTemplate calls do. */
+    public <T> T hedged(String host, String endpoint, Supplier<CompletableFuture<T>> call) {
+        CompletableFuture<T> future = hedgedAsync(host, endpoint, call);
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new ResourceAccessException("Interrupted waiting for StockDetails " + endpoint);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException re) throw re;
+            if (cause instanceof IOException io) {
+                throw new ResourceAccessException("I/O error on StockDetails " + endpoint + ": " + io.getMessage(), io);
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    public List<UpstreamHealthDTO> health() {
+        List<UpstreamHealthDTO> health = new ArrayList<>();
+        breakers.forEach((endpoint, breaker) -> {
+            UpstreamHealthDTO dto = new UpstreamHealthDTO();
+            dto.setName(endpoint);
+            dto.setType("endpoint");
+            dto.setState(breaker.state().name());
+            LatencyWindow latency = latencies.get(endpoint);
+            if (latency != null) dto.setHedgeDelayMs(hedgeDelayMs(latency));
+            health.add(dto);
+        });
+        limiters.forEach((host, limiter) -> {
+            UpstreamHealthDTO dto = new UpstreamHealthDTO();
+            dto.setName(host);
+            dto.setType("host");
+            dto.setLimit(limiter.limit());
+            dto.setInFlight(limiter.inFlight());
+            health.add(dto);
+        });
+        return health;
+    }
+
+    // One real request under the host's limit; a refused one fails without being sent
+    private <T> CompletableFuture<T> attempt(String host, String endpoint, Supplier<CompletableFuture<T>> call) {
+        AdaptiveLimiter limiter = limiter(host);
+        if (!limiter.tryAcquire()) return CompletableFuture.failedFuture(rejected(endpoint, "shed"));
+        long start = System.nanoTime();
+        CompletableFuture<T> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException e) {
+            attemptDone(endpoint, limiter, start, e);
+            return CompletableFuture.failedFuture(e);
+        }
+        return future.whenComplete((value, error) -> attemptDone(endpoint, limiter, start, error));
+    }
+
+    // First success completes the result; it fails only once every attempt has failed
+    private static <T> void settle(CompletableFuture<T> result, AtomicInteger pending, T value, Throwable error) {
+        if (error == null) {
+            result.complete(value);
+        } else if (pending.decrementAndGet() == 0) {
+            result.completeExceptionally(unwrap(error));
+        }
+    }
+
+    private void attemptDone(String endpoint, AdaptiveLimiter limiter, long start, Throwable error) {
+        long latency = System.nanoTime() - start;
+        Throwable cause = unwrap(error);
+        if (cause instanceof CancellationException) {
+            limiter.release();
+        } else if (isOverload(cause)) {
+            limiter.onDrop();
+        } else {
+            limiter.onSuccess(latency);
+            LatencyWindow window = latencies.get(endpoint);
+            if (window != null && cause == null) window.record(latency);
+        }
+    }
+
+    private void callDone(CircuitBreaker breaker, long start, Throwable error) {
+        Throwable cause = unwrap(error);
+        if (cause instanceof CancellationException || cause instanceof UpstreamUnavailableException) {
+            breaker.release(); // no verdict on the endpoint
+        } else if (isOverload(cause) || System.nanoTime() - start > slowCallNanos) {
+            breaker.onFailure();
+        } else {
+            breaker.onSuccess();
+        }
+    }
+
+    // 4xx other than 429 is about the request (e.g. an unknown symbol), not the host
+    private static boolean isOverload(Throwable cause) {
+        if (cause == null) return false;
+        if (cause instanceof HttpClientErrorException e) return e.getStatusCode().value() == 429;
+        return true;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    private long hedgeDelayMs(LatencyWindow latency) {
+        long nanos = latency.percentile(hedgePercentile, MIN_SAMPLES);
+        if (nanos < 0) return hedgeMaxDelayMs;
+        return Math.min(hedgeMaxDelayMs, Math.max(hedgeMinDelayMs, TimeUnit.NANOSECONDS.toMillis(nanos)));
+    }
+
+    private UpstreamUnavailableException rejected(String endpoint, String reason) {
+        metrics.upstreamRejected(endpoint, reason);
+        return new UpstreamUnavailableException(endpoint, reason);
+    }
+
+    private CircuitBreaker breaker(String endpoint) {
+        return breakers.computeIfAbsent(endpoint,
+                e -> new CircuitBreaker(failureRate, window, minCalls, openMs, halfOpenCalls));
+    }
+
+    private AdaptiveLimiter limiter(String host) {
+        return limiters.computeIfAbsent(host,
+                h -> new AdaptiveLimiter(initialLimit, minLimit, maxLimit, tolerance, backoff));
+    }
+
+    // Most recent successful latencies of one endpoint; the percentile is re-sorted at most every 16 samples
+    private static final class LatencyWindow {
+        private final long[] samples;
+        private int count;
+        private int next;
+        private long cached = -1;
+        private double cachedFor;
+        private int sinceSort;
+
+        LatencyWindow(int size) {
+            this.samples = new long[size];
+        }
+
+        synchronized void record(long nanos) {
+            samples[next] = nanos;
+            next = (next + 1) % samples.length;
+            if (count < samples.length) count++;
+            sinceSort++;
+        }
+
+        // -1 until minSamples latencies were seen
+        synchronized long percentile(double p, int minSamples) {
+            if (count < minSamples) return -1;
+            if (cached >= 0 && cachedFor == p && sinceSort < 16) return cached;
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            int index = (int) Math.min(count - 1, Math.max(0, Math.ceil(p * count) - 1));
+            cached = sorted[index];
+            cachedFor = p;
+            sinceSort = 0;
+            return cached;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.stockapp.StockAggregator.service;
+
+import org.springframework.web.client.RestClientException;
+
+/**
+ * An upstream call refused before it was sent: its endpoint's circuit is open
+ * or its host is at its concurrency limit. Callers treat the section as
+ * missing (or serve what the cache still holds) instead of waiting.
+ */
+public class UpstreamUnavailableException extends RestClientException {
+
+    private final String reason;
+
+    public UpstreamUnavailableException(String endpoint, String reason) {
+        super("StockDetails " + endpoint + " unavailable: " + reason);
+        this.reason = reason;
+    }
+
+    /** circuit-open or shed. */
+    public String getReason() {
+        return reason;
+    }
+}
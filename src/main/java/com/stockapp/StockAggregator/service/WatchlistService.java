@@ -0,0 +1,343 @@
+package com.stockapp.StockAggregator.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stockapp.StockAggregator.dto.Recommendation;
+import com.stockapp.StockAggregator.dto.SignalDeltaDTO;
+import com.stockapp.StockAggregator.dto.StockAnalysisDTO;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Push-based watchlist: subscribers register a set of symbols over SSE and are
+ * sent a delta only when the overall decision or an indicator recommendation
+ * of one of their symbols changes.
+ * <p>
+ * Each watched symbol is refreshed once per tick however many subscribers it
+ * has, and an event is serialized once and written to every subscriber. Per
+ * subscriber the server only holds the emitter and its symbol list; per symbol
+ * the last decision and recommendations.
+ * <p>
+ * Writes never happen on the refresh or scheduler threads: every event goes
+ * into the subscriber's bounded outbox, drained on watchlistSendExecutor, so a
+ * slow client only delays itself. A subscriber whose outbox is full has fallen
+ * too far behind and is closed; its client reconnects and gets a fresh snapshot.
+ */
+@Service
+public class WatchlistService {
+
+    private static final Logger log = LoggerFactory.getLogger(WatchlistService.class);
+
+    private final StockAnalysisService analysisService;
+    private final ExecutorService refreshExecutor;
+    private final ExecutorService sendExecutor;
+    private final ScheduledExecutorService scheduler;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private final Map<String, Topic> topics = new ConcurrentHashMap<>();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    @Value("${watchlist.refresh-interval-ms:5000}")
+    private long refreshIntervalMs;
+
+    @Value("${watchlist.heartbeat-ms:15000}")
+    private long heartbeatMs;
+
+    // Clients reconnect after this; 0 keeps the stream open until the client leaves
+    @Value("${watchlist.emitter-timeout-ms:1800000}")
+    private long emitterTimeoutMs;
+
+    @Value("${watchlist.max-subscribers:10000}")
+    private int maxSubscribers;
+
+    @Value("${watchlist.max-symbols:50}")
+    private int maxSymbols;
+
+    // Events a subscriber may have pending before it is closed as too slow
+    @Value("${watchlist.subscriber-queue-size:32}")
+    private int subscriberQueueSize;
+
+    public WatchlistService(StockAnalysisService analysisService,
+                            @Qualifier("watchlistExecutor") ExecutorService refreshExecutor,
+                            @Qualifier("watchlistSendExecutor") ExecutorService sendExecutor,
+                            @Qualifier("watchlistScheduler") ScheduledExecutorService scheduler) {
+        this.analysisService = analysisService;
+        this.refreshExecutor = refreshExecutor;
+        this.sendExecutor = sendExecutor;
+        this.scheduler = scheduler;
+    }
+
+    @PostConstruct
+    void start() {
+        scheduler.scheduleWithFixedDelay(this::refreshAll, refreshIntervalMs, refreshIntervalMs, TimeUnit.MILLISECONDS);
+        scheduler.scheduleAtFixedRate(this::heartbeat, heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+        }
+    }
+
+    /**
+     * Opens a stream for the given symbols. A "snapshot" event is sent for each
+     * symbol once its state is known, then "signal" events carry only what changed.
+     */
+    public SseEmitter subscribe(List<String> symbols) {
+        return subscribe(symbols, new SseEmitter(emitterTimeoutMs));
+    }
+
+    SseEmitter subscribe(List<String> symbols, SseEmitter emitter) {
+        List<String> watch = normalize(symbols);
+        if (subscribers.size() >= maxSubscribers) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many watchlist subscribers");
+        }
+
+        Subscriber subscriber = new Subscriber(emitter, watch, subscriberQueueSize);
+        subscriber.emitter.onCompletion(() -> unsubscribe(subscriber));
+        subscriber.emitter.onTimeout(() -> unsubscribe(subscriber));
+        subscriber.emitter.onError(e -> unsubscribe(subscriber));
+        subscribers.add(subscriber);
+
+        List<Topic> cold = new ArrayList<>();
+        AtomicBoolean full = new AtomicBoolean();
+        for (String symbol : watch) {
+            // Joins and queues the snapshot under the lock publish takes, so no
+            // signal can reach the outbox ahead of it
+            topics.compute(symbol, (k, t) -> {
+                Topic current = t != null ? t : new Topic(k);
+                synchronized (current) {
+                    current.subscribers.add(subscriber);
+                    if (current.snapshot == null) {
+                        cold.add(current);
+                    } else if (!offer(subscriber, "snapshot", current.snapshot)) {
+                        full.set(true);
+                    }
+                }
+                return current;
+            });
+        }
+        if (full.get()) {
+            drop(subscriber);
+            return subscriber.emitter;
+        }
+        scheduleDrain(subscriber);
+        for (Topic topic : cold) {
+            refresh(topic);
+        }
+        return subscriber.emitter;
+    }
+
+    public int getSubscriberCount() { return subscribers.size(); }
+
+    public int getWatchedSymbolCount() { return topics.size(); }
+
+    public boolean isWatched(String symbol) { return topics.containsKey(symbol); }
+
+    private List<String> normalize(List<String> symbols) {
+        Set<String> unique = new LinkedHashSet<>();
+        if (symbols != null) {
+            for (String symbol : symbols) {
+                if (symbol != null && !symbol.isBlank()) unique.add(symbol.trim());
+            }
+        }
+        if (unique.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No symbols given");
+        }
+        if (unique.size() > maxSymbols) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Too many symbols: " + unique.size() + " (max " + maxSymbols + ")");
+        }
+        return new ArrayList<>(unique);
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        if (!subscribers.remove(subscriber)) return;
+        for (String symbol : subscriber.symbols) {
+            topics.computeIfPresent(symbol, (k, t) -> {
+                t.subscribers.remove(subscriber);
+                return t.subscribers.isEmpty() ? null : t; // stop refreshing unwatched symbols
+            });
+        }
+    }
+
+    void refreshAll() {
+        for (Topic topic : topics.values()) {
+            refresh(topic);
+        }
+    }
+
+    private void refresh(Topic topic) {
+        if (!topic.refreshing.compareAndSet(false, true)) return; // previous refresh still running
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    publish(topic, analysisService.analyzeStock(topic.symbol));
+                } catch (Exception e) {
+                    log.debug("Watchlist refresh of {} failed: {}", topic.symbol, e.getMessage());
+                } finally {
+                    topic.refreshing.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            topic.refreshing.set(false);
+        }
+    }
+
+    private void publish(Topic topic, StockAnalysisDTO dto) throws JsonProcessingException {
+        Map<String, Recommendation> recommendations = new LinkedHashMap<>();
+        if (dto.getIndicators() != null) {
+            dto.getIndicators().forEach((key, detail) -> {
+                if (detail != null) recommendations.put(key, detail.getRecommendation());
+            });
+        }
+
+        String name;
+        String event;
+        synchronized (topic) {
+            Map<String, Recommendation> changed = new LinkedHashMap<>();
+            recommendations.forEach((key, rec) -> {
+                if (!Objects.equals(rec, topic.recommendations.get(key))) changed.put(key, rec);
+            });
+            boolean first = topic.snapshot == null;
+            boolean decisionChanged = !Objects.equals(dto.getOverallDecision(), topic.decision);
+            if (!first && !decisionChanged && changed.isEmpty()) return;
+
+            name = first ? "snapshot" : "signal";
+            event = mapper.writeValueAsString(toDelta(dto, topic.decision, changed));
+            topic.decision = dto.getOverallDecision();
+            topic.recommendations = recommendations;
+            topic.snapshot = first ? event : mapper.writeValueAsString(toDelta(dto, null, recommendations));
+        }
+        for (Subscriber subscriber : topic.subscribers) {
+            send(subscriber, name, event);
+        }
+    }
+
+    private static SignalDeltaDTO toDelta(StockAnalysisDTO dto, String previousDecision, Map<String, Recommendation> recommendations) {
+        SignalDeltaDTO delta = new SignalDeltaDTO();
+        delta.setSymbol(dto.getSymbol());
+        delta.setLivePrice(dto.getLivePrice());
+        delta.setOverallDecision(dto.getOverallDecision());
+        delta.setPreviousDecision(previousDecision);
+        delta.setRecommendations(recommendations);
+        delta.setTimestamp(System.currentTimeMillis());
+        return delta;
+    }
+
+    private void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            send(subscriber, SseEmitter.event().comment("ping"));
+        }
+    }
+
+    private void send(Subscriber subscriber, String name, String json) {
+        send(subscriber, SseEmitter.event().name(name).data(json));
+    }
+
+    // Queues without dropping or draining, for callers holding a lock; false when the outbox is full
+    private static boolean offer(Subscriber subscriber, String name, String json) {
+        return subscriber.closed || subscriber.outbox.offer(SseEmitter.event().name(name).data(json));
+    }
+
+    // Never blocks: queues the event and makes sure a drain is scheduled
+    private void send(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        if (subscriber.closed) return;
+        if (!subscriber.outbox.offer(event)) {
+            log.debug("Closing watchlist subscriber of {}: {} events behind", subscriber.symbols, subscriber.outbox.size());
+            drop(subscriber);
+            return;
+        }
+        scheduleDrain(subscriber);
+    }
+
+    private void scheduleDrain(Subscriber subscriber) {
+        if (!subscriber.draining.compareAndSet(false, true)) return; // the running drain picks the event up
+        try {
+            sendExecutor.execute(() -> drain(subscriber));
+        } catch (RejectedExecutionException e) {
+            subscriber.draining.set(false);
+            drop(subscriber);
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            SseEmitter.SseEventBuilder event;
+            while (!subscriber.closed && (event = subscriber.outbox.poll()) != null) {
+                subscriber.emitter.send(event);
+            }
+        } catch (Exception e) {
+            drop(subscriber);
+        } finally {
+            subscriber.draining.set(false);
+        }
+        // an event queued after the last poll, while draining was still set
+        if (!subscriber.closed && !subscriber.outbox.isEmpty()) scheduleDrain(subscriber);
+    }
+
+    private void drop(Subscriber subscriber) {
+        subscriber.closed = true;
+        subscriber.outbox.clear();
+        unsubscribe(subscriber);
+        try {
+            subscriber.emitter.complete();
+        } catch (Exception ignored) {
+            // already closed by the container
+        }
+    }
+
+    private static final class Topic {
+        final String symbol;
+        final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+        final AtomicBoolean refreshing = new AtomicBoolean();
+        // guarded by this
+        String decision;
+        Map<String, Recommendation> recommendations = Collections.emptyMap();
+        String snapshot; // full state as JSON, sent to new subscribers
+
+        Topic(String symbol) {
+            this.symbol = symbol;
+        }
+    }
+
+    private static final class Subscriber {
+        final SseEmitter emitter;
+        final List<String> symbols;
+        final BlockingQueue<SseEmitter.SseEventBuilder> outbox;
+        final AtomicBoolean draining = new AtomicBoolean();
+        volatile boolean closed;
+
+        Subscriber(SseEmitter emitter, List<String> symbols, int queueSize) {
+            this.emitter = emitter;
+            this.symbols = symbols;
+            this.outbox = new ArrayBlockingQueue<>(queueSize);
+        }
+    }
+}
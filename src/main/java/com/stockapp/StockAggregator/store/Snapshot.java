@@ -0,0 +1,56 @@
+package com.stockapp.StockAggregator.store;
+
+import java.util.Arrays;
+
+/**
+ * One stored row: a timestamp, a fixed set of double fields (NaN when the
+ * analysis had no value) and the overall decision as a signed byte.
+ */
+public final class Snapshot {
+
+    /** The double columns, in file order. */
+    public enum Field {
+        LIVE_PRICE, DAY_HIGH, DAY_LOW, WEEK52_HIGH, WEEK52_LOW,
+        RSI, SMA, EMA, MACD, MACD_SIGNAL, MACD_HISTOGRAM;
+
+        static final Field[] ALL = values();
+    }
+
+    /** Decision byte of a row without one; otherwise 1 buy, -1 sell, 0 hold. */
+    public static final byte NO_DECISION = Byte.MIN_VALUE;
+
+    private final long timestamp;
+    private final double[] values;
+    private byte decision = NO_DECISION;
+
+    public Snapshot(long timestamp) {
+        this.timestamp = timestamp;
+        this.values = new double[Field.ALL.length];
+        Arrays.fill(values, Double.NaN);
+    }
+
+    Snapshot(long timestamp, double[] values, byte decision) {
+        this.timestamp = timestamp;
+        this.values = values;
+        this.decision = decision;
+    }
+
+    public long getTimestamp() { return timestamp; }
+
+    public double get(Field field) { return values[field.ordinal()]; }
+
+    /** Null leaves the field NaN. */
+    public Snapshot set(Field field, Double value) {
+        values[field.ordinal()] = value == null ? Double.NaN : value;
+        return this;
+    }
+
+    public byte getDecision() { return decision; }
+
+    public Snapshot setDecision(byte decision) {
+        this.decision = decision;
+        return this;
+    }
+
+    double value(int column) { return values[column]; }
+}
@@ -0,0 +1,169 @@
+package com.stockapp.StockAggregator.store;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Append-only file of one symbol's snapshots, memory-mapped in fixed-size
+ * chunks. Inside a chunk every column is a contiguous primitive array:
+ * <pre>
+ *   header (64 bytes): magic, rowsPerChunk, row count
+ *   chunk i:           long timestamp[rows] | double field[rows] x 11 | byte decision[rows]
+ * </pre>
+ * A row is written column by column and becomes visible when the row count
+ * moves past it, so readers never see half a row. Timestamps never decrease,
+ * which lets range scans binary-search the timestamp column.
+ * <p>
+ * One writer at a time (append is synchronized); reads take no lock.
+ */
+final class SnapshotFile {
+
+    private static final int MAGIC = 0x534E5031; // "SNP1"
+    private static final int HEADER_BYTES = 64;
+    private static final int ROWS_OFFSET = 4;
+    private static final int COUNT_OFFSET = 8;
+    private static final int FIELDS = Snapshot.Field.ALL.length;
+
+    private final Path path;
+    private final int rowsPerChunk;
+    private final long chunkBytes;
+    private final MappedByteBuffer header;
+
+    private volatile MappedByteBuffer[] chunks = new MappedByteBuffer[0]; // copy-on-write, grown under lock
+    private volatile long count; // published after the row's columns are written
+    private long lastTimestamp;  // guarded by this
+
+    private SnapshotFile(Path path, int rowsPerChunk, MappedByteBuffer header, long count) {
+        this.path = path;
+        this.rowsPerChunk = rowsPerChunk;
+        this.chunkBytes = (long) rowsPerChunk * (Long.BYTES + FIELDS * Double.BYTES + 1);
+        this.header = header;
+        this.count = count;
+    }
+
+    /** Opens the file, creating it when absent; an existing file keeps its own chunk size. */
+    static SnapshotFile open(Path path, int rowsPerChunk) throws IOException {
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            boolean fresh = channel.size() == 0;
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+            if (fresh) {
+                header.putInt(0, MAGIC);
+                header.putInt(ROWS_OFFSET, rowsPerChunk);
+                header.putLong(COUNT_OFFSET, 0);
+            } else if (header.getInt(0) != MAGIC) {
+                throw new IOException("Not a snapshot file: " + path);
+            }
+            SnapshotFile file = new SnapshotFile(path, header.getInt(ROWS_OFFSET), header, header.getLong(COUNT_OFFSET));
+            if (file.count > 0) {
+                file.chunk((int) ((file.count - 1) / file.rowsPerChunk));
+                file.lastTimestamp = file.timestamp(file.count - 1);
+            }
+            return file;
+        }
+    }
+
+    long count() { return count; }
+
+    synchronized void append(Snapshot snapshot) throws IOException {
+        long row = count;
+        MappedByteBuffer chunk = chunk((int) (row / rowsPerChunk));
+        int r = (int) (row % rowsPerChunk);
+        for (int f = 0; f < FIELDS; f++) {
+            chunk.putDouble(fieldOffset(f) + r * Double.BYTES, snapshot.value(f));
+        }
+        chunk.put(decisionOffset() + r, snapshot.getDecision());
+        long ts = Math.max(snapshot.getTimestamp(), lastTimestamp); // clock steps back: keep the column sorted
+        chunk.putLong(r * Long.BYTES, ts);
+
+        header.putLong(COUNT_OFFSET, row + 1);
+        lastTimestamp = ts;
+        count = row + 1;
+    }
+
+    long timestamp(long row) {
+        return chunks[(int) (row / rowsPerChunk)].getLong((int) (row % rowsPerChunk) * Long.BYTES);
+    }
+
+    Snapshot row(long row) {
+        MappedByteBuffer chunk = chunks[(int) (row / rowsPerChunk)];
+        int r = (int) (row % rowsPerChunk);
+        double[] values = new double[FIELDS];
+        for (int f = 0; f < FIELDS; f++) {
+            values[f] = chunk.getDouble(fieldOffset(f) + r * Double.BYTES);
+        }
+        return new Snapshot(chunk.getLong(r * Long.BYTES), values, chunk.get(decisionOffset() + r));
+    }
+
+    /** First row whose timestamp is >= ts, among the first n rows. */
+    long lowerBound(long ts, long n) {
+        long lo = 0;
+        long hi = n;
+        while (lo < hi) {
+            long mid = (lo + hi) >>> 1;
+            if (timestamp(mid) < ts) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /** Copies rows [from, to) column by column, one bulk read per column and chunk. */
+    SnapshotRange read(long from, long to) {
+        int n = (int) (to - from);
+        long[] timestamps = new long[n];
+        double[][] columns = new double[FIELDS][n];
+        byte[] decisions = new byte[n];
+        MappedByteBuffer[] mapped = chunks;
+        int out = 0;
+        for (long row = from; row < to; ) {
+            MappedByteBuffer chunk = mapped[(int) (row / rowsPerChunk)];
+            int r = (int) (row % rowsPerChunk);
+            int len = (int) Math.min(rowsPerChunk - r, to - row);
+            chunk.slice(r * Long.BYTES, len * Long.BYTES).asLongBuffer().get(timestamps, out, len);
+            for (int f = 0; f < FIELDS; f++) {
+                chunk.slice(fieldOffset(f) + r * Double.BYTES, len * Double.BYTES)
+                        .asDoubleBuffer().get(columns[f], out, len);
+            }
+            chunk.slice(decisionOffset() + r, len).get(decisions, out, len);
+            out += len;
+            row += len;
+        }
+        return new SnapshotRange(timestamps, columns, decisions);
+    }
+
+    /** Flushes written pages to disk. */
+    void force() {
+        for (MappedByteBuffer chunk : chunks) chunk.force();
+        header.force();
+    }
+
+    private int fieldOffset(int field) {
+        return rowsPerChunk * (Long.BYTES + field * Double.BYTES);
+    }
+
+    private int decisionOffset() {
+        return rowsPerChunk * (Long.BYTES + FIELDS * Double.BYTES);
+    }
+
+    // Maps chunks up to and including index; mapping past the end grows the file
+    private MappedByteBuffer chunk(int index) throws IOException {
+        MappedByteBuffer[] mapped = chunks;
+        if (index < mapped.length) return mapped[index];
+        synchronized (this) {
+            mapped = chunks;
+            if (index < mapped.length) return mapped[index];
+            MappedByteBuffer[] grown = Arrays.copyOf(mapped, index + 1);
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                for (int i = mapped.length; i <= index; i++) {
+                    grown[i] = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_BYTES + i * chunkBytes, chunkBytes);
+                }
+            }
+            chunks = grown;
+            return grown[index];
+        }
+    }
+}
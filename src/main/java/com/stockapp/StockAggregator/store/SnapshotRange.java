@@ -0,0 +1,30 @@
+package com.stockapp.StockAggregator.store;
+
+/**
+ * Rows of one symbol in time order, column by column, as read by
+ * {@link SnapshotStore#range}.
+ */
+public final class SnapshotRange {
+
+    private final long[] timestamps;
+    private final double[][] columns; // indexed by Snapshot.Field ordinal
+    private final byte[] decisions;
+
+    SnapshotRange(long[] timestamps, double[][] columns, byte[] decisions) {
+        this.timestamps = timestamps;
+        this.columns = columns;
+        this.decisions = decisions;
+    }
+
+    static SnapshotRange empty() {
+        return new SnapshotRange(new long[0], new double[Snapshot.Field.ALL.length][0], new byte[0]);
+    }
+
+    public int size() { return timestamps.length; }
+
+    public long[] timestamps() { return timestamps; }
+
+    public double[] column(Snapshot.Field field) { return columns[field.ordinal()]; }
+
+    public byte[] decisions() { return decisions; }
+}
@@ -0,0 +1,111 @@
+package com.stockapp.StockAggregator.store;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Embedded time-series store: one memory-mapped columnar file per symbol
+ * ({@code <dir>/<symbol>.snap}), appended to in time order and scanned by
+ * time range with a binary search over the timestamp column.
+ * <p>
+ * Rows survive a process crash as soon as they are appended (the pages belong
+ * to the OS); {@link #flush()} is needed only against a machine crash.
+ */
+public final class SnapshotStore implements AutoCloseable {
+
+    private static final String SUFFIX = ".snap";
+    // Symbols become file names, so nothing that could leave the directory
+    private static final Pattern SYMBOL = Pattern.compile("[A-Za-z0-9][A-Za-z0-9._^=-]{0,31}");
+    private static final int MAX_ROWS_PER_CHUNK = 1 << 20;
+
+    private final Path dir;
+    private final int rowsPerChunk;
+    private final Map<String, SnapshotFile> files = new ConcurrentHashMap<>();
+
+    public SnapshotStore(Path dir, int rowsPerChunk) throws IOException {
+        if (rowsPerChunk < 1 || rowsPerChunk > MAX_ROWS_PER_CHUNK) {
+            throw new IllegalArgumentException("rowsPerChunk must be 1.." + MAX_ROWS_PER_CHUNK);
+        }
+        this.dir = Files.createDirectories(dir);
+        this.rowsPerChunk = rowsPerChunk;
+    }
+
+    public static boolean isStorable(String symbol) {
+        return symbol != null && SYMBOL.matcher(symbol).matches();
+    }
+
+    public void append(String symbol, Snapshot snapshot) throws IOException {
+        try {
+            file(symbol, true).append(snapshot);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Rows with from <= timestamp <= to, oldest first. Beyond limit rows only
+     * the most recent ones are returned.
+     */
+    public SnapshotRange range(String symbol, long from, long to, int limit) {
+        SnapshotFile file = file(symbol, false);
+        if (file == null || from > to || limit <= 0) return SnapshotRange.empty();
+        long n = file.count();
+        long start = file.lowerBound(from, n);
+        long end = to == Long.MAX_VALUE ? n : file.lowerBound(to + 1, n);
+        return file.read(Math.max(start, end - limit), end);
+    }
+
+    /** Most recent row of the symbol; null when it has none. */
+    public Snapshot latest(String symbol) {
+        SnapshotFile file = file(symbol, false);
+        if (file == null) return null;
+        long n = file.count();
+        return n == 0 ? null : file.row(n - 1);
+    }
+
+    /** Symbols with a file in the store. */
+    public List<String> symbols() throws IOException {
+        List<String> symbols = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*" + SUFFIX)) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                symbols.add(name.substring(0, name.length() - SUFFIX.length()));
+            }
+        }
+        return symbols;
+    }
+
+    public void flush() {
+        files.values().forEach(SnapshotFile::force);
+    }
+
+    @Override
+    public void close() {
+        flush();
+        files.clear(); // mappings are released once unreachable
+    }
+
+    // Opened on first use; without create, a symbol with no file on disk yields null
+    private SnapshotFile file(String symbol, boolean create) {
+        if (!isStorable(symbol)) throw new IllegalArgumentException("Symbol not storable: " + symbol);
+        SnapshotFile open = files.get(symbol);
+        if (open != null) return open;
+        Path path = dir.resolve(symbol + SUFFIX);
+        if (!create && !Files.exists(path)) return null;
+        return files.computeIfAbsent(symbol, s -> {
+            try {
+                return SnapshotFile.open(path, rowsPerChunk);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+}
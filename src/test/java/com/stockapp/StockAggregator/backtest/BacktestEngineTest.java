@@ -0,0 +1,65 @@
+package com.stockapp.StockAggregator.backtest;
+
+import com.stockapp.StockAggregator.service.StrategyParameters;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class BacktestEngineTest {
+
+    private static double[] randomWalk(long seed, int n) {
+        Random random = new Random(seed);
+        double[] closes = new double[n];
+        double price = 100;
+        for (int i = 0; i < n; i++) {
+            price = Math.max(1, price + random.nextGaussian());
+            closes[i] = price;
+        }
+        return closes;
+    }
+
+    @Test
+    void parallelSweepMatchesSequentialReplay() {
+        List<SignalSeries> series = new ArrayList<>();
+        for (int s = 0; s < 40; s++) series.add(SignalSeries.fromCloses("S" + s, randomWalk(s, 2500)));
+        List<StrategyParameters> sets = new ArrayList<>();
+        for (double w = 0.5; w <= 2.0; w += 0.5) {
+            for (double buy = 1.0; buy <= 3.0; buy += 0.5) sets.add(new StrategyParameters(1.0, w, 1.2, 1.8, buy, -buy));
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            BacktestEngine.Stats[] parallel = new BacktestEngine(pool).run(series, sets, 5);
+            assertThat(parallel).hasSize(sets.size());
+            for (int i = 0; i < sets.size(); i++) {
+                BacktestEngine.Stats expected = new BacktestEngine.Stats();
+                for (SignalSeries s : series) BacktestEngine.replay(s, sets.get(i), 5, expected);
+                assertThat(parallel[i].getSymbols()).isEqualTo(40);
+                assertThat(parallel[i].getSignals()).isEqualTo(expected.getSignals());
+                assertThat(parallel[i].getHitRate()).isEqualTo(expected.getHitRate());
+                assertThat(parallel[i].getAverageReturn()).isCloseTo(expected.getAverageReturn(), within(1e-12));
+                assertThat(parallel[i].getWorstDrawdown()).isEqualTo(expected.getWorstDrawdown());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void steadyUptrendIsBoughtAndHeld() {
+        double[] closes = new double[300];
+        for (int i = 0; i < closes.length; i++) closes[i] = 100 + i + (i % 2 == 0 ? 0.3 : 0); // rising, RSI stays high
+        BacktestEngine.Stats stats = new BacktestEngine.Stats();
+        BacktestEngine.replay(SignalSeries.fromCloses("UP", closes), StrategyParameters.DEFAULT, 5, stats);
+
+        assertThat(stats.getSignals()).isPositive();
+        assertThat(stats.getHitRate()).isEqualTo(1.0);
+        assertThat(stats.getAverageReturn()).isPositive();
+    }
+}
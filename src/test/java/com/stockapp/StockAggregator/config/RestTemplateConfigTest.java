@@ -0,0 +1,50 @@
+package com.stockapp.StockAggregator.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stockapp.StockAggregator.dto.TransportStatsDTO;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RestTemplateConfigTest {
+
+    private final RestTemplateConfig config = new RestTemplateConfig();
+
+    @Test
+    void pooledTransportByDefaultReportsItsPool() throws Exception {
+        try (UpstreamTransport transport = config.stockDetailsTransport(false, 8, 2000, 4000, 30000, 300000, 3000)) {
+            TransportStatsDTO stats = transport.stats();
+
+            assertThat(stats.getName()).isEqualTo("stockdetails");
+            assertThat(stats.getProtocol()).isEqualTo("HTTP/1.1");
+            assertThat(stats.getMax()).isEqualTo(8);
+            assertThat(stats.getLeased()).isZero();
+            assertThat(stats.getInFlight()).isZero();
+        }
+    }
+
+    @Test
+    void http2SwitchesToTheJdkClientAndLeavesOutPoolStats() throws Exception {
+        try (UpstreamTransport transport = config.openRouterTransport(true, 32, 3000, 30000, 60000, 300000)) {
+            TransportStatsDTO stats = transport.stats();
+
+            assertThat(stats.getProtocol()).isEqualTo("HTTP/2");
+            assertThat(stats.getMax()).isNull();
+            assertThat(stats.getLeased()).isNull();
+            assertThat(new ObjectMapper().writeValueAsString(stats))
+                    .contains("\"inFlight\":0")
+                    .doesNotContain("leased", "pending", "available", "max");
+        }
+    }
+
+    @Test
+    void closedTransportsCanBeClosedAgain() throws Exception {
+        UpstreamTransport pooled = config.openRouterTransport(false, 4, 3000, 30000, 60000, 300000);
+        UpstreamTransport http2 = config.openRouterTransport(true, 4, 3000, 30000, 60000, 300000);
+
+        pooled.close();
+        http2.close();
+        pooled.close();
+        http2.close();
+    }
+}
@@ -0,0 +1,42 @@
+package com.stockapp.StockAggregator.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RawJsonTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void isWrittenVerbatimInsideTheEnclosingDocument() throws Exception {
+        String body = "{\"pe\":21.5,\"name\":\"Café \\\"Co\\\"\",\"segments\":[1,2]}";
+        RawJson raw = new RawJson(body.getBytes(StandardCharsets.UTF_8));
+
+        byte[] bytes = mapper.writeValueAsBytes(Map.of("fundamentals", raw));
+        String text = mapper.writeValueAsString(Map.of("fundamentals", raw));
+
+        assertThat(new String(bytes, StandardCharsets.UTF_8)).isEqualTo("{\"fundamentals\":" + body + "}");
+        assertThat(text).isEqualTo("{\"fundamentals\":" + body + "}");
+        JsonNode parsed = mapper.readTree(bytes);
+        assertThat(parsed.path("fundamentals").path("name").asText()).isEqualTo("Café \"Co\"");
+    }
+
+    @Test
+    void exposesUtf8AndDecodedForms() {
+        RawJson raw = new RawJson("\"é\"".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(raw.byteLength()).isEqualTo(4);
+        assertThat(raw.charLength()).isEqualTo(3);
+        assertThat(raw.getValue()).isEqualTo("\"é\"");
+        byte[] small = new byte[2];
+        assertThat(raw.appendUnquotedUTF8(small, 0)).isEqualTo(-1); // does not fit
+        byte[] big = new byte[8];
+        assertThat(raw.appendUnquotedUTF8(big, 1)).isEqualTo(4);
+    }
+}
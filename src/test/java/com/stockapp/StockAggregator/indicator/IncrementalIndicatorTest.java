@@ -0,0 +1,97 @@
+package com.stockapp.StockAggregator.indicator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class IncrementalIndicatorTest {
+
+    private static double[] randomWalk(int n) {
+        Random random = new Random(42);
+        double[] closes = new double[n];
+        double price = 100;
+        for (int i = 0; i < n; i++) {
+            price += random.nextGaussian();
+            closes[i] = price;
+        }
+        return closes;
+    }
+
+    @Test
+    void smaMatchesFullRecompute() {
+        double[] closes = randomWalk(60);
+        Sma sma = new Sma(20);
+        double[] out = new double[1];
+        for (double close : closes) sma.update(close);
+
+        double expected = 0;
+        for (int i = closes.length - 20; i < closes.length; i++) expected += closes[i];
+        assertThat(sma.current(out)).isTrue();
+        assertThat(out[0]).isCloseTo(expected / 20, within(1e-9));
+    }
+
+    @Test
+    void rsiStaysInRangeAndIsNotReadyTooEarly() {
+        Rsi rsi = new Rsi(14);
+        double[] out = new double[1];
+        double[] closes = randomWalk(15);
+        for (int i = 0; i < 14; i++) rsi.update(closes[i]);
+        assertThat(rsi.current(out)).isFalse();
+
+        rsi.update(closes[14]);
+        assertThat(rsi.current(out)).isTrue();
+        assertThat(out[0]).isBetween(0.0, 100.0);
+    }
+
+    @Test
+    void provisionalEqualsUpdatingWithTheSamePrice() {
+        double[] closes = randomWalk(120);
+        String[] specs = {"rsi:14", "sma:20", "ema:14", "macd:12:26:9"};
+        for (String name : specs) {
+            IndicatorSpec spec = IndicatorSpec.parse(name);
+            IncrementalIndicator incremental = spec.newIndicator();
+            IncrementalIndicator replayed = spec.newIndicator();
+            for (int i = 0; i < closes.length - 1; i++) {
+                incremental.update(closes[i]);
+                replayed.update(closes[i]);
+            }
+            replayed.update(closes[closes.length - 1]);
+
+            double[] provisional = new double[incremental.width()];
+            double[] current = new double[replayed.width()];
+            assertThat(incremental.provisional(closes[closes.length - 1], provisional)).isTrue();
+            assertThat(replayed.current(current)).isTrue();
+            assertThat(provisional).containsExactly(current, within(1e-9));
+        }
+    }
+
+    @Test
+    void priceSeriesWarmsNewIndicatorsFromBuffer() {
+        double[] closes = randomWalk(80);
+        PriceSeries series = new PriceSeries(256);
+        IndicatorSpec ema = IndicatorSpec.parse("ema:14");
+        series.indicator(ema); // registered before the bars arrive
+        for (double close : closes) series.append(close);
+
+        IncrementalIndicator late = series.indicator(IndicatorSpec.parse("ema:14"));
+        IncrementalIndicator fresh = ema.newIndicator();
+        for (double close : closes) fresh.update(close);
+
+        double[] a = new double[1];
+        double[] b = new double[1];
+        late.current(a);
+        fresh.current(b);
+        assertThat(a[0]).isCloseTo(b[0], within(1e-9));
+    }
+
+    @Test
+    void specKeysMatchDtoKeys() {
+        assertThat(IndicatorSpec.parse("rsi").key()).isEqualTo("rsi");
+        assertThat(IndicatorSpec.parse("sma:50").key()).isEqualTo("sma_50");
+        assertThat(IndicatorSpec.parse("ema:200").key()).isEqualTo("ema_200");
+        assertThat(IndicatorSpec.parse("macd:12:26:9").key()).isEqualTo("macd");
+    }
+}
@@ -0,0 +1,74 @@
+package com.stockapp.StockAggregator.service;
+
+import com.stockapp.StockAggregator.dto.RawJson;
+import com.stockapp.StockAggregator.dto.Recommendation;
+import com.stockapp.StockAggregator.dto.StockAnalysisDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AIDecisionCacheTest {
+
+    private final AIDecisionCache cache = new AIDecisionCache();
+
+    AIDecisionCacheTest() {
+        ReflectionTestUtils.setField(cache, "priceTick", 0.01);
+    }
+
+    private static StockAnalysisDTO dto(double price, double rsi, String fundamentals) {
+        StockAnalysisDTO dto = new StockAnalysisDTO();
+        dto.setSymbol("AAPL");
+        dto.setLivePrice(price);
+        dto.setDayHigh(price + 1);
+        dto.setOverallDecision("BUY");
+        Map<String, StockAnalysisDTO.IndicatorDetail> indicators = new HashMap<>();
+        indicators.put("rsi", StockAnalysisService.interpretRSI(rsi));
+        indicators.put("macd", StockAnalysisDTO.IndicatorDetail.macd(1.5, 1.0, 0.5, Recommendation.BUY));
+        dto.setIndicators(indicators);
+        if (fundamentals != null) dto.setFundamentals(new RawJson(fundamentals.getBytes(StandardCharsets.UTF_8)));
+        return dto;
+    }
+
+    @Test
+    void sameInputsGiveTheSameKeyWhateverTheMeaningOrOrder() {
+        StockAnalysisDTO a = dto(150.0, 28.0, "{\"pe\":20,\"sector\":\"Tech\"}");
+        StockAnalysisDTO b = dto(150.0, 28.0, "{\"sector\":\"Tech\",\"pe\":20}");
+        b.getIndicators().get("rsi").getMeaning(); // materialized text must not matter
+        b.setIndicators(new LinkedHashMap<>(Map.of("macd", b.getIndicators().get("macd"), "rsi", b.getIndicators().get("rsi"))));
+
+        assertThat(cache.fingerprint(b)).isEqualTo(cache.fingerprint(a)).hasSize(64);
+    }
+
+    @Test
+    void numbersAreComparedByValueNotByForm() {
+        String integral = cache.fingerprint(dto(150, 28.0, "{\"pe\":150,\"ratios\":{\"debt\":1}}"));
+        String decimal = cache.fingerprint(dto(150.0, 28.0, "{\"pe\":150.0,\"ratios\":{\"debt\":1.00}}"));
+        String exponent = cache.fingerprint(dto(150.0, 28.0, "{\"pe\":1.5e2,\"ratios\":{\"debt\":1E0}}"));
+
+        assertThat(decimal).isEqualTo(integral);
+        assertThat(exponent).isEqualTo(integral);
+    }
+
+    @Test
+    void subTickNoiseSharesAKeyButATickApartDoesNot() {
+        String base = cache.fingerprint(dto(100.001, 45.0, null));
+
+        assertThat(cache.fingerprint(dto(100.004, 45.002, null))).isEqualTo(base);
+        assertThat(cache.fingerprint(dto(100.02, 45.0, null))).isNotEqualTo(base);
+        assertThat(cache.fingerprint(dto(100.001, 45.02, null))).isNotEqualTo(base);
+    }
+
+    @Test
+    void fundamentalsAreNotRounded() {
+        String base = cache.fingerprint(dto(100.0, 45.0, "{\"eps\":1.001}"));
+
+        assertThat(cache.fingerprint(dto(100.0, 45.0, "{\"eps\":1.002}"))).isNotEqualTo(base);
+        assertThat(cache.fingerprint(dto(100.0, 45.0, null))).isNotEqualTo(base);
+    }
+}
@@ -0,0 +1,46 @@
+package com.stockapp.StockAggregator.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveLimiterTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final long QUEUED = TimeUnit.MILLISECONDS.toNanos(400);
+
+    @Test
+    void shedsBeyondTheLimitAndShrinksWhenLatencyRises() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(4, 1, 16, 2.0, 0.5);
+        for (int i = 0; i < 4; i++) assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isFalse(); // refused, not queued
+
+        limiter.onSuccess(FAST);
+        limiter.onSuccess(QUEUED); // 8x the best latency: the host is queueing
+        assertThat(limiter.limit()).isEqualTo(2);
+        limiter.onDrop();
+        assertThat(limiter.limit()).isEqualTo(1);
+        assertThat(limiter.inFlight()).isEqualTo(1);
+        assertThat(limiter.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void growsOnlyWhileTheLimitIsInUse() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(4, 1, 16, 2.0, 0.5);
+        for (int round = 0; round < 3; round++) {
+            int limit = limiter.limit();
+            for (int i = 0; i < limit; i++) assertThat(limiter.tryAcquire()).isTrue();
+            for (int i = 0; i < limit; i++) limiter.onSuccess(FAST);
+        }
+        assertThat(limiter.limit()).isEqualTo(5);
+
+        for (int i = 0; i < 100; i++) { // one call at a time never needs a larger limit
+            assertThat(limiter.tryAcquire()).isTrue();
+            limiter.onSuccess(FAST);
+        }
+        assertThat(limiter.limit()).isEqualTo(5);
+        assertThat(limiter.inFlight()).isZero();
+    }
+}
@@ -0,0 +1,73 @@
+package com.stockapp.StockAggregator.service;
+
+import com.stockapp.StockAggregator.dto.AIAnalysisResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DecisionStreamParserTest {
+
+    private final List<String> events = new ArrayList<>();
+    private final StringBuilder reasoning = new StringBuilder();
+
+    private final DecisionStreamParser parser = new DecisionStreamParser(new DecisionStreamParser.Listener() {
+        @Override
+        public void onDecision(String decision) {
+            events.add("decision:" + decision);
+        }
+
+        @Override
+        public void onReasoning(String delta) {
+            events.add("reasoning");
+            reasoning.append(delta);
+        }
+    });
+
+    @Test
+    void reportsTheDecisionBeforeTheReasoningEnds() {
+        parser.feed("```json\n{\"symbol\":\"AAPL\",\"deci");
+        parser.feed("sion\": \"buy\",");
+        assertThat(events).containsExactly("decision:BUY");
+        assertThat(parser.isComplete()).isFalse();
+
+        parser.feed(" \"reasoning\": \"Price above \\\"SMA\\\"");
+        parser.feed(" and \\u00e9");
+        parser.feed("ma\\nok\"}\n```");
+
+        assertThat(events).containsExactly("decision:BUY", "reasoning", "reasoning", "reasoning");
+        assertThat(reasoning.toString()).isEqualTo("Price above \"SMA\" and éma\nok");
+        AIAnalysisResponse result = parser.result();
+        assertThat(result.getSymbol()).isEqualTo("AAPL");
+        assertThat(result.getDecision()).isEqualTo("BUY");
+        assertThat(result.getReasoning()).isEqualTo(reasoning.toString());
+    }
+
+    @Test
+    void skipsOtherValuesCharByChar() {
+        String answer = "{\"confidence\": 0.8, \"factors\": {\"a\": [1, \"}\"]}, \"decision\":\"SELL\", \"reasoning\":\"x\"}";
+        for (char c : answer.toCharArray()) parser.feed(String.valueOf(c));
+
+        assertThat(parser.decision()).isEqualTo("SELL");
+        assertThat(parser.result().getReasoning()).isEqualTo("x");
+    }
+
+    @Test
+    void invalidDecisionGivesNoResult() {
+        parser.feed("{\"decision\":\"MAYBE\",\"reasoning\":\"r\"}");
+        assertThat(parser.isComplete()).isTrue();
+        assertThat(parser.result()).isNull();
+        assertThat(events).doesNotContain("decision:MAYBE");
+
+    }
+
+    @Test
+    void proseIsNotAnObject() {
+        parser.feed("I think {BUY} is right");
+        assertThat(parser.isComplete()).isFalse();
+        assertThat(parser.result()).isNull();
+        assertThat(events).isEmpty();
+    }
+}
@@ -0,0 +1,73 @@
+package com.stockapp.StockAggregator.service;
+
+import com.stockapp.StockAggregator.dto.Recommendation;
+import com.stockapp.StockAggregator.dto.StockAnalysisDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IndicatorRegistryTest {
+
+    @Test
+    void selectsInRegistryOrderWithOnlyTheirDependencies() {
+        IndicatorRegistry registry = new IndicatorRegistry(false, new String[0], List.of());
+
+        List<IndicatorProvider> selected = registry.select(List.of("MACD", "rsi", " "));
+        assertThat(selected).extracting(IndicatorProvider::key).containsExactly("rsi", "macd");
+        assertThat(selected.get(0).dependencies()).containsExactly("indicators/rsi");
+        assertThat(registry.select(List.of("sma_20")).get(0).dependencies())
+                .containsExactlyInAnyOrder("indicators/sma:20", IndicatorProvider.LIVE);
+
+        assertThatThrownBy(() -> registry.select(List.of("vwap"))).isInstanceOf(ResponseStatusException.class);
+    }
+
+    @Test
+    void scoresTheClassicIndicatorsLikeTheDefaultStrategy() {
+        IndicatorRegistry registry = new IndicatorRegistry(true, new String[]{"rsi:14", "sma:20", "sma:50"}, List.of());
+        Map<String, StockAnalysisDTO.IndicatorDetail> indicators = new HashMap<>();
+        indicators.put("rsi", StockAnalysisService.interpretRSI(25.0));       // BUY
+        indicators.put("sma_20", StockAnalysisService.interpretSMA(90.0, 100.0)); // BUY
+        indicators.put("sma_50", StockAnalysisService.interpretSMA(110.0, 100.0)); // SELL, unweighted
+
+        assertThat(registry.all()).extracting(IndicatorProvider::key).containsExactly("rsi", "sma_20", "sma_50");
+        assertThat(registry.score(indicators)).isEqualTo(StockAnalysisService.defaultScore(indicators));
+    }
+
+    @Test
+    void addedProvidersAreScoredAndReplaceBuiltIns() {
+        IndicatorProvider vwap = provider("vwap", 2.0);
+        IndicatorProvider rsi = provider("rsi", 0.5);
+        IndicatorRegistry registry = new IndicatorRegistry(false, new String[0], List.of(vwap, rsi));
+
+        assertThat(registry.all()).extracting(IndicatorProvider::key).containsExactly("sma_20", "ema_14", "macd", "vwap", "rsi");
+        Map<String, StockAnalysisDTO.IndicatorDetail> indicators = new HashMap<>();
+        indicators.put("vwap", vwap.interpret(null));
+        indicators.put("rsi", rsi.interpret(null));
+        assertThat(registry.score(indicators)).isEqualTo(2.5);
+    }
+
+    private static IndicatorProvider provider(String key, double weight) {
+        return new IndicatorProvider() {
+            @Override
+            public String key() { return key; }
+
+            @Override
+            public Set<String> dependencies() { return Set.of(LIVE); }
+
+            @Override
+            public double weight() { return weight; }
+
+            @Override
+            public StockAnalysisDTO.IndicatorDetail interpret(Inputs inputs) {
+                return new StockAnalysisDTO.IndicatorDetail(null, 1.0, Double.NaN, Recommendation.BUY);
+            }
+        };
+    }
+}
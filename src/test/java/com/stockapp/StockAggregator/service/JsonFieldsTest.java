@@ -0,0 +1,56 @@
+package com.stockapp.StockAggregator.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.Test;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JsonFieldsTest {
+
+    @Test
+    void keepsOnlySelectedTopLevelScalars() {
+        JsonNode node = JsonFields.select(bytes("{\"price\":101.5,\"nested\":{\"price\":1},\"high\":\"x\","
+                + "\"list\":[1,2],\"low\":null,\"open\":true}"), Set.of("price", "high", "low", "list"));
+
+        assertThat(node.get("price").asDouble()).isEqualTo(101.5);
+        assertThat(node.get("high").asText()).isEqualTo("x");
+        assertThat(node.get("low").isNull()).isTrue();
+        assertThat(node.get("list").asDouble()).isZero(); // container reads as 0
+        assertThat(node.has("open")).isFalse();
+        assertThat(node.size()).isEqualTo(4);
+    }
+
+    @Test
+    void handlesBareNumbersOtherShapesAndEmptyBodies() {
+        assertThat(JsonFields.select(bytes("42.5"), Set.of("price")).asDouble()).isEqualTo(42.5);
+        assertThat(JsonFields.select(bytes("[1,2]"), Set.of("price")).size()).isZero();
+        assertThat(JsonFields.select(new byte[0], Set.of("price"))).isNull();
+        assertThatThrownBy(() -> JsonFields.select(bytes("{\"price\":"), Set.of("price")))
+                .isInstanceOf(UncheckedIOException.class);
+    }
+
+    @Test
+    void acceptsExactlyOneCompleteValue() {
+        assertThatCode(() -> JsonFields.requireSingleValue(bytes(" {\"a\":[1,{\"b\":2}]} "))).doesNotThrowAnyException();
+        assertThatCode(() -> JsonFields.requireSingleValue(bytes("7"))).doesNotThrowAnyException();
+
+        assertThatThrownBy(() -> JsonFields.requireSingleValue(bytes("<html>502 Bad Gateway</html>")))
+                .isInstanceOf(UncheckedIOException.class);
+        assertThatThrownBy(() -> JsonFields.requireSingleValue(bytes("{\"a\":[1,2")))
+                .isInstanceOf(UncheckedIOException.class);
+        assertThatThrownBy(() -> JsonFields.requireSingleValue(bytes("{} {}")))
+                .isInstanceOf(UncheckedIOException.class);
+        assertThatThrownBy(() -> JsonFields.requireSingleValue(bytes("   ")))
+                .isInstanceOf(UncheckedIOException.class);
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,22 @@
+package com.stockapp.StockAggregator.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OpenRouterServiceTest {
+
+    @Test
+    void decisionIsUpperCasedWhateverTheLocale() {
+        assertThat(OpenRouterService.validDecision("buy", "Momentum is strong")).isEqualTo("BUY");
+        assertThat(OpenRouterService.validDecision(" Hold ", "Mixed signals")).isEqualTo("HOLD");
+    }
+
+    @Test
+    void unknownDecisionOrMissingReasoningFails() {
+        assertThat(OpenRouterService.validDecision("STRONG BUY", "Momentum is strong")).isNull();
+        assertThat(OpenRouterService.validDecision(null, "Momentum is strong")).isNull();
+        assertThat(OpenRouterService.validDecision("SELL", null)).isNull();
+        assertThat(OpenRouterService.validDecision("SELL", "  ")).isNull();
+    }
+}
@@ -0,0 +1,89 @@
+package com.stockapp.StockAggregator.service;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.observation.DefaultMeterObservationHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PipelineMetricsTest {
+
+    private final SimpleMeterRegistry meters = new SimpleMeterRegistry();
+    private final PipelineMetrics metrics;
+
+    PipelineMetricsTest() {
+        ObservationRegistry observations = ObservationRegistry.create();
+        observations.observationConfig().observationHandler(new DefaultMeterObservationHandler(meters));
+        metrics = new PipelineMetrics(meters, observations);
+    }
+
+    private double errors(String endpoint, String type) {
+        return meters.get("stockdetails.upstream.errors").tag("endpoint", endpoint).tag("type", type).counter().count();
+    }
+
+    private static <T> Supplier<T> failing(RuntimeException e) {
+        return () -> {
+            throw e;
+        };
+    }
+
+    @Test
+    void successfulCallIsTimedPerEndpointWithoutTheSymbol() {
+        assertThat(metrics.upstream("live", "AAPL", () -> "ok")).isEqualTo("ok");
+
+        Timer timer = meters.get("stockdetails.upstream").tag("endpoint", "live").tag("error", "none").timer();
+        assertThat(timer.count()).isEqualTo(1);
+        assertThat(timer.getId().getTag("symbol")).isNull();
+        assertThat(meters.find("stockdetails.upstream.errors").counter()).isNull();
+    }
+
+    @Test
+    void readTimeoutIsCountedAsTimeout() {
+        ResourceAccessException e = new ResourceAccessException("I/O error", new SocketTimeoutException("Read timed out"));
+
+        assertThatThrownBy(() -> metrics.upstream("live", "AAPL", failing(e))).isSameAs(e);
+
+        assertThat(errors("live", "timeout")).isEqualTo(1.0);
+        assertThat(meters.find("stockdetails.upstream.errors").tag("type", "error").counter()).isNull();
+        assertThat(meters.get("stockdetails.upstream").tag("error", "ResourceAccessException").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void asyncHttpTimeoutIsCountedAsTimeout() {
+        CompletableFuture<String> result = metrics.upstreamAsync("indicators/rsi", "AAPL",
+                () -> CompletableFuture.failedFuture(new HttpTimeoutException("request timed out")));
+
+        assertThat(result).isCompletedExceptionally();
+        assertThat(errors("indicators/rsi", "timeout")).isEqualTo(1.0);
+        assertThat(meters.get("stockdetails.upstream").tag("endpoint", "indicators/rsi").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void otherFailuresAreErrors() {
+        HttpServerErrorException e = new HttpServerErrorException(HttpStatus.BAD_GATEWAY);
+
+        assertThatThrownBy(() -> metrics.upstream("fundamentals", "AAPL", failing(e))).isSameAs(e);
+
+        assertThat(errors("fundamentals", "error")).isEqualTo(1.0);
+    }
+
+    @Test
+    void classifiesByCauseChain() {
+        assertThat(PipelineMetrics.errorType(new CompletionException(new HttpTimeoutException("timed out")))).isEqualTo("timeout");
+        assertThat(PipelineMetrics.errorType(new ResourceAccessException("I/O error", new IOException("reset")))).isEqualTo("error");
+        assertThat(PipelineMetrics.errorType(new IllegalStateException())).isEqualTo("error");
+    }
+}
@@ -0,0 +1,87 @@
+package com.stockapp.StockAggregator.service;
+
+import com.stockapp.StockAggregator.dto.RawJson;
+import com.stockapp.StockAggregator.dto.Recommendation;
+import com.stockapp.StockAggregator.dto.StockAnalysisDTO;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PromptEncoderTest {
+
+    private static StockAnalysisDTO dto(String fundamentals) {
+        StockAnalysisDTO dto = new StockAnalysisDTO();
+        dto.setSymbol("AAPL");
+        dto.setLivePrice(187.456789);
+        dto.setDayHigh(190.0);
+        Map<String, StockAnalysisDTO.IndicatorDetail> indicators = new LinkedHashMap<>();
+        indicators.put("rsi", new StockAnalysisDTO.IndicatorDetail(StockAnalysisDTO.IndicatorDetail.Kind.RSI, 61.23456, Double.NaN, Recommendation.HOLD));
+        indicators.put("macd", StockAnalysisDTO.IndicatorDetail.macd(1.234567, 0.9, 0.334567, Recommendation.BUY));
+        dto.setIndicators(indicators);
+        dto.setOverallDecision("BUY");
+        dto.setFundamentals(new RawJson(fundamentals.getBytes(StandardCharsets.UTF_8)));
+        return dto;
+    }
+
+    @Test
+    void compactDataIsRoundedAndDropsDerivedText() throws Exception {
+        PromptEncoder encoder = new PromptEncoder("compact", 400, Set.of(), 40, 5);
+        StockAnalysisDTO dto = dto("{\"marketCap\":2912345678901,\"profile\":{\"pe\":29.87654,\"description\":\""
+                + "A very long company description that repeats what everyone knows\"},\"tags\":[\"tech\"]}");
+
+        PromptEncoder.Encoded encoded = encoder.encode(dto);
+        assertThat(encoded.json()).isEqualTo("{\"symbol\":\"AAPL\",\"price\":187.46,\"dayHigh\":190,\"rule\":\"BUY\","
+                + "\"indicators\":{\"rsi\":{\"v\":61.235,\"rec\":\"HOLD\"},"
+                + "\"macd\":{\"macd\":1.2346,\"signal\":0.9,\"hist\":0.33457,\"rec\":\"BUY\"}},"
+                + "\"fundamentals\":{\"marketCap\":2.9123E+12,\"profile.pe\":29.877}}");
+
+        PromptEncoder.Prompt prompt = encoder.single(encoded);
+        assertThat(encoder.savedTokens(List.of(dto), prompt)).isPositive();
+        assertThat(prompt.messages()).hasSize(2);
+        assertThat(prompt.messages().get(1).get("content")).isEqualTo(encoded.json());
+        // the instructions are one shared message, not rebuilt per prompt
+        assertThat(encoder.single(encoder.encode(dto("{}"))).messages().get(0)).isSameAs(prompt.messages().get(0));
+    }
+
+    @Test
+    void fundamentalsAreTrimmedToTheBudget() throws Exception {
+        StringBuilder fundamentals = new StringBuilder("{");
+        for (int i = 0; i < 50; i++) fundamentals.append(i == 0 ? "" : ",").append("\"ratio").append(i).append("\":").append(i + 0.5);
+        StockAnalysisDTO dto = dto(fundamentals.append('}').toString());
+
+        PromptEncoder.Encoded encoded = new PromptEncoder("compact", 135, Set.of(), 40, 5).encode(dto);
+        assertThat(encoded.tokens()).isLessThanOrEqualTo(135);
+        assertThat(encoded.json()).contains("\"ratio0\":0.5").doesNotContain("ratio49").contains("\"macd\"");
+
+        PromptEncoder.Encoded selected = new PromptEncoder("compact", 400, Set.of("ratio7"), 40, 5).encode(dto);
+        assertThat(selected.json()).endsWith("\"fundamentals\":{\"ratio7\":7.5}}");
+    }
+
+    @Test
+    void nestedFundamentalsKeepTheirPath() throws Exception {
+        StockAnalysisDTO dto = dto("{\"income\":{\"total\":10},\"debt\":{\"total\":4,\"currency\":\"USD\"}}");
+
+        String json = new PromptEncoder("compact", 400, Set.of(), 40, 5).encode(dto).json();
+        assertThat(json).endsWith("\"fundamentals\":{\"income.total\":10,\"debt.total\":4,\"debt.currency\":\"USD\"}}");
+
+        String selected = new PromptEncoder("compact", 400, Set.of("debt.total", "currency"), 40, 5).encode(dto).json();
+        assertThat(selected).endsWith("\"fundamentals\":{\"debt.total\":4,\"debt.currency\":\"USD\"}}");
+    }
+
+    @Test
+    void verboseKeepsTheWholeDtoAndEstimatesAreTokenLike() throws Exception {
+        PromptEncoder verbose = new PromptEncoder("verbose", 400, Set.of(), 40, 5);
+        PromptEncoder.Prompt prompt = verbose.batch(List.of(verbose.encode(dto("{}")), verbose.encode(dto("{}"))));
+        assertThat((String) prompt.messages().get(1).get("content")).contains("\"meaning\"").endsWith("}]");
+        assertThat(verbose.savedTokens(List.of(dto("{}"), dto("{}")), prompt)).isZero();
+
+        assertThat(PromptEncoder.estimateTokens("hello world")).isEqualTo(4);
+        assertThat(PromptEncoder.estimateTokens("{\"v\":61.235}")).isEqualTo(9);
+    }
+}
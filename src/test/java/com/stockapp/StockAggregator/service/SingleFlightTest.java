@@ -0,0 +1,73 @@
+package com.stockapp.StockAggregator.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    @Test
+    void concurrentCallersShareOneComputation() throws Exception {
+        SingleFlight<String, Integer> flight = new SingleFlight<>();
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(pool.submit(() -> flight.execute("AAPL", () -> {
+                    runs.incrementAndGet();
+                    release.await();
+                    return 42;
+                })));
+            }
+            // let every caller reach execute() before the leader finishes
+            while (flight.getExecutedCount() + flight.getJoinedCount() < 8) Thread.onSpinWait();
+            release.countDown();
+
+            for (Future<Integer> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo(42);
+            }
+            assertThat(runs).hasValue(1);
+            assertThat(flight.getJoinedCount()).isEqualTo(7);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void failuresAreNotRemembered() throws Exception {
+        SingleFlight<String, Integer> flight = new SingleFlight<>();
+
+        assertThatThrownBy(() -> flight.execute("AAPL", () -> { throw new IllegalStateException("boom"); }))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(flight.execute("AAPL", () -> 1)).isEqualTo(1);
+    }
+
+    @Test
+    void asyncCallersShareOneFutureAndCannotCancelIt() {
+        SingleFlight<String, Integer> flight = new SingleFlight<>();
+        CompletableFuture<Integer> upstream = new CompletableFuture<>();
+        AtomicInteger runs = new AtomicInteger();
+
+        CompletableFuture<Integer> first = flight.executeAsync("AAPL", () -> { runs.incrementAndGet(); return upstream; });
+        CompletableFuture<Integer> second = flight.executeAsync("AAPL", () -> { runs.incrementAndGet(); return upstream; });
+        second.cancel(true); // one caller giving up must not fail the others
+
+        upstream.complete(42);
+        assertThat(first.join()).isEqualTo(42);
+        assertThat(runs).hasValue(1);
+        assertThat(flight.executeAsync("AAPL", () -> CompletableFuture.completedFuture(7)).join()).isEqualTo(7);
+    }
+}
@@ -0,0 +1,149 @@
+package com.stockapp.StockAggregator.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stockapp.StockAggregator.config.ExecutorConfig;
+import com.stockapp.StockAggregator.dto.RawJson;
+import com.stockapp.StockAggregator.dto.StockAnalysisDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestClientException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StockAnalysisServiceTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final StockDetailsClient client = mock(StockDetailsClient.class);
+    private ExecutorService executor;
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // Full remote analysis: live, today, 52week, fundamentals and four indicators
+    private StockAnalysisService service(int poolSize, int queueSize) {
+        executor = new ExecutorConfig().upstreamExecutor(poolSize, queueSize);
+        StockAnalysisService service = new StockAnalysisService(client, mock(IndicatorEngine.class), executor,
+                new PipelineMetrics(new SimpleMeterRegistry(), ObservationRegistry.NOOP),
+                mock(SnapshotService.class), new IndicatorRegistry(false, new String[0], List.of()));
+        ReflectionTestUtils.setField(service, "concurrent", true);
+        ReflectionTestUtils.setField(service, "callTimeoutMs", 300L);
+        ReflectionTestUtils.setField(service, "requestTimeoutMs", 600L);
+        service.init();
+        return service;
+    }
+
+    private void answerAll(Runnable beforeEachCall) throws Exception {
+        JsonNode price = MAPPER.readTree("{\"price\":100.0,\"high\":101.0,\"low\":99.0}");
+        JsonNode indicator = MAPPER.readTree("{\"value\":50.0,\"macd\":1.0,\"signal\":0.5,\"histogram\":0.5}");
+        when(client.price(eq("AAPL"), anyString())).thenAnswer(inv -> {
+            beforeEachCall.run();
+            return price;
+        });
+        when(client.fundamentals("AAPL")).thenAnswer(inv -> {
+            beforeEachCall.run();
+            return new RawJson("{\"pe\":20}".getBytes(StandardCharsets.UTF_8));
+        });
+        when(client.indicator(eq("AAPL"), anyString())).thenAnswer(inv -> {
+            beforeEachCall.run();
+            return indicator;
+        });
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    void allCallsOfOneAnalysisRunAtOnce() throws Exception {
+        StockAnalysisService service = service(8, 8);
+        // every call waits for all eight to start, so a sequential fetch would time each one out
+        CountDownLatch started = new CountDownLatch(service.upstreamCallsPerAnalysis());
+        answerAll(() -> {
+            started.countDown();
+            try {
+                started.await(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        StockAnalysisDTO dto = service.analyzeStock("AAPL");
+
+        assertThat(started.getCount()).isZero();
+        assertThat(dto.getLivePrice()).isEqualTo(100.0);
+        assertThat(dto.getWeek52High()).isEqualTo(101.0);
+        assertThat(dto.getFundamentals()).isNotNull();
+        assertThat(dto.getIndicators()).containsOnlyKeys("rsi", "sma_20", "ema_14", "macd");
+    }
+
+    @Test
+    void callPastItsDeadlineLeavesOnlyItsSectionMissing() throws Exception {
+        StockAnalysisService service = service(8, 8);
+        answerAll(() -> {});
+        when(client.indicator("AAPL", "rsi")).thenAnswer(inv -> {
+            sleep(2_000);
+            return MAPPER.readTree("{\"value\":50.0}");
+        });
+
+        long start = System.nanoTime();
+        StockAnalysisDTO dto = service.analyzeStock("AAPL");
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(1_500);
+        assertThat(dto.getLivePrice()).isEqualTo(100.0);
+        assertThat(dto.getIndicators()).containsOnlyKeys("sma_20", "ema_14", "macd");
+    }
+
+    @Test
+    void failedIndicatorIsDroppedAndRefusedSectionIsMissing() throws Exception {
+        StockAnalysisService service = service(8, 8);
+        answerAll(() -> {});
+        when(client.indicator("AAPL", "macd:12:26:9")).thenThrow(new RestClientException("502"));
+        when(client.price("AAPL", "52week")).thenThrow(new UpstreamUnavailableException("52week", "circuit-open"));
+
+        StockAnalysisDTO dto = service.analyzeStock("AAPL");
+
+        assertThat(dto.getLivePrice()).isEqualTo(100.0);
+        assertThat(dto.getWeek52High()).isNull();
+        assertThat(dto.getIndicators()).containsOnlyKeys("rsi", "sma_20", "ema_14");
+    }
+
+    @Test
+    void saturatedPoolRejectsCallsInsteadOfRunningThemOnTheCaller() throws Exception {
+        StockAnalysisService service = service(1, 1);
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        answerAll(() -> {
+            threads.add(Thread.currentThread().getName());
+            sleep(50);
+        });
+
+        StockAnalysisDTO dto = service.analyzeStock("AAPL");
+
+        // one call runs, one waits in the queue, the other six are rejected as missing
+        assertThat(threads).isNotEmpty().allMatch(name -> name.startsWith("upstream-"));
+        assertThat(dto.getSymbol()).isEqualTo("AAPL");
+        assertThat(dto.getIndicators()).hasSizeLessThanOrEqualTo(2);
+    }
+}
@@ -0,0 +1,45 @@
+package com.stockapp.StockAggregator.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class TokenBucketTest {
+
+    @Test
+    void allowsBurstThenPacesAtTheRate() {
+        AtomicLong now = new AtomicLong();
+        TokenBucket bucket = new TokenBucket(10, 20, now::get);
+
+        assertThat(bucket.tryAcquire(8)).isZero();
+        assertThat(bucket.tryAcquire(8)).isZero();
+        long wait = bucket.tryAcquire(8); // 4 left, 4 more at 10/s
+        assertThat(wait).isEqualTo(TimeUnit.MILLISECONDS.toNanos(400));
+
+        now.addAndGet(wait);
+        assertThat(bucket.tryAcquire(8)).isZero();
+        assertThat(bucket.available()).isCloseTo(0.0, within(1e-9));
+    }
+
+    @Test
+    void neverRefillsBeyondBurstAndCapsLargeRequests() {
+        AtomicLong now = new AtomicLong();
+        TokenBucket bucket = new TokenBucket(10, 5, now::get);
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(60));
+        assertThat(bucket.available()).isEqualTo(5.0);
+        assertThat(bucket.tryAcquire(50)).isZero(); // capped to the burst instead of waiting forever
+    }
+
+    @Test
+    void zeroRateIsUnlimited() {
+        TokenBucket bucket = new TokenBucket(0, 1);
+        for (int i = 0; i < 1000; i++) {
+            assertThat(bucket.tryAcquire(8)).isZero();
+        }
+    }
+}
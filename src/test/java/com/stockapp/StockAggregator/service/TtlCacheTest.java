@@ -0,0 +1,77 @@
+package com.stockapp.StockAggregator.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TtlCacheTest {
+
+    @Test
+    void servesFreshEntriesWithoutReloading() {
+        TtlCache<String, String> cache = new TtlCache<>("test", 60_000, 0, 10, Runnable::run);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("AAPL", () -> "v" + loads.incrementAndGet());
+        String second = cache.get("AAPL", () -> "v" + loads.incrementAndGet());
+
+        assertThat(second).isEqualTo("v1");
+        assertThat(loads).hasValue(1);
+        assertThat(cache.stats().getHits()).isEqualTo(1);
+        assertThat(cache.stats().getMisses()).isEqualTo(1);
+    }
+
+    @Test
+    void servesStaleValueAndRefreshesInBackground() {
+        TtlCache<String, String> cache = new TtlCache<>("test", 0, 60_000, 10, Runnable::run);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("AAPL", () -> "v" + loads.incrementAndGet());
+        String stale = cache.get("AAPL", () -> "v" + loads.incrementAndGet());
+
+        assertThat(stale).isEqualTo("v1");
+        assertThat(cache.peek("AAPL")).isEqualTo("v2");
+        assertThat(cache.stats().getStaleHits()).isEqualTo(1);
+    }
+
+    @Test
+    void droppedRefreshServesStaleAndLaterHitRetries() {
+        AtomicInteger rejections = new AtomicInteger();
+        TtlCache<String, String> cache = new TtlCache<>("test", 0, 60_000, 10, task -> {
+            if (rejections.getAndIncrement() == 0) throw new RejectedExecutionException("full");
+            task.run();
+        });
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("AAPL", () -> "v" + loads.incrementAndGet());
+        assertThat(cache.get("AAPL", () -> "v" + loads.incrementAndGet())).isEqualTo("v1");
+        assertThat(cache.peek("AAPL")).isEqualTo("v1");
+
+        assertThat(cache.get("AAPL", () -> "v" + loads.incrementAndGet())).isEqualTo("v1");
+        assertThat(cache.peek("AAPL")).isEqualTo("v2");
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedBeyondBound() {
+        TtlCache<String, String> cache = new TtlCache<>("test", 60_000, 0, 2, Runnable::run);
+
+        cache.put("A", "a");
+        cache.put("B", "b");
+        cache.get("A", () -> "reloaded");
+        cache.put("C", "c");
+
+        assertThat(cache.peek("A")).isEqualTo("a");
+        assertThat(cache.peek("B")).isNull();
+        assertThat(cache.stats().getEvictions()).isEqualTo(1);
+    }
+
+    @Test
+    void doesNotCacheNulls() {
+        TtlCache<String, String> cache = new TtlCache<>("test", 60_000, 0, 10, Runnable::run);
+
+        assertThat(cache.get("AAPL", () -> null)).isNull();
+        assertThat(cache.size()).isZero();
+    }
+}
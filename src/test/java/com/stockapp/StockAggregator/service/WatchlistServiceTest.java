@@ -0,0 +1,143 @@
+package com.stockapp.StockAggregator.service;
+
+import com.stockapp.StockAggregator.dto.StockAnalysisDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class WatchlistServiceTest {
+
+    private final StockAnalysisService analysis = mock(StockAnalysisService.class);
+    private final ExecutorService refreshes = Executors.newFixedThreadPool(2);
+    private final ExecutorService sends = Executors.newFixedThreadPool(4);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private volatile String decision = "BUY";
+
+    @AfterEach
+    void shutdown() {
+        release.countDown();
+        refreshes.shutdownNow();
+        sends.shutdownNow();
+    }
+
+    private WatchlistService service(int subscriberQueueSize) {
+        when(analysis.analyzeStock("AAPL")).thenAnswer(inv -> {
+            StockAnalysisDTO dto = new StockAnalysisDTO();
+            dto.setSymbol("AAPL");
+            dto.setOverallDecision(decision);
+            dto.setIndicators(Map.of());
+            return dto;
+        });
+        WatchlistService service = new WatchlistService(analysis, refreshes, sends, null);
+        ReflectionTestUtils.setField(service, "maxSubscribers", 10);
+        ReflectionTestUtils.setField(service, "maxSymbols", 5);
+        ReflectionTestUtils.setField(service, "subscriberQueueSize", subscriberQueueSize);
+        return service;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    // Flips the decision and refreshes until the fast subscriber has seen the change
+    private void change(WatchlistService service, RecordingEmitter fast, String next) throws InterruptedException {
+        int seen = fast.events.size();
+        decision = next;
+        await(() -> {
+            service.refreshAll();
+            return fast.events.size() > seen;
+        });
+    }
+
+    @Test
+    void slowSubscriberIsClosedWithoutDelayingOthers() throws Exception {
+        WatchlistService service = service(2);
+        RecordingEmitter slow = new RecordingEmitter(release);
+        service.subscribe(List.of("AAPL"), slow);
+        await(() -> slow.writing); // its snapshot write is now stuck
+
+        RecordingEmitter fast = new RecordingEmitter(null);
+        service.subscribe(List.of("AAPL"), fast);
+        await(() -> fast.events.size() == 1);
+
+        for (int i = 0; i < 4; i++) change(service, fast, i % 2 == 0 ? "SELL" : "BUY");
+
+        assertThat(fast.events).hasSize(5);
+        assertThat(fast.events.get(0)).contains("event:snapshot");
+        assertThat(fast.events.subList(1, 5)).allMatch(event -> event.contains("event:signal"));
+        // two signals fit its outbox behind the stuck write, the third closes it
+        assertThat(slow.completed).isTrue();
+        assertThat(service.getSubscriberCount()).isEqualTo(1);
+        assertThat(fast.completed).isFalse();
+    }
+
+    @Test
+    void subscriberWithinItsQueueGetsEveryEventInOrder() throws Exception {
+        WatchlistService service = service(8);
+        RecordingEmitter paused = new RecordingEmitter(release);
+        service.subscribe(List.of("AAPL"), paused);
+        await(() -> paused.writing);
+
+        RecordingEmitter fast = new RecordingEmitter(null);
+        service.subscribe(List.of("AAPL"), fast);
+        await(() -> fast.events.size() == 1);
+        change(service, fast, "SELL");
+        change(service, fast, "BUY");
+        release.countDown();
+
+        await(() -> paused.events.size() == 3);
+        assertThat(paused.events).isEqualTo(fast.events);
+        assertThat(paused.completed).isFalse();
+        assertThat(service.getSubscriberCount()).isEqualTo(2);
+    }
+
+    private static final class RecordingEmitter extends SseEmitter {
+        final List<String> events = new CopyOnWriteArrayList<>();
+        private final CountDownLatch release; // null: writes complete at once
+        volatile boolean writing;
+        volatile boolean completed;
+
+        RecordingEmitter(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            writing = true;
+            if (release != null) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                }
+            }
+            events.add(builder.build().stream().map(part -> String.valueOf(part.getData())).collect(Collectors.joining()));
+        }
+
+        @Override
+        public synchronized void complete() {
+            completed = true;
+        }
+    }
+}
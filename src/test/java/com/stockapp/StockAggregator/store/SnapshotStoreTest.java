@@ -0,0 +1,61 @@
+package com.stockapp.StockAggregator.store;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SnapshotStoreTest {
+
+    @TempDir
+    Path dir;
+
+    private static Snapshot snapshot(long ts, double price) {
+        return new Snapshot(ts)
+                .set(Snapshot.Field.LIVE_PRICE, price)
+                .set(Snapshot.Field.RSI, price / 10)
+                .setDecision((byte) (ts % 2 == 0 ? 1 : -1));
+    }
+
+    @Test
+    void rangeScansAcrossChunks() throws Exception {
+        SnapshotStore store = new SnapshotStore(dir, 4); // several chunks for ten rows
+        for (int i = 0; i < 10; i++) store.append("AAPL", snapshot(1000 + i * 10, 100 + i));
+
+        SnapshotRange range = store.range("AAPL", 1025, 1075, 100);
+        assertThat(range.timestamps()).containsExactly(1030, 1040, 1050, 1060, 1070);
+        assertThat(range.column(Snapshot.Field.LIVE_PRICE)).containsExactly(103, 104, 105, 106, 107);
+        assertThat(range.column(Snapshot.Field.DAY_HIGH)[0]).isNaN();
+        assertThat(range.decisions()).containsExactly(1, 1, 1, 1, 1);
+
+        // over the limit: the most recent rows win
+        assertThat(store.range("AAPL", 0, Long.MAX_VALUE, 3).timestamps()).containsExactly(1070, 1080, 1090);
+        assertThat(store.range("MSFT", 0, Long.MAX_VALUE, 3).size()).isZero();
+    }
+
+    @Test
+    void rowsSurviveReopening() throws Exception {
+        SnapshotStore store = new SnapshotStore(dir, 4);
+        for (int i = 0; i < 6; i++) store.append("AAPL", snapshot(i, 100 + i));
+        store.close();
+
+        SnapshotStore reopened = new SnapshotStore(dir, 128); // the file keeps its own chunk size
+        assertThat(reopened.symbols()).containsExactly("AAPL");
+        Snapshot latest = reopened.latest("AAPL");
+        assertThat(latest.getTimestamp()).isEqualTo(5);
+        assertThat(latest.get(Snapshot.Field.LIVE_PRICE)).isEqualTo(105);
+
+        reopened.append("AAPL", snapshot(3, 200)); // earlier clock: kept in order
+        assertThat(reopened.range("AAPL", 0, Long.MAX_VALUE, 100).timestamps()).containsExactly(0, 1, 2, 3, 4, 5, 5);
+    }
+
+    @Test
+    void rejectsSymbolsThatAreNotPlainFileNames() {
+        assertThat(SnapshotStore.isStorable("RELIANCE.NS")).isTrue();
+        assertThat(SnapshotStore.isStorable("../etc")).isFalse();
+        assertThatThrownBy(() -> new SnapshotStore(dir, 4).latest("a/b")).isInstanceOf(IllegalArgumentException.class);
+    }
+}